@@ -0,0 +1,126 @@
+package connect4.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import connect4.Board;
+import connect4.Player;
+import connect4.SimpleBoard;
+
+/**
+ * The basic board operations, measured over a fixed set of random games.
+ *
+ * Each invocation replays one whole game, so the numbers are per game.
+ * Replaying a game also takes the coins off again with undo(), since
+ * the board is reused between invocations.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+	private static final int GAMES = 1024;
+
+	@Param({ Boards.SIMPLE, Boards.BITS })
+	public String boardClass;
+
+	private final Player player1 = new Player("X");
+	private final Player player2 = new Player("O");
+
+	private Board board;
+	private int[][] games;
+	private int game;
+
+	/** Boards with the first half of each game placed */
+	private Board[] halfGames;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		board = Boards.create(boardClass);
+		games = Boards.randomGames(GAMES, Boards.SEED);
+
+		halfGames = new Board[GAMES];
+		for (int i = 0; i < GAMES; i++) {
+			halfGames[i] = Boards.create(boardClass);
+			for (int j = 0; j < games[i].length / 2; j++) {
+				halfGames[i].place(j % 2 == 0 ? player1 : player2, games[i][j]);
+			}
+		}
+	}
+
+	/**
+	 * @return The moves of the next game
+	 */
+	private int[] nextGame() {
+		game = (game + 1) % GAMES;
+		return games[game];
+	}
+
+	/**
+	 * place() for every move of a game, and undo() to clear the board.
+	 */
+	@Benchmark
+	public void place(Blackhole bh) {
+		int[] moves = nextGame();
+		for (int i = 0; i < moves.length; i++) {
+			bh.consume(board.place(i % 2 == 0 ? player1 : player2, moves[i]));
+		}
+		for (int i = 0; i < moves.length; i++) {
+			board.undo();
+		}
+	}
+
+	/**
+	 * Like place(), with check() after every move as the games do.
+	 */
+	@Benchmark
+	public void placeAndCheck(Blackhole bh) {
+		int[] moves = nextGame();
+		for (int i = 0; i < moves.length; i++) {
+			board.place(i % 2 == 0 ? player1 : player2, moves[i]);
+			bh.consume(board.check());
+		}
+		for (int i = 0; i < moves.length; i++) {
+			board.undo();
+		}
+	}
+
+	/**
+	 * canPlace() for every column of a half played game.
+	 */
+	@Benchmark
+	public void canPlace(Blackhole bh) {
+		nextGame();
+		Board b = halfGames[game];
+		for (int col = 0; col < SimpleBoard.COLS; col++) {
+			bh.consume(b.canPlace(col));
+		}
+	}
+
+	/**
+	 * isFull() on a half played game.
+	 */
+	@Benchmark
+	public boolean isFull() {
+		nextGame();
+		return halfGames[game].isFull();
+	}
+}
@@ -0,0 +1,96 @@
+package connect4.bench;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import connect4.Board;
+import connect4.Player;
+import connect4.SimpleBoard;
+
+/**
+ * Helpers shared by the benchmarks.
+ *
+ * Every benchmark takes the board implementation as a class name
+ * parameter, so a new board can be compared with SimpleBoard by adding
+ * its name to the parameter values, or with -p boardClass=... on the
+ * JMH command line.
+ *
+ * The benchmarks live in their own source folder, next to src. They are
+ * compiled against src, jmh-core and jmh-generator-annprocess, and run
+ * with org.openjdk.jmh.Main.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+final class Boards {
+
+	/** Board implementations measured by default */
+	static final String SIMPLE = "connect4.SimpleBoard";
+	static final String BITS = "connect4.BitBoard";
+
+	/** Seed of the random games, so every run measures the same games */
+	static final long SEED = 42;
+
+	private Boards() {
+	}
+
+	/**
+	 * @param className Name of a Board class with a public no-argument constructor
+	 * @return A new empty board
+	 */
+	static Board create(String className) {
+		try {
+			return (Board) Class.forName(className).getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalArgumentException("Cannot create board " + className, e);
+		}
+	}
+
+	/**
+	 * Plays random games to the end, a win or a full board.
+	 *
+	 * @param count The number of games
+	 * @param seed The random seed
+	 * @return The columns played in each game
+	 */
+	static int[][] randomGames(int count, long seed) {
+		Random random = new Random(seed);
+		Player player1 = new Player("X");
+		Player player2 = new Player("O");
+		int[] columns = new int[SimpleBoard.COLS];
+		int[][] games = new int[count][];
+
+		for (int i = 0; i < count; i++) {
+			Board board = new SimpleBoard();
+			Player current = player1;
+			int[] moves = new int[SimpleBoard.ROWS * SimpleBoard.COLS];
+			int n = 0;
+
+			do {
+				int legal = board.getMoves(columns, null, current, current == player1 ? player2 : player1);
+				int col = columns[random.nextInt(legal)];
+				board.place(current, col);
+				moves[n++] = col;
+				current = current == player1 ? player2 : player1;
+			} while (board.check() == null && !board.isFull());
+
+			games[i] = Arrays.copyOf(moves, n);
+		}
+		return games;
+	}
+
+	/**
+	 * Places coins for the two players in turn.
+	 *
+	 * @param board The board
+	 * @param moves The columns, starting at 1
+	 * @return The player to move next
+	 */
+	static Player play(Board board, String moves, Player player1, Player player2) {
+		Player current = player1;
+		for (int i = 0; i < moves.length(); i++) {
+			board.place(current, moves.charAt(i) - '1');
+			current = current == player1 ? player2 : player1;
+		}
+		return current;
+	}
+}
@@ -0,0 +1,78 @@
+package connect4.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import connect4.BitBoard;
+import connect4.Player;
+import connect4.ai.NegamaxEngine;
+
+/**
+ * Engine searches of fixed positions, reported as searches and nodes per
+ * second.
+ *
+ * The engine only searches BitBoards, so the position is set up on one
+ * BitBoard, which every search leaves as it found it. Board implementations
+ * are compared in BoardBenchmark. The search runs without a transposition
+ * table, so every search does the same work.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EngineBenchmark {
+
+	/** Positions as columns played, starting at 1 */
+	@Param({ "", "4453", "3345526" })
+	public String position;
+
+	@Param({ "8" })
+	public int depth;
+
+	private final Player player1 = new Player("X");
+	private final Player player2 = new Player("O");
+
+	private BitBoard board;
+	private Player current;
+	private NegamaxEngine engine;
+
+	/**
+	 * Counts the nodes searched, which JMH reports per second.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Nodes {
+		public long nodes;
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		board = new BitBoard();
+		current = Boards.play(board, position, player1, player2);
+		engine = new NegamaxEngine(depth);
+	}
+
+	@Benchmark
+	public int search(Nodes counter) {
+		int col = engine.search(board, current, current == player1 ? player2 : player1);
+		counter.nodes += engine.getNodes();
+		return col;
+	}
+}
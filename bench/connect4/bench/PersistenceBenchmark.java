@@ -0,0 +1,78 @@
+package connect4.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import connect4.Board;
+import connect4.Persistence;
+import connect4.Player;
+
+/**
+ * Saving a game and loading it into a new board.
+ *
+ * The game files are written to the working directory, like the games
+ * do, and removed when the benchmark is done.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersistenceBenchmark {
+
+	private static final String GAME = "benchmark";
+
+	/** A game in the middle game, as columns played */
+	private static final String MOVES = "4453322615567717";
+
+	@Param({ Boards.SIMPLE, Boards.BITS })
+	public String boardClass;
+
+	private final Player player1 = new Player("X");
+	private final Player player2 = new Player("O");
+
+	private Persistence persistence;
+	private Player current;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Board board = Boards.create(boardClass);
+		current = Boards.play(board, MOVES, player1, player2);
+		persistence = new Persistence(player1, player2, board);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		persistence.remove(GAME);
+	}
+
+	@Benchmark
+	public void persist() {
+		persistence.persist(GAME, current);
+	}
+
+	@Benchmark
+	public Board roundTrip() {
+		persistence.persist(GAME, current);
+
+		Board board = Boards.create(boardClass);
+		new Persistence(player1, player2, board).load(GAME);
+		return board;
+	}
+}
@@ -0,0 +1,82 @@
+package connect4.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import connect4.Board;
+import connect4.Player;
+import connect4.SimpleBoard;
+
+/**
+ * Random games from the empty board to the end, in games per second.
+ *
+ * Columns are picked with a xorshift generator that is cheap next to
+ * the board operations, so the result shows the speed of the board.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayoutBenchmark {
+
+	@Param({ Boards.SIMPLE, Boards.BITS })
+	public String boardClass;
+
+	private final Player player1 = new Player("X");
+	private final Player player2 = new Player("O");
+	private final int[] columns = new int[SimpleBoard.COLS];
+
+	private Board board;
+	private long random;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		board = Boards.create(boardClass);
+		random = Boards.SEED;
+	}
+
+	/**
+	 * @return The winner, or null for a draw
+	 */
+	@Benchmark
+	public Player playout() {
+		Player current = player1;
+		Player opponent = player2;
+		Player winner = null;
+
+		do {
+			random ^= random << 13;
+			random ^= random >>> 7;
+			random ^= random << 17;
+
+			int legal = board.getMoves(columns, null, current, opponent);
+			board.place(current, columns[(int) ((random >>> 1) % legal)]);
+			winner = board.check();
+
+			Player p = current;
+			current = opponent;
+			opponent = p;
+		} while (winner == null && !board.isFull());
+
+		while (board.getMoveCount() > 0) {
+			board.undo();
+		}
+		return winner;
+	}
+}
@@ -0,0 +1,385 @@
+package connect4;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Board implementation backed by bit masks.
+ *
+ * Every column is stored as ROWS + 1 bits in a long, bottom row first,
+ * with an extra always-empty bit on top so that shifting a column never
+ * leaks into its neighbour:
+ *
+ *	 6 13 20 27 34 41 48
+ *	 5 12 19 26 33 40 47
+ *	 4 11 18 25 32 39 46
+ *	 3 10 17 24 31 38 45
+ *	 2  9 16 23 30 37 44
+ *	 1  8 15 22 29 36 43
+ *	 0  7 14 21 28 35 42
+ *
+ * One mask is kept for each of the two players, together with the height
+ * of every column. Placing a coin and checking for a winner are then a
+ * few shifts and ANDs, and no objects are created per move.
+ *
+ * The cells returned by getMatrix() are only built on request, and the
+ * matrix is a read-only view of the board.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class BitBoard implements Board {
+
+	/** Number of bits used per column */
+	public static final int HEIGHT = SimpleBoard.ROWS + 1;
+
+	/** Mask with the bottom bit of every column set */
+	public static final long BOTTOM_MASK = bottomMask();
+
+	/** Mask with every playable cell set */
+	public static final long BOARD_MASK = BOTTOM_MASK * ((1L << SimpleBoard.ROWS) - 1);
+
+	/** The two players, in the order they placed their first coin */
+	private final Player[] players = new Player[2];
+	/** Cells of each player, created once when the player places the first coin */
+	private final Cell[][][] cells = new Cell[2][][];
+	/** The coins of each player */
+	private final long[] masks = new long[2];
+	/** Number of coins in each column */
+	private final int[] heights = new int[SimpleBoard.COLS];
+
+	private Position lastPosition;
+	private int lastSlot;
+
+	/** The positions of the placed coins, oldest first */
+	private final Position[] history = new Position[SimpleBoard.ROWS * SimpleBoard.COLS];
+	private int moveCount;
+	private long key;
+	private long mirrorKey;
+
+	/** Lazily built cells, see getMatrix() */
+	private final Cell[][] matrix = new Cell[SimpleBoard.ROWS][SimpleBoard.COLS];
+	private boolean matrixDirty;
+
+	/**
+	 * Creates an empty board.
+	 */
+	public BitBoard() {
+	}
+
+	/**
+	 * Creates a copy of another board by replaying its move history.
+	 *
+	 * @param board The board to copy
+	 */
+	public BitBoard(Board board) {
+		Cell[][] cells = board.getMatrix();
+		for (Position pos : board.getHistory()) {
+			place(cells[pos.getRow()][pos.getCol()].getPlayer(), pos.getCol());
+		}
+	}
+
+	/**
+	 * Removes all coins and forgets the players, so the board can be
+	 * reused for a new game between any two players.
+	 */
+	public void clear() {
+		while (moveCount > 0) {
+			undo();
+		}
+		players[0] = null;
+		players[1] = null;
+		cells[0] = null;
+		cells[1] = null;
+	}
+
+	/**
+	 * Brings the cell matrix up to date with the masks and returns it.
+	 *
+	 * @return The matrix of cells
+	 */
+	public Cell[][] getMatrix() {
+		if (matrixDirty) {
+			for (int i = 0; i < SimpleBoard.ROWS; i++) {
+				for (int j = 0; j < SimpleBoard.COLS; j++) {
+					long bit = 1L << (j * HEIGHT + i);
+
+					if ((masks[0] & bit) != 0) {
+						matrix[i][j] = cells[0][i][j];
+					} else if ((masks[1] & bit) != 0) {
+						matrix[i][j] = cells[1][i][j];
+					} else {
+						matrix[i][j] = null;
+					}
+				}
+			}
+			matrixDirty = false;
+		}
+		return matrix;
+	}
+
+	/**
+	 * @param col The column index
+	 * @return True if we can place a coin in the given column
+	 */
+	public boolean canPlace(int col) {
+		return heights[col] < SimpleBoard.ROWS;
+	}
+
+	/**
+	 * @return The number of legal columns written to the array
+	 */
+	public int getMoves(int[] columns, MoveOrdering ordering, Player player, Player opponent) {
+		int count = 0;
+		for (int col = 0; col < SimpleBoard.COLS; col++) {
+			if (heights[col] < SimpleBoard.ROWS) {
+				columns[count++] = col;
+			}
+		}
+
+		if (ordering != null && count > 1) {
+			ordering.order(this, player, opponent, columns, count);
+		}
+		return count;
+	}
+
+	/**
+	 * @return True if the board is full
+	 */
+	public boolean isFull() {
+		return moveCount == SimpleBoard.ROWS * SimpleBoard.COLS;
+	}
+
+	/**
+	 * Places a coin from the given player in the given column.
+	 *
+	 * @param player The player
+	 * @param col The column
+	 * @return The position of the newly placed cell, or null if it's unavailable.
+	 */
+	public Position place(Player player, int col) {
+		if (canPlace(col)) {
+			int slot = getSlot(player);
+			int row = heights[col]++;
+
+			lastSlot = slot;
+			masks[lastSlot] |= 1L << (col * HEIGHT + row);
+			key ^= Zobrist.getKey(slot, row, col);
+			mirrorKey ^= Zobrist.getKey(slot, row, SimpleBoard.COLS - 1 - col);
+			lastPosition = Position.valueOf(row, col);
+			history[moveCount++] = lastPosition;
+			matrixDirty = true;
+
+			return lastPosition;
+		}
+		return null;
+	}
+
+	/**
+	 * Removes the latest placed coin, and moves the last position
+	 * back to the coin placed before it.
+	 *
+	 * @return The position of the removed coin, or null if the board is empty
+	 */
+	public Position undo() {
+		if (moveCount == 0) {
+			return null;
+		}
+
+		Position pos = history[--moveCount];
+		history[moveCount] = null;
+		heights[pos.getCol()]--;
+		masks[lastSlot] &= ~getBit(pos);
+		key ^= Zobrist.getKey(lastSlot, pos.getRow(), pos.getCol());
+		mirrorKey ^= Zobrist.getKey(lastSlot, pos.getRow(), SimpleBoard.COLS - 1 - pos.getCol());
+		matrixDirty = true;
+
+		if (moveCount > 0) {
+			lastPosition = history[moveCount - 1];
+			lastSlot = (masks[0] & getBit(lastPosition)) != 0 ? 0 : 1;
+		} else {
+			lastPosition = null;
+		}
+
+		return pos;
+	}
+
+	/**
+	 * @return The number of coins on the board
+	 */
+	public int getMoveCount() {
+		return moveCount;
+	}
+
+	/**
+	 * @return A copy of the move history, oldest first
+	 */
+	public List<Position> getHistory() {
+		return Arrays.asList(Arrays.copyOf(history, moveCount));
+	}
+
+	/**
+	 * Only the player who placed the last coin can have made four in a row,
+	 * so only that players mask is checked.
+	 *
+	 * @return Player The winner, or null if nobody has won
+	 */
+	public Player check() {
+		if (lastPosition != null && isWin(masks[lastSlot])) {
+			return players[lastSlot];
+		}
+		return null;
+	}
+
+	/**
+	 * @return The position of the last placed coin.
+	 */
+	public Position getLastPosition() {
+		return lastPosition;
+	}
+
+	/**
+	 * @return The Zobrist key of the position
+	 */
+	public long getKey() {
+		return key;
+	}
+
+	/**
+	 * @return The Zobrist key of the position mirrored left to right
+	 */
+	public long getMirrorKey() {
+		return mirrorKey;
+	}
+
+	/**
+	 * @return Mask of all occupied cells
+	 */
+	public long getMask() {
+		return masks[0] | masks[1];
+	}
+
+	/**
+	 * @param player A player
+	 * @return Mask of the cells occupied by the given player
+	 */
+	public long getMask(Player player) {
+		if (players[0] == player) {
+			return masks[0];
+		}
+		if (players[1] == player) {
+			return masks[1];
+		}
+		return 0;
+	}
+
+	/**
+	 * Checks a mask for four connected coins in any direction.
+	 *
+	 * For every direction the mask is shifted onto itself, which leaves
+	 * the start of every pair. Doing the same with the pairs leaves the
+	 * start of every line of four. The empty bit on top of each column
+	 * stops vertical and diagonal lines from wrapping into the next column.
+	 *
+	 * @param mask The coins of a player
+	 * @return True if the mask contains four connected coins
+	 */
+	public static boolean isWin(long mask) {
+		// Horizontal
+		long m = mask & (mask >> HEIGHT);
+		if ((m & (m >> (2 * HEIGHT))) != 0) {
+			return true;
+		}
+
+		// Diagonal, bottom right to top left
+		m = mask & (mask >> (HEIGHT - 1));
+		if ((m & (m >> (2 * (HEIGHT - 1)))) != 0) {
+			return true;
+		}
+
+		// Diagonal, bottom left to top right
+		m = mask & (mask >> (HEIGHT + 1));
+		if ((m & (m >> (2 * (HEIGHT + 1)))) != 0) {
+			return true;
+		}
+
+		// Vertical
+		m = mask & (mask >> 1);
+		if ((m & (m >> 2)) != 0) {
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Finds the empty cells where a player would get four connected coins.
+	 * The cells do not have to be playable yet.
+	 *
+	 * @param player The coins of the player
+	 * @param occupied All coins on the board
+	 * @return Mask of the cells that would win for the player
+	 */
+	public static long getWinningCells(long player, long occupied) {
+		// Vertical
+		long cells = (player << 1) & (player << 2) & (player << 3);
+
+		// Horizontal and both diagonals
+		for (int shift = HEIGHT - 1; shift <= HEIGHT + 1; shift++) {
+			long pair = (player << shift) & (player << (2 * shift));
+			cells |= pair & (player << (3 * shift));
+			cells |= pair & (player >> shift);
+
+			pair = (player >> shift) & (player >> (2 * shift));
+			cells |= pair & (player << shift);
+			cells |= pair & (player >> (3 * shift));
+		}
+
+		return cells & (BOARD_MASK ^ occupied);
+	}
+
+	/**
+	 * @param pos A position
+	 * @return The bit of the given position
+	 */
+	private static long getBit(Position pos) {
+		return 1L << (pos.getCol() * HEIGHT + pos.getRow());
+	}
+
+	/**
+	 * Finds the mask index of a player. The first two players that place
+	 * a coin are given index 0 and 1.
+	 *
+	 * @param player The player
+	 * @return The index of the players mask
+	 */
+	private int getSlot(Player player) {
+		if (players[0] == player) {
+			return 0;
+		}
+		if (players[1] == player) {
+			return 1;
+		}
+		if (players[0] == null) {
+			players[0] = player;
+			cells[0] = Cell.createCells(player);
+			return 0;
+		}
+		if (players[1] == null) {
+			players[1] = player;
+			cells[1] = Cell.createCells(player);
+			return 1;
+		}
+		throw new IllegalArgumentException("Only two players can place coins on a board");
+	}
+
+	/**
+	 * @return Mask with the bottom cell of every column set
+	 */
+	private static long bottomMask() {
+		long mask = 0;
+		for (int i = 0; i < SimpleBoard.COLS; i++) {
+			mask |= 1L << (i * HEIGHT);
+		}
+		return mask;
+	}
+}
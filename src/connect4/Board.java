@@ -1,5 +1,7 @@
 package connect4;
 
+import java.util.List;
+
 /**
  * Board interface.
  * Defines the operations that a board can do.
@@ -46,4 +48,42 @@ public interface Board {
 	 */
 	Position getLastPosition();
 	
+	/**
+	 * Removes the latest placed coin. 
+	 * The position of the coin before it becomes the last position.
+	 * 
+	 * @return The position of the removed coin, or null if the board is empty
+	 */
+	Position undo();
+	
+	/**
+	 * @return The number of coins on the board
+	 */
+	int getMoveCount();
+	
+	/**
+	 * @return The positions of the placed coins, in the order they were placed
+	 */
+	List<Position> getHistory();
+	
+	/**
+	 * The key is the same for equal positions, no matter the order
+	 * the coins were placed in. See Zobrist.
+	 * 
+	 * @return A 64-bit key of the position
+	 */
+	long getKey();
+	
+	/**
+	 * Writes the columns a coin can be placed in, ordered by the given
+	 * move ordering or from left to right.
+	 * 
+	 * @param columns Array of at least SimpleBoard.COLS entries to write the columns to
+	 * @param ordering The move ordering, or null
+	 * @param player The player to move
+	 * @param opponent The other player
+	 * @return The number of columns written
+	 */
+	int getMoves(int[] columns, MoveOrdering ordering, Player player, Player opponent);
+	
 }
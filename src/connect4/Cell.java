@@ -7,9 +7,9 @@ package connect4;
  */
 public class Cell {
 	/** The player that placed this cell */
-	private Player player;
+	private final Player player;
 	/** The position of this cell */
-	private Position position;
+	private final Position position;
 	
 	/**
 	 * Constructor 
@@ -21,6 +21,23 @@ public class Cell {
 		position = po;
 	}
 	
+	/**
+	 * Creates a cell for every position on the board, so a board can
+	 * reuse them instead of creating a cell for each coin.
+	 * 
+	 * @param player The player
+	 * @return The cells of the player, indexed by row and column
+	 */
+	static Cell[][] createCells(Player player) {
+		Cell[][] cells = new Cell[SimpleBoard.ROWS][SimpleBoard.COLS];
+		for (int i = 0; i < SimpleBoard.ROWS; i++) {
+			for (int j = 0; j < SimpleBoard.COLS; j++) {
+				cells[i][j] = new Cell(player, Position.valueOf(i, j));
+			}
+		}
+		return cells;
+	}
+	
 	/**
 	 * @return Player
 	 */
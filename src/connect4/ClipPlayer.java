@@ -0,0 +1,186 @@
+package connect4;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Clip;
+
+/**
+ * Sound player that decodes every sound once and plays it with clips
+ * that are opened once and reused.
+ * 
+ * The sound files of a directory are read and decoded when the player
+ * is created, other files the first time they are played. Every sound
+ * gets a few clips, so it can overlap itself that many times. Playing it
+ * again when all of them are busy restarts the one that started first.
+ * 
+ * All audio work is done on one daemon thread, and play() only queues
+ * the sound. The queue is short, and when it is full the oldest sound is
+ * dropped, since a sound that is late is worse than no sound.
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class ClipPlayer implements SoundPlayer {
+	
+	/** Clips per sound, which is how many times a sound can overlap itself */
+	public static final int CLIPS_PER_SOUND = 3;
+	
+	/** Sounds waiting to be started before the oldest is dropped */
+	private static final int QUEUE_SIZE = 8;
+	
+	private final ExecutorService executor;
+	
+	/** Set when clips cannot be opened, then sounds are only decoded */
+	private boolean noDevice;
+	
+	/** Decoded sounds by path, only changed on the audio thread */
+	private final Map<String, Sample> samples = new ConcurrentHashMap<String, Sample>();
+	
+	/**
+	 * A decoded sound and its clips.
+	 */
+	private static class Sample {
+		AudioFormat format;
+		byte[] data;
+		Clip[] clips = new Clip[CLIPS_PER_SOUND];
+		int next;
+		volatile boolean failed;
+	}
+	
+	/**
+	 * @param dir Directory of sound files to load at once, or null
+	 */
+	public ClipPlayer(final File dir) {
+		executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(QUEUE_SIZE),
+				new ThreadFactory() {
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "sound");
+						thread.setDaemon(true);
+						return thread;
+					}
+				}, new ThreadPoolExecutor.DiscardOldestPolicy());
+		
+		final File[] files = dir != null ? dir.listFiles() : null;
+		if (files != null) {
+			executor.execute(new Runnable() {
+				public void run() {
+					for (File file : files) {
+						if (file.getName().endsWith(".wav")) {
+							getSample(file.getPath());
+						}
+					}
+				}
+			});
+		}
+	}
+	
+	public void play(final String name) {
+		executor.execute(new Runnable() {
+			public void run() {
+				start(getSample(new File(name).getPath()));
+			}
+		});
+	}
+	
+	public void close() {
+		executor.execute(new Runnable() {
+			public void run() {
+				for (Sample sample : samples.values()) {
+					for (Clip clip : sample.clips) {
+						if (clip != null) {
+							clip.close();
+						}
+					}
+				}
+				samples.clear();
+			}
+		});
+		executor.shutdown();
+	}
+	
+	/**
+	 * @param path The path of a sound file
+	 * @return True if the sound is decoded
+	 */
+	public boolean isLoaded(String path) {
+		Sample sample = samples.get(new File(path).getPath());
+		return sample != null && !sample.failed;
+	}
+	
+	/**
+	 * Starts the next clip of a sound, from the beginning.
+	 */
+	private void start(Sample sample) {
+		if (sample.failed || noDevice) {
+			return;
+		}
+		
+		try {
+			Clip clip = sample.clips[sample.next];
+			if (clip == null) {
+				clip = AudioSystem.getClip();
+				clip.open(sample.format, sample.data, 0, sample.data.length);
+				sample.clips[sample.next] = clip;
+			}
+			sample.next = (sample.next + 1) % CLIPS_PER_SOUND;
+			
+			clip.stop();
+			clip.setFramePosition(0);
+			clip.start();
+		}
+		catch (Exception e) {
+			// No audio device, do not try again
+			System.err.println("Sounds are off: " + e);
+			noDevice = true;
+		}
+	}
+	
+	/**
+	 * @param path The path of a sound file
+	 * @return The decoded sound, read the first time it is asked for
+	 */
+	private Sample getSample(String path) {
+		Sample sample = samples.get(path);
+		if (sample != null) {
+			return sample;
+		}
+		
+		sample = new Sample();
+		try {
+			AudioInputStream audio = AudioSystem.getAudioInputStream(new BufferedInputStream(new FileInputStream(path)));
+			try {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				byte[] buffer = new byte[8192];
+				int read;
+				while ((read = audio.read(buffer)) > 0) {
+					bytes.write(buffer, 0, read);
+				}
+				
+				sample.format = audio.getFormat();
+				sample.data = bytes.toByteArray();
+			}
+			finally {
+				audio.close();
+			}
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			sample.failed = true;
+		}
+		
+		samples.put(path, sample);
+		return sample;
+	}
+}
@@ -0,0 +1,443 @@
+package connect4;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.CRC32;
+
+/**
+ * A single file holding many saved games, with an index.
+ * 
+ * The file starts with a header:
+ * 
+ *	 4 bytes  magic "C4ST"
+ *	 4 bytes  format version
+ *	 8 bytes  position of the index
+ *	 4 bytes  length of the index in bytes
+ *	 4 bytes  CRC-32 of the index
+ * 
+ * followed by the records of the games and the index. The index holds the
+ * number of games, and for each game its name, the position and length of
+ * its record, the time it was saved and the player to move. Listing the
+ * games reads the header and the index, and nothing else, and a game is
+ * loaded with one read at the position in the index.
+ * 
+ * Saving appends the record and a new index after the old one, and then
+ * points the header to the new index. Until the header is written the old
+ * index stays valid, so a crash in the middle of a save loses only that
+ * save. Records of removed and replaced games and old indexes are left in
+ * the file, and compacted away when they take up more than half of it.
+ * 
+ * Every call opens the file and reads the index again, so several stores
+ * on the same file see each other's changes. All stores on the same file
+ * share one lock, so a save through one store never runs at the same time
+ * as a save through another. The file is not locked against other
+ * programs.
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class GameStore {
+	
+	/** Magic number at the start of the file */
+	public static final int MAGIC = 0x43345354;
+	/** Version of the file format */
+	public static final int VERSION = 1;
+	/** Name of the store file in its directory */
+	public static final String FILE_NAME = "games.store";
+	
+	private static final int HEADER_SIZE = 24;
+	
+	/** Unused bytes allowed before the file is compacted */
+	private static final long MIN_GARBAGE = 64 * 1024;
+	
+	/** Locks of the store files, by canonical path */
+	private static final ConcurrentMap<String, Object> LOCKS = new ConcurrentHashMap<String, Object>();
+	
+	private final File file;
+	/** Shared by all stores on the same file */
+	private final Object lock;
+	
+	/**
+	 * @param dir The directory of the store file
+	 */
+	public GameStore(File dir) {
+		file = new File(dir, FILE_NAME);
+		lock = getLock(file);
+	}
+	
+	/**
+	 * @param file A store file
+	 * @return The lock shared by all stores on the file
+	 */
+	private static Object getLock(File file) {
+		String path;
+		try {
+			path = file.getCanonicalPath();
+		}
+		catch (IOException e) {
+			path = file.getAbsolutePath();
+		}
+		
+		Object lock = LOCKS.get(path);
+		if (lock == null) {
+			Object created = new Object();
+			lock = LOCKS.putIfAbsent(path, created);
+			if (lock == null) {
+				lock = created;
+			}
+		}
+		return lock;
+	}
+	
+	/**
+	 * @return True if the store file exists
+	 */
+	public boolean exists() {
+		return file.exists();
+	}
+	
+	/**
+	 * @return The saved games, oldest first
+	 * @throws IOException If the store cannot be read
+	 */
+	public List<SavedGame> list() throws IOException {
+		synchronized (lock) {
+			if (!file.exists()) {
+				return new ArrayList<SavedGame>();
+			}
+			
+			RandomAccessFile raf = new RandomAccessFile(file, "r");
+			try {
+				return new ArrayList<SavedGame>(readIndex(raf).values());
+			}
+			finally {
+				raf.close();
+			}
+		}
+	}
+	
+	/**
+	 * @param name The name of a game
+	 * @return The index entry of the game, or null if there is none
+	 * @throws IOException If the store cannot be read
+	 */
+	public SavedGame find(String name) throws IOException {
+		synchronized (lock) {
+			if (!file.exists()) {
+				return null;
+			}
+			
+			RandomAccessFile raf = new RandomAccessFile(file, "r");
+			try {
+				return readIndex(raf).get(name);
+			}
+			finally {
+				raf.close();
+			}
+		}
+	}
+	
+	/**
+	 * @param name The name of a game
+	 * @return The record of the game, or null if there is none
+	 * @throws IOException If the store cannot be read
+	 */
+	public byte[] read(String name) throws IOException {
+		synchronized (lock) {
+			if (!file.exists()) {
+				return null;
+			}
+			
+			RandomAccessFile raf = new RandomAccessFile(file, "r");
+			try {
+				SavedGame game = readIndex(raf).get(name);
+				if (game == null) {
+					return null;
+				}
+				
+				byte[] record = new byte[game.getLength()];
+				raf.seek(game.getOffset());
+				raf.readFully(record);
+				return record;
+			}
+			finally {
+				raf.close();
+			}
+		}
+	}
+	
+	/**
+	 * Saves a game, replacing any game with the same name.
+	 * 
+	 * @param name The name of the game
+	 * @param record The saved game
+	 * @param playerToMove Index of the player to move
+	 * @throws IOException If the store cannot be written
+	 */
+	public void write(String name, byte[] record, int playerToMove) throws IOException {
+		synchronized (lock) {
+			RandomAccessFile raf = open();
+			try {
+				Map<String, SavedGame> index = readIndex(raf);
+				long offset = raf.length();
+				
+				raf.seek(offset);
+				raf.write(record);
+				
+				index.remove(name);
+				index.put(name, new SavedGame(name, offset, record.length, System.currentTimeMillis(), playerToMove));
+				writeIndex(raf, index, offset + record.length);
+			}
+			finally {
+				raf.close();
+			}
+			compactIfNeeded();
+		}
+	}
+	
+	/**
+	 * Saves and removes several games with one write and one index update.
+	 * 
+	 * @param names The names of the games
+	 * @param records The saved games, or null for games to remove
+	 * @param playersToMove Index of the player to move in each game
+	 * @throws IOException If the store cannot be written
+	 */
+	public void writeAll(List<String> names, List<byte[]> records, int[] playersToMove) throws IOException {
+		synchronized (lock) {
+			RandomAccessFile raf = open();
+			try {
+				Map<String, SavedGame> index = readIndex(raf);
+				long offset = raf.length();
+				long now = System.currentTimeMillis();
+				
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				for (int i = 0; i < names.size(); i++) {
+					byte[] record = records.get(i);
+					
+					index.remove(names.get(i));
+					if (record == null) {
+						continue;
+					}
+					index.put(names.get(i), new SavedGame(names.get(i), offset + bytes.size(), record.length, now, playersToMove[i]));
+					bytes.write(record);
+				}
+				
+				raf.seek(offset);
+				raf.write(bytes.toByteArray());
+				writeIndex(raf, index, offset + bytes.size());
+			}
+			finally {
+				raf.close();
+			}
+			compactIfNeeded();
+		}
+	}
+	
+	/**
+	 * @param name The name of the game to remove
+	 * @return True if there was such a game
+	 * @throws IOException If the store cannot be written
+	 */
+	public boolean remove(String name) throws IOException {
+		synchronized (lock) {
+			if (!file.exists()) {
+				return false;
+			}
+			
+			boolean removed;
+			RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			try {
+				Map<String, SavedGame> index = readIndex(raf);
+				removed = index.remove(name) != null;
+				
+				if (removed) {
+					writeIndex(raf, index, raf.length());
+				}
+			}
+			finally {
+				raf.close();
+			}
+			
+			compactIfNeeded();
+			return removed;
+		}
+	}
+	
+	/**
+	 * Rewrites the store with only the current records and index.
+	 * 
+	 * @throws IOException If the store cannot be written
+	 */
+	public void compact() throws IOException {
+		synchronized (lock) {
+			if (!file.exists()) {
+				return;
+			}
+			
+			File temp = new File(file.getPath() + ".tmp");
+			Map<String, SavedGame> compacted = new LinkedHashMap<String, SavedGame>();
+			
+			RandomAccessFile in = new RandomAccessFile(file, "r");
+			RandomAccessFile out = new RandomAccessFile(temp, "rw");
+			try {
+				out.setLength(0);
+				out.seek(HEADER_SIZE);
+				
+				for (SavedGame game : readIndex(in).values()) {
+					byte[] record = new byte[game.getLength()];
+					in.seek(game.getOffset());
+					in.readFully(record);
+					
+					compacted.put(game.getName(), new SavedGame(game.getName(), out.getFilePointer(), record.length,
+							game.getTimestamp(), game.getPlayerToMove()));
+					out.write(record);
+				}
+				writeIndex(out, compacted, out.getFilePointer());
+			}
+			finally {
+				in.close();
+				out.close();
+			}
+			
+			// Either the old or the compacted store is in place, even after a crash
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+	}
+	
+	/**
+	 * Compacts the store when most of it is unused.
+	 */
+	private void compactIfNeeded() throws IOException {
+		long live = HEADER_SIZE;
+		long size;
+		
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			size = raf.length();
+			raf.seek(12);
+			live += raf.readInt();
+			for (SavedGame game : readIndex(raf).values()) {
+				live += game.getLength();
+			}
+		}
+		finally {
+			raf.close();
+		}
+		
+		if (size - live > MIN_GARBAGE && size - live > live) {
+			compact();
+		}
+	}
+	
+	/**
+	 * @return The store file opened for writing, with a header and an empty index if it is new
+	 */
+	private RandomAccessFile open() throws IOException {
+		boolean created = !file.exists();
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		
+		if (created || raf.length() < HEADER_SIZE) {
+			raf.setLength(0);
+			raf.seek(HEADER_SIZE);
+			writeIndex(raf, new LinkedHashMap<String, SavedGame>(), HEADER_SIZE);
+		}
+		return raf;
+	}
+	
+	/**
+	 * Reads the header and the index.
+	 * 
+	 * @return The index entries by name, oldest save first
+	 */
+	private static Map<String, SavedGame> readIndex(RandomAccessFile raf) throws IOException {
+		raf.seek(0);
+		byte[] header = new byte[HEADER_SIZE];
+		raf.readFully(header);
+		
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(header));
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not a game store");
+		}
+		int version = in.readInt();
+		if (version != VERSION) {
+			throw new IOException("Unknown store version " + version);
+		}
+		long indexOffset = in.readLong();
+		int indexLength = in.readInt();
+		int checksum = in.readInt();
+		
+		byte[] data = new byte[indexLength];
+		raf.seek(indexOffset);
+		raf.readFully(data);
+		
+		CRC32 crc = new CRC32();
+		crc.update(data);
+		if ((int) crc.getValue() != checksum) {
+			throw new IOException("The index of the game store is corrupt");
+		}
+		
+		in = new DataInputStream(new ByteArrayInputStream(data));
+		int count = in.readInt();
+		Map<String, SavedGame> index = new LinkedHashMap<String, SavedGame>();
+		
+		for (int i = 0; i < count; i++) {
+			String name = in.readUTF();
+			index.put(name, new SavedGame(name, in.readLong(), in.readInt(), in.readLong(), in.readUnsignedByte()));
+		}
+		return index;
+	}
+	
+	/**
+	 * Writes an index at the given position, and then the header that
+	 * points to it.
+	 */
+	private static void writeIndex(RandomAccessFile raf, Map<String, SavedGame> index, long offset) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		
+		out.writeInt(index.size());
+		for (SavedGame game : index.values()) {
+			out.writeUTF(game.getName());
+			out.writeLong(game.getOffset());
+			out.writeInt(game.getLength());
+			out.writeLong(game.getTimestamp());
+			out.writeByte(game.getPlayerToMove());
+		}
+		out.flush();
+		
+		byte[] data = bytes.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(data);
+		
+		raf.seek(offset);
+		raf.write(data);
+		raf.setLength(offset + data.length);
+		raf.getChannel().force(false);
+		
+		bytes = new ByteArrayOutputStream(HEADER_SIZE);
+		out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeLong(offset);
+		out.writeInt(data.length);
+		out.writeInt((int) crc.getValue());
+		out.flush();
+		
+		raf.seek(0);
+		raf.write(bytes.toByteArray());
+		raf.getChannel().force(false);
+	}
+}
@@ -0,0 +1,347 @@
+package connect4;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Append-only log of the moves of one game, so a game in progress
+ * survives a crash without saving the whole game after every move.
+ * 
+ * The log starts with a header:
+ * 
+ *	 4 bytes  magic "C4JL"
+ *	 1 byte   format version
+ *	 UTF      name of the game
+ *	 1 byte   index of the player to move on the empty board
+ * 
+ * followed by one byte per entry. A coin is 0x10 | player << 3 | column,
+ * where player 1 is 0, and an undo is 0x20. Every other value, such as
+ * the zeros a crash may leave at the end of a file, ends the log.
+ * 
+ * Every entry is written to the file at once, so it survives the program
+ * crashing. It survives the machine crashing once the file is synced,
+ * which is done after a configurable number of entries, so several moves
+ * share the cost of one sync. Compacting replaces the log with a snapshot,
+ * which is a new log with one entry for each coin on the board. It is
+ * done when undos have made the log a configurable number of entries
+ * longer than the snapshot would be.
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class MoveJournal {
+	
+	/** Magic number at the start of a log */
+	public static final int MAGIC = 0x43344a4c;
+	/** Version of the log format */
+	public static final int VERSION = 1;
+	
+	/** Entries between syncs, by default every entry is synced */
+	public static final int DEFAULT_SYNC_INTERVAL = 1;
+	/** Entries more than the coins on the board before the log is compacted */
+	public static final int DEFAULT_COMPACT_INTERVAL = 64;
+	
+	private static final int COIN = 0x10;
+	private static final int UNDO = 0x20;
+	
+	private final File file;
+	private final String name;
+	private final Player player1;
+	private final Player player2;
+	private final Board board;
+	private final int syncInterval;
+	private final int compactInterval;
+	
+	private FileChannel channel;
+	private final ByteBuffer entry = ByteBuffer.allocate(1);
+	private int entries;
+	private int unsynced;
+	private int firstSlot;
+	
+	/**
+	 * @param dir The directory of the log
+	 * @param n The name of the game
+	 * @param p1 Player 1
+	 * @param p2 Player 2
+	 * @param b The board of the game
+	 */
+	public MoveJournal(File dir, String n, Player p1, Player p2, Board b) {
+		this(dir, n, p1, p2, b, DEFAULT_SYNC_INTERVAL, DEFAULT_COMPACT_INTERVAL);
+	}
+	
+	/**
+	 * @param dir The directory of the log
+	 * @param n The name of the game
+	 * @param p1 Player 1
+	 * @param p2 Player 2
+	 * @param b The board of the game
+	 * @param sync Entries between syncs, or 0 to leave syncing to the system
+	 * @param compact Entries more than the coins on the board before the log is compacted, or 0 to never compact
+	 */
+	public MoveJournal(File dir, String n, Player p1, Player p2, Board b, int sync, int compact) {
+		file = new File(dir, "journal." + digest(n) + ".log");
+		name = n;
+		player1 = p1;
+		player2 = p2;
+		board = b;
+		syncInterval = sync;
+		compactInterval = compact;
+	}
+	
+	/**
+	 * @return True if there is a log for the game
+	 */
+	public boolean exists() {
+		return file.exists();
+	}
+	
+	/**
+	 * Rebuilds the board by replaying the log. The board must be empty.
+	 * Anything after the last valid entry is cut off the log.
+	 * 
+	 * @return The player to move
+	 * @throws IOException If the log cannot be read, or is for another game
+	 */
+	public Player recover() throws IOException {
+		byte[] data = new byte[(int) file.length()];
+		DataInputStream in = new DataInputStream(new FileInputStream(file));
+		try {
+			in.readFully(data);
+		}
+		finally {
+			in.close();
+		}
+		
+		ByteArrayInputStream bytes = new ByteArrayInputStream(data);
+		in = new DataInputStream(bytes);
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not a move journal");
+		}
+		int version = in.readUnsignedByte();
+		if (version != VERSION) {
+			throw new IOException("Unknown journal version " + version);
+		}
+		if (!name.equals(in.readUTF())) {
+			throw new IOException("The journal belongs to another game");
+		}
+		firstSlot = in.readUnsignedByte() & 1;
+		
+		int pos = data.length - bytes.available();
+		int[] slots = new int[SimpleBoard.ROWS * SimpleBoard.COLS];
+		int moves = 0;
+		entries = 0;
+		
+		for (; pos < data.length; pos++) {
+			int value = data[pos] & 0xff;
+			
+			if (value == UNDO && board.undo() != null) {
+				moves--;
+			}
+			else if ((value & ~0xf) == COIN && (value & 7) < SimpleBoard.COLS
+					&& board.place(getPlayer((value >> 3) & 1), value & 7) != null) {
+				slots[moves++] = (value >> 3) & 1;
+			}
+			else {
+				break;
+			}
+			entries++;
+		}
+		
+		if (pos < data.length) {
+			RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			try {
+				raf.setLength(pos);
+			}
+			finally {
+				raf.close();
+			}
+		}
+		
+		return getPlayer(moves > 0 ? 1 - slots[moves - 1] : firstSlot);
+	}
+	
+	/**
+	 * Starts logging the game from the current board, replacing any
+	 * earlier log of the game with a snapshot of the board.
+	 * 
+	 * @param current The player to move
+	 * @throws IOException If the log cannot be written
+	 */
+	public void start(Player current) throws IOException {
+		int moves = board.getMoveCount();
+		firstSlot = getSlot(current) ^ (moves & 1);
+		compact();
+	}
+	
+	/**
+	 * Logs a coin placed on the board.
+	 * 
+	 * @param player The player who placed the coin
+	 * @param col The column
+	 * @throws IOException If the log cannot be written
+	 */
+	public void placed(Player player, int col) throws IOException {
+		append(COIN | getSlot(player) << 3 | col);
+	}
+	
+	/**
+	 * Logs that the last coin was removed from the board.
+	 * 
+	 * @throws IOException If the log cannot be written
+	 */
+	public void undone() throws IOException {
+		append(UNDO);
+	}
+	
+	/**
+	 * Forces the logged entries to the disk.
+	 * 
+	 * @throws IOException If the log cannot be synced
+	 */
+	public void sync() throws IOException {
+		if (channel != null && unsynced > 0) {
+			channel.force(false);
+			unsynced = 0;
+		}
+	}
+	
+	/**
+	 * Replaces the log with a snapshot of the board.
+	 * 
+	 * @throws IOException If the log cannot be written
+	 */
+	public void compact() throws IOException {
+		List<Position> history = board.getHistory();
+		Cell[][] cells = board.getMatrix();
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeByte(VERSION);
+		out.writeUTF(name);
+		out.writeByte(firstSlot);
+		for (Position pos : history) {
+			out.writeByte(COIN | getSlot(cells[pos.getRow()][pos.getCol()].getPlayer()) << 3 | pos.getCol());
+		}
+		out.flush();
+		
+		close();
+		
+		// The old log stays until the snapshot is safely on the disk
+		File temp = new File(file.getPath() + ".tmp");
+		RandomAccessFile raf = new RandomAccessFile(temp, "rw");
+		try {
+			raf.setLength(0);
+			raf.write(bytes.toByteArray());
+			raf.getChannel().force(false);
+		}
+		finally {
+			raf.close();
+		}
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		
+		channel = new RandomAccessFile(file, "rw").getChannel();
+		channel.position(channel.size());
+		entries = history.size();
+	}
+	
+	/**
+	 * Syncs and closes the log. Logging more entries opens it again.
+	 * 
+	 * @throws IOException If the log cannot be synced
+	 */
+	public void close() throws IOException {
+		if (channel != null) {
+			sync();
+			channel.close();
+			channel = null;
+		}
+	}
+	
+	/**
+	 * Closes and deletes the log, when the game is over or saved.
+	 */
+	public void delete() {
+		try {
+			close();
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+		file.delete();
+	}
+	
+	/**
+	 * @return The number of entries in the log
+	 */
+	public int getEntries() {
+		return entries;
+	}
+	
+	/**
+	 * Writes one entry, and syncs or compacts the log when it is time to.
+	 */
+	private void append(int value) throws IOException {
+		if (channel == null) {
+			channel = new RandomAccessFile(file, "rw").getChannel();
+			channel.position(channel.size());
+		}
+		
+		entry.clear();
+		entry.put(0, (byte) value);
+		channel.write(entry);
+		entries++;
+		unsynced++;
+		
+		if (compactInterval > 0 && entries - board.getMoveCount() >= compactInterval) {
+			compact();
+		}
+		else if (syncInterval > 0 && unsynced >= syncInterval) {
+			sync();
+		}
+	}
+	
+	/**
+	 * @return The index of the player, 0 for player 1
+	 */
+	private int getSlot(Player player) {
+		return player == player2 ? 1 : 0;
+	}
+	
+	/**
+	 * @return The player with the given index
+	 */
+	private Player getPlayer(int slot) {
+		return slot == 0 ? player1 : player2;
+	}
+	
+	/**
+	 * @return A file name safe digest of a game name
+	 */
+	private static String digest(String name) {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-1").digest(name.getBytes(StandardCharsets.UTF_8));
+			StringBuilder hex = new StringBuilder();
+			for (int i = 0; i < 10; i++) {
+				hex.append(String.format("%02x", hash[i]));
+			}
+			return hex.toString();
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
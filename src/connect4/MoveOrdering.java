@@ -0,0 +1,41 @@
+package connect4;
+
+/**
+ * Decides the order in which a search tries the columns of a position.
+ *
+ * Searches with alpha-beta pruning skip the most work when the best
+ * column is tried first. An ordering sorts the legal columns before they
+ * are searched, and may learn from the columns that caused cutoffs.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public interface MoveOrdering {
+
+	/**
+	 * Sorts columns, the most promising first.
+	 * The board must be the same after the call.
+	 *
+	 * @param board The board
+	 * @param player The player to move
+	 * @param opponent The other player
+	 * @param columns The legal columns, from left to right
+	 * @param count The number of columns in the array
+	 */
+	void order(Board board, Player player, Player opponent, int[] columns, int count);
+
+	/**
+	 * Called when a column was good enough to cut off the search
+	 * of the rest of the columns of a position.
+	 *
+	 * @param board The board before the column was played
+	 * @param col The column
+	 * @param depth The remaining search depth of the position
+	 */
+	void cutoff(Board board, int col, int depth);
+
+	/**
+	 * Forgets what was learned from earlier cutoffs.
+	 */
+	void clear();
+
+}
@@ -1,159 +1,551 @@
 package connect4;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.PrintWriter;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.CRC32;
 
 /**
  * The class encapsulates the persistence functionality.
+ * 
+ * Games are saved in a binary format:
+ * 
+ *	 4 bytes  magic "C4SV"
+ *	 1 byte   format version
+ *	 UTF      name of the game
+ *	 1 byte   number of players, followed by their names as UTF
+ *	 1 byte   index of the player to move
+ *	 1 byte   index of the player who placed the first coin
+ *	 1 byte   number of coins
+ *	 n bytes  the coins in the order they were placed, four bits per coin,
+ *			  two coins per byte, lowest bits first. The low three bits
+ *			  are the column and the high bit the index of the player.
+ *	 4 bytes  CRC-32 of all bytes before it
+ * 
+ * UTF strings are written as by DataOutputStream. Players are matched by
+ * their index in the table, player 1 first, and the board is rebuilt by
+ * placing the coins again, so the move history survives a save. Every
+ * coin keeps its player, since a board loaded from the text format has
+ * its coins in row order, not in the order they were played.
+ * 
+ * Version 1 of the format had three bits per coin, only the column, and
+ * the players took turns from the player who placed the first coin. It
+ * is still loaded.
+ * 
+ * All games of a directory are kept in one GameStore file, which has an
+ * index of the games, so listing them does not read the games themselves.
+ * 
+ * Older versions saved each game in its own file, named after the hash
+ * code of the game name, in the binary format or in a text format. These
+ * files are still loaded, and are moved into the store the first time
+ * the saved games are listed in a directory without a store.
+ * 
+ * A game in progress may also have a MoveJournal with the moves made
+ * since it was saved. The journal is newer than the store, so loading
+ * replays it when there is one, and saving the game deletes it.
  */
 public class Persistence {
 	
+	/** Magic number at the start of a saved game */
+	public static final int MAGIC = 0x43345356;
+	/** Version of the binary format */
+	public static final int VERSION = 2;
+	
+	private static final String PREFIX = "board.";
+	private static final String BINARY_SUFFIX = ".bin";
+	private static final String TEXT_SUFFIX = ".txt";
+	
 	private Board board;
 	private Player player1;
 	private Player player2;
+	private File dir;
+	private GameStore store;
 	
 	public Persistence(Player p1, Player p2, Board b) {
+		this(p1, p2, b, new File("."));
+	}
+	
+	/**
+	 * @param p1 The player who starts
+	 * @param p2 The other player
+	 * @param b The board
+	 * @param d The directory of the saved games
+	 */
+	public Persistence(Player p1, Player p2, Board b, File d) {
 		player1 = p1;
 		player2 = p2;
 		board = b;
+		dir = d;
+		store = new GameStore(d);
 	}
 	
 	/**
-	 * Loads board and current player from the given file.
+	 * Loads board and current player from the store, or from the file of
+	 * the game if it was saved by an older version. The board must be empty.
 	 * 
-	 * @param file The board file
+	 * @param gameName The name of the game
 	 * @return The current player, or null if the load fails
 	 */
 	public Player load(String gameName) {
+		MoveJournal journal = getJournal(gameName);
+		if (journal.exists()) {
+			try {
+				return journal.recover();
+			}
+			catch (Exception e) {
+				e.printStackTrace();
+				while (board.undo() != null) { }
+			}
+		}
+		
 		try {
-			File file = new File(getFileName(gameName));
-			BufferedReader reader = new BufferedReader(new FileReader(file));
+			byte[] data = store.read(gameName);
+			if (data != null) {
+				return loadBinary(data);
+			}
+			
+			File file = getFile(gameName, BINARY_SUFFIX);
+			if (!file.exists() && getFile(gameName, TEXT_SUFFIX).exists()) {
+				return loadText(getFile(gameName, TEXT_SUFFIX));
+			}
+			return loadBinary(read(file));
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+	
+	/**
+	 * Rebuilds the board from a game in the binary format.
+	 * 
+	 * @param data The saved game
+	 * @return The current player
+	 * @throws IOException If the data is not a valid saved game
+	 */
+	private Player loadBinary(byte[] data) throws IOException {
+		if (data.length < 4) {
+			throw new IOException("Saved game is truncated");
+		}
+		
+		CRC32 crc = new CRC32();
+		crc.update(data, 0, data.length - 4);
+		
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not a saved game");
+		}
+		int version = in.readUnsignedByte();
+		if (version != 1 && version != VERSION) {
+			throw new IOException("Unknown save format version " + version);
+		}
+		
+		in.readUTF();
+		int playerCount = in.readUnsignedByte();
+		for (int i = 0; i < playerCount; i++) {
+			in.readUTF();
+		}
+		if (playerCount != 2) {
+			throw new IOException("A saved game must have two players");
+		}
+		
+		Player[] players = { player1, player2 };
+		Player current = players[in.readUnsignedByte() & 1];
+		Player next = players[in.readUnsignedByte() & 1];
+		int moves = in.readUnsignedByte();
+		
+		byte[] packed = new byte[version == 1 ? (moves * 3 + 7) / 8 : (moves + 1) / 2];
+		in.readFully(packed);
+		
+		if (in.readInt() != (int) crc.getValue()) {
+			throw new IOException("Saved game is corrupt");
+		}
+		
+		for (int i = 0; i < moves; i++) {
+			int col;
+			Player player;
+			if (version == 1) {
+				col = getColumn(packed, i);
+				player = next;
+				next = next == player1 ? player2 : player1;
+			} else {
+				int coin = getCoin(packed, i);
+				col = coin & 7;
+				player = players[coin >> 3];
+			}
 			
+			if (col >= SimpleBoard.COLS || board.place(player, col) == null) {
+				throw new IOException("Saved game has an illegal move");
+			}
+		}
+		
+		return current;
+	}
+	
+	/**
+	 * Rebuilds the board from a game in the old text format.
+	 * 
+	 * @param file The file
+	 * @return The current player
+	 * @throws IOException If the file cannot be read
+	 */
+	private Player loadText(File file) throws IOException {
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		
+		try {
 			// Skip first line (game name)
 			reader.readLine();
 			
 			// Name of current player
-			String next = reader.readLine();
+			String currentName = reader.readLine();
 			
-			next = reader.readLine();
+			String next = reader.readLine();
 			while (next != null) {
 				String parts[] = next.split(" ");
 				
-				Position pos = new Position(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+				// Coins are stored bottom row first, so placing them in the
+				// same order puts every coin back in its row
 				Player player = player1.getName().equals(parts[2]) ? player1 : player2;
-				
-				Cell cell = new Cell(player, pos);
-				board.getMatrix()[pos.getRow()][pos.getCol()] = cell;
+				board.place(player, Integer.parseInt(parts[1]));
 				
 				next = reader.readLine();
 			}
 			
+			return player1.getName().equals(currentName) ? player1 : player2;
+		}
+		finally {
 			reader.close();
+		}
+	}
+	
+	/**
+	 * Stores the current game state in the store, and removes the file
+	 * of the game if it was saved by an older version.
+	 * 
+	 * @param name The name of the game
+	 * @param current The player to move
+	 */
+	public void persist(String name, Player current) {
+		try {
+			store.write(name, toBinary(name, current), current == player2 ? 1 : 0);
 			
-			return player1.getName().equals(next) ? player1 : player2;
+			getJournal(name).delete();
+			getFile(name, BINARY_SUFFIX).delete();
+			getFile(name, TEXT_SUFFIX).delete();
 		}
 		catch (Exception e) {
 			e.printStackTrace();
 		}
-		return null;
 	}
 	
-	
 	/**
-	 * Stores the current game state to a file.
+	 * Queues the current game state to be saved by a writer on another
+	 * thread, for a game that does not log its moves. Any journal of the
+	 * game is deleted once the game is saved.
 	 * 
-	 * The format of the file is like
+	 * @param name The name of the game
+	 * @param current The player to move
+	 * @param writer The writer
+	 * @return A future that completes when the game is saved
+	 */
+	public CompletableFuture<Void> persist(String name, Player current, SaveWriter writer) {
+		return persist(name, current, writer, null);
+	}
+	
+	/**
+	 * Queues the current game state to be saved by a writer on another
+	 * thread. The board is read before the call returns, so the game can
+	 * go on at once. The writer must write to the store of this directory.
 	 * 
-	 * TEST			- name of game
-	 * X			- current player
-	 * 0 0 X		- coin placed by X at 0,0
-	 * 0 1 O		- coin placed by O as 0,1
+	 * The journal of a game that goes on is kept, since moves logged after
+	 * the save are only found there. Without one, any journal of the game
+	 * is stale and is deleted. Files are only touched once the game is
+	 * saved, on the thread of the writer, never on the calling thread.
 	 * 
+	 * @param name The name of the game
+	 * @param current The player to move
+	 * @param writer The writer
+	 * @param journal The journal the game logs its moves to, or null
+	 * @return A future that completes when the game is saved and old files are deleted
 	 */
-	public void persist(String name, Player current) {
+	public CompletableFuture<Void> persist(final String name, Player current, SaveWriter writer, final MoveJournal journal) {
+		byte[] data;
 		try {
-			File file = new File(getFileName(name));
-			
-			// Make sure file exists
-			if (!file.exists()) {
-				file.createNewFile();
-			}
-			
-			// Create writer - false means NO APPEND
-			PrintWriter writer = new PrintWriter(new FileWriter(file, false));
-			
-			// Line 1: Name of the name
-			writer.println(name);
-			
-			// Line 2: Name of current player
-			writer.println(current.getName());
-			
-			// Line 3-?: Board data
-			for (int i = 0; i < SimpleBoard.ROWS; i++) {
-				for (int j = 0; j < SimpleBoard.COLS; j++) {
-					Cell cell = board.getMatrix()[i][j];
-					
-					if (cell != null) {
-						Position pos = cell.getPosition();
-						writer.println(pos.getRow() + " " + pos.getCol() +  " " + cell.getPlayer().getName());
-					}
+			data = toBinary(name, current);
+		}
+		catch (IOException e) {
+			CompletableFuture<Void> future = new CompletableFuture<Void>();
+			future.completeExceptionally(e);
+			return future;
+		}
+		
+		return writer.save(name, data, current == player2 ? 1 : 0, new Runnable() {
+			public void run() {
+				if (journal == null) {
+					getJournal(name).delete();
 				}
+				getFile(name, BINARY_SUFFIX).delete();
+				getFile(name, TEXT_SUFFIX).delete();
 			}
-			
-			writer.flush();
-			writer.close();
+		});
+	}
+	
+	/**
+	 * @param name The name of the game
+	 * @param current The player to move
+	 * @return The game in the binary format
+	 * @throws IOException Never, the data is written to memory
+	 */
+	private byte[] toBinary(String name, Player current) throws IOException {
+		List<Position> history = board.getHistory();
+		Cell[][] cells = board.getMatrix();
+		
+		byte[] packed = new byte[(history.size() + 1) / 2];
+		for (int i = 0; i < history.size(); i++) {
+			Position pos = history.get(i);
+			int slot = cells[pos.getRow()][pos.getCol()].getPlayer() == player2 ? 1 : 0;
+			setCoin(packed, i, slot << 3 | pos.getCol());
 		}
-		catch (Exception e) {
-			e.printStackTrace();
+		
+		Player first = current;
+		if (history.size() > 0) {
+			Position pos = history.get(0);
+			first = cells[pos.getRow()][pos.getCol()].getPlayer();
 		}
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + packed.length);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeByte(VERSION);
+		out.writeUTF(name);
+		out.writeByte(2);
+		out.writeUTF(player1.getName());
+		out.writeUTF(player2.getName());
+		out.writeByte(current == player2 ? 1 : 0);
+		out.writeByte(first == player2 ? 1 : 0);
+		out.writeByte(history.size());
+		out.write(packed);
+		
+		CRC32 crc = new CRC32();
+		crc.update(bytes.toByteArray());
+		out.writeInt((int) crc.getValue());
+		out.flush();
+		
+		return bytes.toByteArray();
 	}
 	
 	/**
-	 * Removes the file for the game with the given name
+	 * Removes the game with the given name
 	 * 
 	 * @param gameName Name of the game
 	 */
 	public void remove(String gameName) {
-		new File(getFileName(gameName)).delete();
+		try {
+			store.remove(gameName);
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+		
+		getJournal(gameName).delete();
+		getFile(gameName, BINARY_SUFFIX).delete();
+		getFile(gameName, TEXT_SUFFIX).delete();
+	}
+	
+	/**
+	 * @param gameName The name of the game
+	 * @return The journal of the game, which may not exist yet
+	 */
+	public MoveJournal getJournal(String gameName) {
+		return new MoveJournal(dir, gameName, player1, player2, board);
 	}
 	
 	/**
-	 * @return Names of saved games
+	 * Lists the games from the index of the store. If the directory has
+	 * no store yet, the games saved by older versions are moved into it.
+	 * 
+	 * @return Names of saved games, oldest first
 	 */
 	public List<String> getSavedGames() {
 		List<String> games = new ArrayList<String>();
 		
 		try {
-			File dir = new File(".");
-			String[] children = dir.list();
+			if (!store.exists()) {
+				migrate();
+			}
+			
+			for (SavedGame game : store.list()) {
+				games.add(game.getName());
+			}
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+		
+		return games;
+	}
+	
+	/**
+	 * Moves the games saved by older versions, one file per game, into
+	 * the store. A file is deleted only after its game has been read back
+	 * from the store with the same coins. Files that cannot be read or
+	 * checked are left alone.
+	 * 
+	 * @throws IOException If the store cannot be written
+	 */
+	private void migrate() throws IOException {
+		String[] children = dir.list();
+		if (children == null) {
+			return;
+		}
+		
+		List<String> names = new ArrayList<String>();
+		List<byte[]> records = new ArrayList<byte[]>();
+		List<File> files = new ArrayList<File>();
+		List<Board> boards = new ArrayList<Board>();
+		int[] playersToMove = new int[children.length];
+		
+		for (String filename : children) {
+			if (!filename.startsWith(PREFIX)) {
+				continue;
+			}
 			
-			for (String filename : children) {
-				if (filename.startsWith("board.")) {
-					/** 
-					 * Opens a reader and reads the first line, which should be the name of the game
-					 */
-					BufferedReader reader = new BufferedReader(new FileReader(new File(filename)));
-					games.add(reader.readLine());
-					reader.close();
+			try {
+				File file = new File(dir, filename);
+				Persistence old = new Persistence(player1, player2, new SimpleBoard(), dir);
+				String name;
+				Player current;
+				
+				if (filename.endsWith(BINARY_SUFFIX)) {
+					// The name follows the magic number and the version
+					byte[] data = read(file);
+					current = old.loadBinary(data);
+					name = new DataInputStream(new ByteArrayInputStream(data, 5, data.length - 5)).readUTF();
+				}
+				else if (filename.endsWith(TEXT_SUFFIX)) {
+					// The first line is the name of the game
+					BufferedReader reader = new BufferedReader(new FileReader(file));
+					try {
+						name = reader.readLine();
+					}
+					finally {
+						reader.close();
+					}
+					current = old.loadText(file);
+				}
+				else {
+					continue;
 				}
 				
+				playersToMove[names.size()] = current == player2 ? 1 : 0;
+				names.add(name);
+				records.add(old.toBinary(name, current));
+				files.add(file);
+				boards.add(old.board);
+			}
+			catch (Exception e) {
+				e.printStackTrace();
 			}
 		}
-		catch (Exception e) { }
 		
-		return games;
+		store.writeAll(names, records, playersToMove);
+		
+		for (int i = 0; i < files.size(); i++) {
+			try {
+				Board migrated = new SimpleBoard();
+				new Persistence(player1, player2, migrated, dir).loadBinary(store.read(names.get(i)));
+				
+				if (hasSameCoins(boards.get(i), migrated)) {
+					files.get(i).delete();
+				} else {
+					System.err.println("Kept " + files.get(i) + ", the game was not moved into the store correctly");
+				}
+			}
+			catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+	}
+	
+	/**
+	 * @return True if every cell of the two boards has a coin of the same player, or none
+	 */
+	private static boolean hasSameCoins(Board a, Board b) {
+		for (int row = 0; row < SimpleBoard.ROWS; row++) {
+			for (int col = 0; col < SimpleBoard.COLS; col++) {
+				Cell cellA = a.getMatrix()[row][col];
+				Cell cellB = b.getMatrix()[row][col];
+				
+				if ((cellA == null) != (cellB == null) || (cellA != null && cellA.getPlayer() != cellB.getPlayer())) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Reads a whole file with one read.
+	 * 
+	 * @param file The file
+	 * @return The contents
+	 * @throws IOException If the file cannot be read
+	 */
+	private static byte[] read(File file) throws IOException {
+		byte[] data = new byte[(int) file.length()];
+		DataInputStream in = new DataInputStream(new FileInputStream(file));
+		try {
+			in.readFully(data);
+		}
+		finally {
+			in.close();
+		}
+		return data;
+	}
+	
+	/**
+	 * @return The column of the i-th coin in a packed list of version 1
+	 */
+	private static int getColumn(byte[] packed, int i) {
+		int bit = i * 3;
+		int value = (packed[bit >> 3] & 0xff) >> (bit & 7);
+		
+		// The three bits may continue in the next byte
+		if ((bit & 7) > 5) {
+			value |= (packed[(bit >> 3) + 1] & 0xff) << (8 - (bit & 7));
+		}
+		return value & 7;
+	}
+	
+	/**
+	 * @return The i-th coin in a packed list, the player index and the column
+	 */
+	private static int getCoin(byte[] packed, int i) {
+		return (packed[i >> 1] >> ((i & 1) * 4)) & 0xf;
+	}
+	
+	/**
+	 * Stores the i-th coin in a packed list.
+	 */
+	private static void setCoin(byte[] packed, int i, int coin) {
+		packed[i >> 1] |= (byte) (coin << ((i & 1) * 4));
 	}
 	
 	/**
 	 * @param gameName The name of the game
-	 * @return The name of the file with data about the game with the given name
+	 * @param suffix The suffix of the format
+	 * @return The file with data about the game with the given name
 	 */
-	private String getFileName(String gameName) {
-		return "board." + gameName.hashCode() + ".txt";
+	private File getFile(String gameName, String suffix) {
+		return new File(dir, PREFIX + gameName.hashCode() + suffix);
 	}
 }
@@ -3,14 +3,29 @@ package connect4;
 /**
  * A position on the board.
  * 
+ * Positions are immutable. There is one shared instance for every cell
+ * of the board, see valueOf(), so the boards can hand out positions
+ * without creating new objects.
+ * 
  * @author Daniel, Pierre, Mazen og Jacob
  */
 public class Position {
 	
+	/** The shared positions of the board cells */
+	private static final Position[][] POSITIONS = new Position[SimpleBoard.ROWS][SimpleBoard.COLS];
+	
+	static {
+		for (int i = 0; i < SimpleBoard.ROWS; i++) {
+			for (int j = 0; j < SimpleBoard.COLS; j++) {
+				POSITIONS[i][j] = new Position(i, j);
+			}
+		}
+	}
+	
 	/** The row index */
-	private int row;
+	private final int row;
 	/** The column index */
-	private int col;
+	private final int col;
 	
 	/**
 	 * Constructor
@@ -23,6 +38,18 @@ public class Position {
 		col = c;
 	}
 	
+	/**
+	 * @param r Row index
+	 * @param c Column index
+	 * @return The shared position of a board cell, or a new position outside the board
+	 */
+	public static Position valueOf(int r, int c) {
+		if (r >= 0 && r < SimpleBoard.ROWS && c >= 0 && c < SimpleBoard.COLS) {
+			return POSITIONS[r][c];
+		}
+		return new Position(r, c);
+	}
+	
 	/**
 	 * @return Row index
 	 */
@@ -42,6 +69,17 @@ public class Position {
 	 */
 	@Override
 	public boolean equals(Object obj) {
+		if (!(obj instanceof Position)) {
+			return false;
+		}
 		return ( ((Position) obj).row == row && ((Position) obj).col == col );
 	}
+	
+	/**
+	 * @return Hash code that is equal for equal positions, and different for all board cells
+	 */
+	@Override
+	public int hashCode() {
+		return row * 31 + col;
+	}
 }
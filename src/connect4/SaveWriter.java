@@ -0,0 +1,441 @@
+package connect4;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes saved games to a GameStore on a background thread.
+ * 
+ * Saves are queued and the caller gets a future that completes when the
+ * game is on the disk. The queue holds at most a fixed number of games,
+ * and saving a game when it is full blocks until the writer catches up.
+ * A game saved again while it is still queued is only written once, with
+ * its latest state, and both futures complete together. A save may bring
+ * a task that the writer runs once the game is written, before its future
+ * completes, to clean up files without holding up the caller. The writer takes
+ * all queued games at once, up to a batch size, and writes them with one
+ * write and one index update, so a batch costs the syncs of one save.
+ * 
+ * The writer counts the queue depth and the time from a save being queued
+ * until it is written, so a caller can tell when saves are backing up.
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class SaveWriter {
+	
+	/** Games in the queue before saving blocks */
+	public static final int DEFAULT_CAPACITY = 1024;
+	/** Games written in one batch */
+	public static final int DEFAULT_BATCH_SIZE = 256;
+	
+	private final GameStore store;
+	private final int capacity;
+	private final int batchSize;
+	private final long lingerNanos;
+	
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+	private final Condition notFull = lock.newCondition();
+	
+	/** Queued games by name, oldest first */
+	private final Map<String, Request> queue = new LinkedHashMap<String, Request>();
+	private boolean closed;
+	private final Thread thread;
+	
+	private long saves;
+	private long coalesced;
+	private long writes;
+	private long batches;
+	private long failures;
+	private int maxQueueDepth;
+	private long totalLatency;
+	private long maxLatency;
+	
+	/**
+	 * A queued save or remove of one game.
+	 */
+	private static class Request {
+		byte[] record;
+		int playerToMove;
+		long queued;
+		List<Runnable> cleanups = new ArrayList<Runnable>();
+		CompletableFuture<Void> future = new CompletableFuture<Void>();
+	}
+	
+	/**
+	 * @param s The store to write to
+	 */
+	public SaveWriter(GameStore s) {
+		this(s, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, 0);
+	}
+	
+	/**
+	 * @param s The store to write to
+	 * @param c Games in the queue before saving blocks
+	 * @param b Games written in one batch
+	 * @param linger Milliseconds to wait for more saves before a batch is written
+	 */
+	public SaveWriter(GameStore s, int c, int b, long linger) {
+		store = s;
+		capacity = c;
+		batchSize = b;
+		lingerNanos = TimeUnit.MILLISECONDS.toNanos(linger);
+		
+		thread = new Thread(new Runnable() {
+			public void run() {
+				writeLoop();
+			}
+		}, "save-writer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	/**
+	 * Queues a game to be saved, and blocks while the queue is full.
+	 * 
+	 * @param name The name of the game
+	 * @param record The game in the binary format of Persistence
+	 * @param playerToMove Index of the player to move
+	 * @return A future that completes when the game is written
+	 */
+	public CompletableFuture<Void> save(String name, byte[] record, int playerToMove) {
+		return submit(name, record, playerToMove, null);
+	}
+	
+	/**
+	 * Queues a game to be saved, and blocks while the queue is full.
+	 * 
+	 * @param name The name of the game
+	 * @param record The game in the binary format of Persistence
+	 * @param playerToMove Index of the player to move
+	 * @param cleanup Run on the writer thread once the game is written
+	 * @return A future that completes when the game is written and cleaned up
+	 */
+	public CompletableFuture<Void> save(String name, byte[] record, int playerToMove, Runnable cleanup) {
+		return submit(name, record, playerToMove, cleanup);
+	}
+	
+	/**
+	 * Queues a game to be removed, replacing any queued save of it.
+	 * 
+	 * @param name The name of the game
+	 * @return A future that completes when the game is removed
+	 */
+	public CompletableFuture<Void> remove(String name) {
+		return submit(name, null, 0, null);
+	}
+	
+	/**
+	 * @return A future that completes when every game queued before the call is written
+	 */
+	public CompletableFuture<Void> flush() {
+		lock.lock();
+		try {
+			List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>();
+			for (Request request : queue.values()) {
+				futures.add(request.future);
+			}
+			return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Writes the queued games and stops the writer thread.
+	 * Saves after this fail at once.
+	 */
+	public void close() {
+		lock.lock();
+		try {
+			closed = true;
+			notEmpty.signalAll();
+			notFull.signalAll();
+		}
+		finally {
+			lock.unlock();
+		}
+		
+		try {
+			thread.join();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	private CompletableFuture<Void> submit(String name, byte[] record, int playerToMove, Runnable cleanup) {
+		lock.lock();
+		try {
+			while (!closed && queue.size() >= capacity && !queue.containsKey(name)) {
+				notFull.awaitUninterruptibly();
+			}
+			if (closed) {
+				CompletableFuture<Void> future = new CompletableFuture<Void>();
+				future.completeExceptionally(new IllegalStateException("The writer is closed"));
+				return future;
+			}
+			
+			saves++;
+			Request request = queue.get(name);
+			if (request != null) {
+				// Only the latest state is written, and the latency counts from the first save
+				coalesced++;
+			} else {
+				request = new Request();
+				request.queued = System.nanoTime();
+				queue.put(name, request);
+				maxQueueDepth = Math.max(maxQueueDepth, queue.size());
+				notEmpty.signal();
+			}
+			request.record = record;
+			request.playerToMove = playerToMove;
+			if (cleanup != null) {
+				request.cleanups.add(cleanup);
+			}
+			return request.future;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Takes batches off the queue and writes them, until the writer is
+	 * closed and the queue is empty.
+	 */
+	private void writeLoop() {
+		List<String> names = new ArrayList<String>();
+		List<Request> requests = new ArrayList<Request>();
+		
+		while (true) {
+			lock.lock();
+			try {
+				while (queue.isEmpty() && !closed) {
+					notEmpty.awaitUninterruptibly();
+				}
+				if (queue.isEmpty()) {
+					return;
+				}
+				
+				// Give more saves a chance to join the batch, unless it is full or saves are blocked
+				long linger = lingerNanos;
+				while (linger > 0 && queue.size() < Math.min(batchSize, capacity) && !closed) {
+					try {
+						linger = notEmpty.awaitNanos(linger);
+					}
+					catch (InterruptedException e) {
+						linger = 0;
+					}
+				}
+				
+				Iterator<Map.Entry<String, Request>> it = queue.entrySet().iterator();
+				while (it.hasNext() && names.size() < batchSize) {
+					Map.Entry<String, Request> entry = it.next();
+					names.add(entry.getKey());
+					requests.add(entry.getValue());
+					it.remove();
+				}
+				notFull.signalAll();
+			}
+			finally {
+				lock.unlock();
+			}
+			
+			write(names, requests);
+			names.clear();
+			requests.clear();
+		}
+	}
+	
+	/**
+	 * Writes one batch and completes its futures.
+	 */
+	private void write(List<String> names, List<Request> requests) {
+		List<byte[]> records = new ArrayList<byte[]>(requests.size());
+		int[] playersToMove = new int[requests.size()];
+		for (int i = 0; i < requests.size(); i++) {
+			records.add(requests.get(i).record);
+			playersToMove[i] = requests.get(i).playerToMove;
+		}
+		
+		IOException error = null;
+		try {
+			store.writeAll(names, records, playersToMove);
+		}
+		catch (IOException e) {
+			error = e;
+		}
+		
+		long now = System.nanoTime();
+		lock.lock();
+		try {
+			batches++;
+			if (error == null) {
+				writes += requests.size();
+			} else {
+				failures += requests.size();
+			}
+			for (Request request : requests) {
+				long latency = now - request.queued;
+				totalLatency += latency;
+				maxLatency = Math.max(maxLatency, latency);
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+		
+		for (Request request : requests) {
+			if (error == null) {
+				for (Runnable cleanup : request.cleanups) {
+					try {
+						cleanup.run();
+					}
+					catch (RuntimeException e) {
+						e.printStackTrace();
+					}
+				}
+				request.future.complete(null);
+			} else {
+				request.future.completeExceptionally(error);
+			}
+		}
+	}
+	
+	/**
+	 * @return The number of games waiting to be written
+	 */
+	public int getQueueDepth() {
+		lock.lock();
+		try {
+			return queue.size();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * @return The largest number of games that have waited at once
+	 */
+	public int getMaxQueueDepth() {
+		lock.lock();
+		try {
+			return maxQueueDepth;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * @return The number of saves and removes queued
+	 */
+	public long getSaves() {
+		lock.lock();
+		try {
+			return saves;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * @return The number of saves that replaced a queued save of the same game
+	 */
+	public long getCoalesced() {
+		lock.lock();
+		try {
+			return coalesced;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * @return The number of games written
+	 */
+	public long getWrites() {
+		lock.lock();
+		try {
+			return writes;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * @return The number of batches written
+	 */
+	public long getBatches() {
+		lock.lock();
+		try {
+			return batches;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * @return The number of games that failed to be written
+	 */
+	public long getFailures() {
+		lock.lock();
+		try {
+			return failures;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * @return Average nanoseconds from a game being queued until it was written
+	 */
+	public long getAverageLatency() {
+		lock.lock();
+		try {
+			long done = writes + failures;
+			return done > 0 ? totalLatency / done : 0;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * @return Longest time in nanoseconds from a game being queued until it was written
+	 */
+	public long getMaxLatency() {
+		lock.lock();
+		try {
+			return maxLatency;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * @return The counters on one line
+	 */
+	public String toString() {
+		return String.format("queue %d (max %d), %d saves, %d coalesced, %d written in %d batches, %d failed, latency avg %.2f ms max %.2f ms",
+				getQueueDepth(), getMaxQueueDepth(), getSaves(), getCoalesced(), getWrites(), getBatches(), getFailures(),
+				getAverageLatency() / 1e6, getMaxLatency() / 1e6);
+	}
+}
@@ -0,0 +1,65 @@
+package connect4;
+
+/**
+ * An entry in the index of a game store.
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class SavedGame {
+	
+	private final String name;
+	private final long offset;
+	private final int length;
+	private final long timestamp;
+	private final int playerToMove;
+	
+	/**
+	 * @param n The name of the game
+	 * @param o Position of the record in the store file
+	 * @param l Length of the record in bytes
+	 * @param t Time of the save, in milliseconds since 1970
+	 * @param p Index of the player to move, 0 for player 1
+	 */
+	public SavedGame(String n, long o, int l, long t, int p) {
+		name = n;
+		offset = o;
+		length = l;
+		timestamp = t;
+		playerToMove = p;
+	}
+	
+	/**
+	 * @return The name of the game
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * @return Position of the record in the store file
+	 */
+	public long getOffset() {
+		return offset;
+	}
+	
+	/**
+	 * @return Length of the record in bytes
+	 */
+	public int getLength() {
+		return length;
+	}
+	
+	/**
+	 * @return Time of the save, in milliseconds since 1970
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+	
+	/**
+	 * @return Index of the player to move, 0 for player 1 and 1 for player 2
+	 */
+	public int getPlayerToMove() {
+		return playerToMove;
+	}
+}
@@ -0,0 +1,37 @@
+package connect4;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sound player that plays nothing, for runs without a screen or sound
+ * card and for tests. It counts the sounds it was asked to play.
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class SilentPlayer implements SoundPlayer {
+	
+	private final AtomicInteger plays = new AtomicInteger();
+	private volatile String last;
+	
+	public void play(String name) {
+		plays.incrementAndGet();
+		last = name;
+	}
+	
+	public void close() {
+	}
+	
+	/**
+	 * @return The number of sounds asked for
+	 */
+	public int getPlays() {
+		return plays.get();
+	}
+	
+	/**
+	 * @return The last sound asked for, or null
+	 */
+	public String getLast() {
+		return last;
+	}
+}
@@ -1,5 +1,7 @@
 package connect4;
 
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * My implementation of the board.
@@ -16,6 +18,19 @@ public class SimpleBoard implements Board {
 	private Position lastPosition;
 	private final Cell[][] matrix = new Cell[ROWS][COLS];
 	
+	/** The positions of the placed coins, oldest first */
+	private final Position[] history = new Position[ROWS * COLS];
+	private int moveCount;
+	
+	/** Number of coins in each column */
+	private final int[] heights = new int[COLS];
+	
+	/** The two players, in the order they placed their first coin */
+	private final Player[] players = new Player[2];
+	/** Cells of each player, created once when the player places the first coin */
+	private final Cell[][][] cells = new Cell[2][][];
+	private long key;
+	
 	/**
 	 * @return The matrix of cells
 	 */
@@ -26,15 +41,13 @@ public class SimpleBoard implements Board {
 	/**
 	 * Checks if we can place a coin in the given column.
 	 * 
-	 * The check is performed by looking at the topmost cell in the column.
-	 * If that cell is empty (null), there is room for at least one more coin
-	 * in the column.
+	 * The check is performed by looking at the number of coins in the column.
 	 * 
 	 * @param col The column index
 	 * @return True if we can place a coin in the given column 
 	 */
 	public boolean canPlace(int col) {
-		return matrix[ROWS - 1][col] == null;
+		return heights[col] < ROWS;
 	}
 
 	/**
@@ -46,17 +59,61 @@ public class SimpleBoard implements Board {
 	 */
 	public Position place(Player player, int col) {
 		if (canPlace(col)) {
-			lastPosition = getFirstEmptyCell(col);
-			matrix[lastPosition.getRow()][lastPosition.getCol()] = new Cell(player, lastPosition);
+			int slot = getSlot(player);
+			int row = heights[col]++;
+			
+			lastPosition = Position.valueOf(row, col);
+			matrix[row][col] = cells[slot][row][col];
+			history[moveCount++] = lastPosition;
+			key ^= Zobrist.getKey(slot, row, col);
 			return lastPosition;
 		}
 		return null;
 	}
+	
+	/**
+	 * Removes the latest placed coin, and moves the last position
+	 * back to the coin placed before it.
+	 * 
+	 * @return The position of the removed coin, or null if the board is empty
+	 */
+	public Position undo() {
+		if (moveCount == 0) {
+			return null;
+		}
+		
+		Position pos = history[--moveCount];
+		history[moveCount] = null;
+		key ^= Zobrist.getKey(getSlot(matrix[pos.getRow()][pos.getCol()].getPlayer()), pos.getRow(), pos.getCol());
+		matrix[pos.getRow()][pos.getCol()] = null;
+		heights[pos.getCol()]--;
+		lastPosition = moveCount > 0 ? history[moveCount - 1] : null;
+		
+		return pos;
+	}
+	
+	/**
+	 * @return The number of coins on the board
+	 */
+	public int getMoveCount() {
+		return moveCount;
+	}
+	
+	/**
+	 * @return A copy of the move history, oldest first
+	 */
+	public List<Position> getHistory() {
+		return Arrays.asList(Arrays.copyOf(history, moveCount));
+	}
 
 	/**
 	 * @return Player The winner, or null if nobody has won
 	 */
 	public Player check() {
+		if (lastPosition == null) {
+			return null;
+		}
+		
 		Cell cell = getCell(lastPosition, 0, 0);
 		
 		if (checkHorizontal(cell) || checkVertical(cell) || checkDiagonalBottomLeftTopRight(cell) || checkDiagonalBottomRightTopLeft(cell)) {
@@ -73,31 +130,61 @@ public class SimpleBoard implements Board {
 	}
 	
 	/**
-	 * @return True if the board is full
+	 * @return The Zobrist key of the position
 	 */
-	public boolean isFull() {
-		for (int i = 0; i < COLS; i++) {
-			if (canPlace(i)) {
-				return false;
+	public long getKey() {
+		return key;
+	}
+	
+	/**
+	 * @return The number of legal columns written to the array
+	 */
+	public int getMoves(int[] columns, MoveOrdering ordering, Player player, Player opponent) {
+		int count = 0;
+		for (int col = 0; col < COLS; col++) {
+			if (canPlace(col)) {
+				columns[count++] = col;
 			}
 		}
-		return true;
+		
+		if (ordering != null && count > 1) {
+			ordering.order(this, player, opponent, columns, count);
+		}
+		return count;
 	}
 	
 	/**
-	 * Iterate from bottom up in the given column, and return the 
-	 * position or null.
+	 * @return True if the board is full
+	 */
+	public boolean isFull() {
+		return moveCount == ROWS * COLS;
+	}
+	
+	/**
+	 * Finds the key index of a player. The first two players that place
+	 * a coin are given index 0 and 1.
 	 * 
-	 * @param col The column index
-	 * @return The position of the first empty cell in the given column
+	 * @param player The player
+	 * @return The index of the player
 	 */
-	private Position getFirstEmptyCell(int col) {
-		for (int i = 0; i < ROWS; i++) {
-			if (matrix[i][col] == null) {
-				return new Position(i, col);
-			}
+	private int getSlot(Player player) {
+		if (players[0] == player) {
+			return 0;
 		}
-		return null;
+		if (players[1] == player) {
+			return 1;
+		}
+		if (players[0] == null) {
+			players[0] = player;
+			cells[0] = Cell.createCells(player);
+			return 0;
+		}
+		if (players[1] == null) {
+			players[1] = player;
+			cells[1] = Cell.createCells(player);
+			return 1;
+		}
+		throw new IllegalArgumentException("Only two players can place coins on a board");
 	}
 	
 	/**
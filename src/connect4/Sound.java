@@ -1,33 +1,57 @@
 package connect4;
 
-import java.io.BufferedInputStream;
-import java.io.FileInputStream;
-
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.Clip;
+import java.awt.GraphicsEnvironment;
+import java.io.File;
 
 /**
  * Helper class for playing sound files
  * 
+ * The sounds are played by a ClipPlayer, which loads the files in the
+ * sound directory once and plays them on its own thread. Without a
+ * screen, or when the system property connect4.silent is true, a
+ * SilentPlayer is used instead.
+ * 
  * @author Andre, Mazen, Pierre & Jacob
  */
 public class Sound {
-	public static synchronized void play(final String name) {
-		 new Thread(new Runnable() { 
-		      public void run() {
-		        try {
-		        	Clip clip = AudioSystem.getClip();
-		          
-		        	BufferedInputStream myStream = new BufferedInputStream(new FileInputStream(name)); 
-		        	AudioInputStream audio = AudioSystem.getAudioInputStream(myStream);
-		          
-		        	clip.open(audio);
-		        	clip.start(); 
-		       } catch (Exception e) {
-		    	   e.printStackTrace();
-		       }
-		     }
-		}).start();
+	
+	/** Directory of the sound files */
+	public static final String DIRECTORY = "sound";
+	
+	private static SoundPlayer player;
+	
+	/**
+	 * Starts playing a sound and returns at once.
+	 * 
+	 * @param name The path of the sound file
+	 */
+	public static void play(String name) {
+		getPlayer().play(name);
+	}
+	
+	/**
+	 * @return The player of the sounds, created on first use
+	 */
+	public static synchronized SoundPlayer getPlayer() {
+		if (player == null) {
+			if (Boolean.getBoolean("connect4.silent") || GraphicsEnvironment.isHeadless()) {
+				player = new SilentPlayer();
+			} else {
+				player = new ClipPlayer(new File(DIRECTORY));
+			}
+		}
+		return player;
+	}
+	
+	/**
+	 * Replaces the player of the sounds, and closes the old one.
+	 * 
+	 * @param p The new player
+	 */
+	public static synchronized void setPlayer(SoundPlayer p) {
+		if (player != null) {
+			player.close();
+		}
+		player = p;
 	}
 }
@@ -0,0 +1,22 @@
+package connect4;
+
+/**
+ * Plays the sounds of the game.
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public interface SoundPlayer {
+	
+	/**
+	 * Starts playing a sound and returns at once.
+	 * 
+	 * @param name The path of the sound file
+	 */
+	void play(String name);
+	
+	/**
+	 * Stops the sounds and frees the audio lines.
+	 */
+	void close();
+	
+}
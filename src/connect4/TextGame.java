@@ -1,8 +1,11 @@
 package connect4;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Scanner;
 
+import connect4.ai.ComputerPlayer;
+
 /**
  * Implementation of game with text based interface
  * 
@@ -10,6 +13,9 @@ import java.util.Scanner;
  */
 public class TextGame implements Game {
 	
+	/** Name new games are saved under until the players name them */
+	public static final String AUTOSAVE = "autosave";
+	
 	private Board board;
 	private Player player1;
 	private Player player2;
@@ -18,11 +24,22 @@ public class TextGame implements Game {
 	
 	/** Name of the loaded game */
 	private String loadedGame;
+	
+	/** Log of the moves since the game was loaded or started, or null if logging failed */
+	private MoveJournal journal;
 
 	public TextGame() {
+		this(new Player("X"), new Player("O"));
+	}
+	
+	/**
+	 * @param p1 The player who starts
+	 * @param p2 The other player
+	 */
+	public TextGame(Player p1, Player p2) {
 		board = new SimpleBoard();
-		player1 = new Player("X");
-		player2 = new Player("O");
+		player1 = p1;
+		player2 = p2;
 		persistence = new Persistence(player1, player2, board);
 		loadedGame = null;
 	}
@@ -75,13 +92,37 @@ public class TextGame implements Game {
 			}
 			
 			String gameName = savedGames.get(gameIndex);
-			persistence.load(gameName);
+			current = persistence.load(gameName);
+			
+			if (current != null) {
+				loadedGame = gameName;
+			} else {
+				System.out.println("The game could not be loaded, starting a new game.");
+				while (board.undo() != null) { }
+				current = player1;
+			}
 		
 		} 
 		else {
 			current = player1;
 		}		
 		
+		/**
+		 * Log every move, so the game can be loaded again after a crash
+		 */
+		String gameName = loadedGame != null ? loadedGame : AUTOSAVE;
+		if (loadedGame == null) {
+			persistence.persist(AUTOSAVE, current);
+		}
+		
+		try {
+			journal = persistence.getJournal(gameName);
+			journal.start(current);
+		} catch (IOException e) {
+			System.out.println("Moves will not be saved automatically: " + e.getMessage());
+			journal = null;
+		}
+		
 		/**
 		 * Continue until a winner is found, or the board is full (draw)
 		 */
@@ -91,6 +132,18 @@ public class TextGame implements Game {
 			System.out.println("Is it now " + current.getName());
 			
 			int colIndex = -1;
+			
+			/**
+			 * Let the computer choose, and tell how much work it did
+			 */
+			if (current instanceof ComputerPlayer) {
+				ComputerPlayer computer = (ComputerPlayer) current;
+				colIndex = computer.chooseColumn(board, current == player1 ? player2 : player1);
+				
+				System.out.println(computer.getName() + " places a coin in column " + (colIndex + 1));
+				System.out.println(computer.getReport());
+			}
+			
 			while (colIndex == -1) {
 				System.out.println("Enter column number (1-7) (SAVE or QUIT): ");
 				String colString = input.nextLine();
@@ -100,6 +153,7 @@ public class TextGame implements Game {
 					 * user enter "SAVE"
 					 */
 					if ("SAVE".equalsIgnoreCase(colString)) {
+						closeJournal();
 						
 						if (loadedGame != null) {
 							persistence.persist(loadedGame, current);
@@ -107,12 +161,18 @@ public class TextGame implements Game {
 							System.out.println("Enter name of the game: ");
 							String name = input.nextLine();
 							persistence.persist(name, current);
+							
+							if (!AUTOSAVE.equals(name)) {
+								persistence.remove(AUTOSAVE);
+							}
 						}
 						
 						System.out.println("Board saved, goodbye!");
 						System.exit(0);
 					}
 					else if ("QUIT".equalsIgnoreCase(colString)) {
+						// The journal keeps the game, so it can be loaded again
+						closeJournal();
 						System.out.println("Goodbye!");
 						System.exit(0);
 					}
@@ -136,14 +196,22 @@ public class TextGame implements Game {
 			board.place(current, colIndex);
 			winner = board.check();
 			
+			if (journal != null) {
+				try {
+					journal.placed(current, colIndex);
+				} catch (IOException e) {
+					System.out.println("Moves will not be saved automatically: " + e.getMessage());
+					journal = null;
+				}
+			}
+			
 			current = current == player1 ? player2 : player1;
 		}
 		
 		printBoard();
 		
-		if (loadedGame != null) {
-			persistence.remove(loadedGame);
-		}
+		closeJournal();
+		persistence.remove(gameName);
 		
 		if (winner == null && board.isFull()) {
 			System.out.println("IT'S A DRAW!");
@@ -153,6 +221,19 @@ public class TextGame implements Game {
 		}
 	}
 	
+	/**
+	 * Syncs and closes the journal, if moves are logged
+	 */
+	private void closeJournal() {
+		if (journal != null) {
+			try {
+				journal.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+	
 	/**
 	 * Prints the board
 	 */
@@ -172,8 +253,24 @@ public class TextGame implements Game {
 		}
 	}
 
+	/**
+	 * Each argument selects a player, "human" (the default),
+	 * "computer:depth:megabytes:threads:millis" or "mcts:playouts:threads:millis"
+	 * where the numbers are optional. The first argument is X, who starts.
+	 */
 	public static void main(String[] args) {
-		Game game = new TextGame();
+		Game game = new TextGame(createPlayer(args, 0, "X"), createPlayer(args, 1, "O"));
 		game.play();
 	}
+	
+	/**
+	 * @param args The command line arguments
+	 * @param index Index of the argument for this player
+	 * @param name The player name
+	 * @return A computer player if the argument asks for one, otherwise a human player
+	 */
+	private static Player createPlayer(String[] args, int index, String name) {
+		Player player = args.length > index ? ComputerPlayer.fromArgument(args[index], name, 0) : null;
+		return player != null ? player : new Player(name);
+	}
 }
@@ -0,0 +1,49 @@
+package connect4;
+
+/**
+ * Zobrist keys for board positions.
+ *
+ * Every combination of player and cell has a random 64-bit number, and the
+ * key of a position is the XOR of the numbers of its coins. Placing or
+ * removing a coin therefore changes the key with a single XOR.
+ *
+ * The numbers are made by a fixed generator from a fixed seed, so keys are
+ * the same in every run and can be stored in files.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public final class Zobrist {
+
+	/** Seed of the random numbers. Changing it invalidates all stored keys. */
+	public static final long SEED = 0x436f6e6e65637434L;
+
+	/** Random numbers by player index and cell */
+	private static final long[][] KEYS = new long[2][SimpleBoard.ROWS * SimpleBoard.COLS];
+
+	static {
+		long state = SEED;
+		for (int i = 0; i < KEYS.length; i++) {
+			for (int j = 0; j < KEYS[i].length; j++) {
+				// SplitMix64
+				state += 0x9e3779b97f4a7c15L;
+				long z = state;
+				z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+				z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+				KEYS[i][j] = z ^ (z >>> 31);
+			}
+		}
+	}
+
+	private Zobrist() {
+	}
+
+	/**
+	 * @param player Index of the player, 0 for the player who placed the first coin
+	 * @param row A row index
+	 * @param col A column index
+	 * @return The number to XOR into the key for a coin in the given cell
+	 */
+	public static long getKey(int player, int row, int col) {
+		return KEYS[player][row * SimpleBoard.COLS + col];
+	}
+}
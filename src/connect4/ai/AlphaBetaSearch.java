@@ -0,0 +1,173 @@
+package connect4.ai;
+
+import connect4.BitBoard;
+import connect4.MoveOrdering;
+import connect4.Player;
+import connect4.SimpleBoard;
+
+/**
+ * Plain fixed-depth alpha-beta search that takes its columns from a
+ * move ordering, and counts how well the ordering works.
+ *
+ * There is no transposition table or iterative deepening, so the node
+ * count only depends on the ordering. Scores are the same as those of
+ * NegamaxEngine. The best orderings cause most cutoffs on the first
+ * column tried.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class AlphaBetaSearch {
+
+	private final int depth;
+	private final MoveOrdering ordering;
+
+	/** Column buffers, one per ply so the recursion does not allocate */
+	private final int[][] columns;
+
+	private BitBoard board;
+	private int score;
+	private long nodes;
+	private long cutoffs;
+	private long firstCutoffs;
+	private long time;
+
+	/**
+	 * @param depth The number of moves to search ahead
+	 * @param ordering The move ordering, or null for columns from left to right
+	 */
+	public AlphaBetaSearch(int depth, MoveOrdering ordering) {
+		if (depth < 1) {
+			throw new IllegalArgumentException("Depth must be at least 1");
+		}
+		this.depth = depth;
+		this.ordering = ordering;
+		columns = new int[depth + 1][SimpleBoard.COLS];
+	}
+
+	/**
+	 * Searches the board to the full depth. The ordering is cleared first,
+	 * so every search starts from the same state.
+	 *
+	 * @param b The board, which is restored before returning
+	 * @param player The player to move
+	 * @param opponent The other player
+	 * @return The best column, or -1 if the board is full
+	 */
+	public int search(BitBoard b, Player player, Player opponent) {
+		long start = System.nanoTime();
+
+		board = b;
+		nodes = 0;
+		cutoffs = 0;
+		firstCutoffs = 0;
+		if (ordering != null) {
+			ordering.clear();
+		}
+
+		int[] cols = columns[0];
+		int count = board.getMoves(cols, ordering, player, opponent);
+		int bestCol = -1;
+		int alpha = -Integer.MAX_VALUE;
+
+		for (int i = 0; i < count; i++) {
+			int s = searchMove(player, opponent, cols[i], depth, alpha, Integer.MAX_VALUE, 1);
+			if (s > alpha) {
+				alpha = s;
+				bestCol = cols[i];
+			}
+		}
+
+		score = alpha;
+		board = null;
+		time = System.nanoTime() - start;
+		return bestCol;
+	}
+
+	/**
+	 * @return Score of the move, seen from the player placing the coin
+	 */
+	private int searchMove(Player player, Player opponent, int col, int d, int alpha, int beta, int ply) {
+		board.place(player, col);
+		nodes++;
+
+		int s;
+		if (board.check() != null) {
+			s = NegamaxEngine.WIN_SCORE - ply;
+		} else if (board.isFull()) {
+			s = 0;
+		} else if (d == 1) {
+			s = NegamaxEngine.evaluate(board.getMask(player), board.getMask(opponent));
+		} else {
+			s = -alphaBeta(opponent, player, d - 1, -beta, -alpha, ply + 1);
+		}
+
+		board.undo();
+		return s;
+	}
+
+	/**
+	 * @return Score of the position, seen from the player to move
+	 */
+	private int alphaBeta(Player player, Player opponent, int d, int alpha, int beta, int ply) {
+		int[] cols = columns[ply];
+		int count = board.getMoves(cols, ordering, player, opponent);
+		int best = -Integer.MAX_VALUE;
+
+		for (int i = 0; i < count; i++) {
+			int s = searchMove(player, opponent, cols[i], d, alpha, beta, ply);
+
+			if (s > best) {
+				best = s;
+				if (best > alpha) {
+					alpha = best;
+				}
+				if (alpha >= beta) {
+					cutoffs++;
+					if (i == 0) {
+						firstCutoffs++;
+					}
+					if (ordering != null) {
+						ordering.cutoff(board, cols[i], d);
+					}
+					break;
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @return Score of the latest search, seen from the player who moved
+	 */
+	public int getScore() {
+		return score;
+	}
+
+	/**
+	 * @return Number of nodes searched by the latest search
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * @return Number of positions where the search was cut off
+	 */
+	public long getCutoffs() {
+		return cutoffs;
+	}
+
+	/**
+	 * @return Number of cutoffs caused by the first column tried
+	 */
+	public long getFirstCutoffs() {
+		return firstCutoffs;
+	}
+
+	/**
+	 * @return Duration of the latest search in nanoseconds
+	 */
+	public long getTime() {
+		return time;
+	}
+}
@@ -0,0 +1,100 @@
+package connect4.ai;
+
+import connect4.SimpleBoard;
+
+/**
+ * The scores of every column of a position, as far as they have been
+ * searched. Scores are seen from the player to move. A win in n moves
+ * scores WIN_SCORE - n, counted from the position, and a loss the
+ * negative of that.
+ *
+ * An analysis is immutable, so it can be handed from the analysis
+ * threads to the event dispatch thread without locking.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public final class Analysis {
+
+	/** Score of a win on the next move */
+	public static final int WIN_SCORE = NegamaxEngine.WIN_SCORE;
+
+	/** Scores beyond this are proven wins or losses */
+	public static final int WIN_THRESHOLD = WIN_SCORE - SimpleBoard.ROWS * SimpleBoard.COLS - 1;
+
+	private final int id;
+	private final int[] scores;
+	private final int[] depths;
+
+	/**
+	 * @param id The id of the analysis run
+	 * @param scores The score of every column, copied
+	 * @param depths The depth every column was searched to, 0 if not yet, copied
+	 */
+	public Analysis(int id, int[] scores, int[] depths) {
+		this.id = id;
+		this.scores = scores.clone();
+		this.depths = depths.clone();
+	}
+
+	/**
+	 * @return The id returned by Analyzer.start for the run that found this
+	 */
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * @param col A column
+	 * @return True if the column has a score
+	 */
+	public boolean hasScore(int col) {
+		return depths[col] > 0;
+	}
+
+	/**
+	 * @param col A column
+	 * @return The score of the column
+	 */
+	public int getScore(int col) {
+		return scores[col];
+	}
+
+	/**
+	 * @param col A column
+	 * @return The number of moves the column was searched ahead, 0 if not yet
+	 */
+	public int getDepth(int col) {
+		return depths[col];
+	}
+
+	/**
+	 * @param col A column
+	 * @return The column as short text, such as "+12", "win 3" or "loss 4"
+	 */
+	public String getText(int col) {
+		if (!hasScore(col)) {
+			return "";
+		}
+		int s = scores[col];
+		if (s > WIN_THRESHOLD) {
+			return "win " + (WIN_SCORE - s);
+		}
+		if (s < -WIN_THRESHOLD) {
+			return "loss " + (WIN_SCORE + s);
+		}
+		return s > 0 ? "+" + s : String.valueOf(s);
+	}
+
+	/**
+	 * @return The column with the highest score, or -1 if none is scored
+	 */
+	public int getBestColumn() {
+		int best = -1;
+		for (int col = 0; col < SimpleBoard.COLS; col++) {
+			if (hasScore(col) && (best == -1 || scores[col] > scores[best])) {
+				best = col;
+			}
+		}
+		return best;
+	}
+}
@@ -0,0 +1,19 @@
+package connect4.ai;
+
+/**
+ * Receives the results of a background analysis as they improve.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public interface AnalysisListener {
+
+	/**
+	 * Called on an analysis thread every time a column has been searched
+	 * one move deeper. It should return quickly, and not wait for the
+	 * event dispatch thread.
+	 *
+	 * @param analysis The scores so far
+	 */
+	void update(Analysis analysis);
+
+}
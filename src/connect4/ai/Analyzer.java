@@ -0,0 +1,235 @@
+package connect4.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import connect4.BitBoard;
+import connect4.Board;
+import connect4.Player;
+import connect4.SimpleBoard;
+
+/**
+ * Scores every column of a position in the background, deeper and deeper,
+ * for example while a human player thinks.
+ *
+ * A run searches all open columns one move deeper at a time. Columns are
+ * searched in parallel on a fixed number of threads, each with its own
+ * board and engine, and every finished column is reported to a listener
+ * at once. Columns that are proven wins or losses are not searched again.
+ *
+ * All runs share one transposition table, which is kept between runs. After
+ * a move, much of the next position was already searched as part of the
+ * last one, and the table gives those results back.
+ *
+ * Starting a new run or cancelling stops the running engines, and results
+ * of old runs are never reported. No method waits for a search.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class Analyzer {
+
+	/** Deepest search of a column */
+	public static final int DEFAULT_MAX_DEPTH = 16;
+
+	private final int maxDepth;
+	private final TranspositionTable table;
+	private final ExecutorService coordinator;
+	private final ExecutorService workers;
+
+	/** Id of the current run, changed to stop older runs */
+	private volatile int generation;
+
+	/** Engines searching right now, stopped when a run is cancelled */
+	private final List<NegamaxEngine> running = new CopyOnWriteArrayList<NegamaxEngine>();
+
+	/**
+	 * @param threads The number of search threads, which caps the CPU used
+	 * @param depth The deepest search of a column
+	 * @param megabytes Size of the shared transposition table
+	 */
+	public Analyzer(int threads, int depth, int megabytes) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("At least one thread is needed");
+		}
+
+		maxDepth = depth;
+		table = new TranspositionTable(megabytes);
+		coordinator = Executors.newSingleThreadExecutor(createFactory("analysis"));
+		workers = Executors.newFixedThreadPool(threads, createFactory("analysis-worker"));
+	}
+
+	/**
+	 * Stops the current run and starts analysing a position.
+	 *
+	 * @param board The board, which is copied, so it may change at once
+	 * @param player The player to move
+	 * @param opponent The other player
+	 * @param listener Receives the scores as they improve
+	 * @return The id of the run, which is given to every analysis it reports
+	 */
+	public int start(Board board, final Player player, final Player opponent, final AnalysisListener listener) {
+		final int id = cancel();
+		final BitBoard copy = new BitBoard(board);
+
+		coordinator.execute(new Runnable() {
+			public void run() {
+				analyse(id, copy, player, opponent, listener);
+			}
+		});
+		return id;
+	}
+
+	/**
+	 * Stops the current run. Returns at once, the engines stop soon after.
+	 *
+	 * @return The id the next run will have
+	 */
+	public int cancel() {
+		int id = ++generation;
+		for (NegamaxEngine engine : running) {
+			engine.stop();
+		}
+		return id;
+	}
+
+	/**
+	 * Stops the current run and the threads.
+	 */
+	public void shutdown() {
+		cancel();
+		coordinator.shutdownNow();
+		workers.shutdownNow();
+	}
+
+	/**
+	 * Searches the columns deeper and deeper until the run is cancelled,
+	 * every column is proven or the maximum depth is reached.
+	 */
+	private void analyse(final int id, final BitBoard board, final Player player, final Player opponent,
+			final AnalysisListener listener) {
+		if (id != generation) {
+			return;
+		}
+		table.newSearch();
+
+		final int[] scores = new int[SimpleBoard.COLS];
+		final int[] depths = new int[SimpleBoard.COLS];
+		int remaining = SimpleBoard.ROWS * SimpleBoard.COLS - board.getMoveCount();
+
+		for (int d = 1; d <= Math.min(maxDepth, remaining); d++) {
+			List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+			for (int c = 0; c < SimpleBoard.COLS; c++) {
+				if (!board.canPlace(c) || (depths[c] > 0 && isProven(scores[c]))) {
+					continue;
+				}
+
+				final int col = c;
+				final int depth = d;
+				tasks.add(new Callable<Void>() {
+					public Void call() {
+						int s = searchColumn(id, new BitBoard(board), player, opponent, col, depth);
+
+						// Reported one at a time, so a later analysis never arrives first
+						synchronized (scores) {
+							if (id == generation && s != Integer.MIN_VALUE) {
+								scores[col] = s;
+								depths[col] = depth;
+								listener.update(new Analysis(id, scores, depths));
+							}
+						}
+						return null;
+					}
+				});
+			}
+
+			if (tasks.isEmpty()) {
+				return;
+			}
+			try {
+				workers.invokeAll(tasks);
+			}
+			catch (InterruptedException e) {
+				return;
+			}
+			if (id != generation) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Scores one column: places the coin and lets an engine search the
+	 * position from the view of the opponent.
+	 *
+	 * @return The score of the column, or Integer.MIN_VALUE if the run was cancelled
+	 */
+	private int searchColumn(int id, BitBoard board, Player player, Player opponent, int col, int depth) {
+		board.place(player, col);
+
+		if (board.check() != null) {
+			return Analysis.WIN_SCORE - 1;
+		}
+		if (board.isFull()) {
+			return 0;
+		}
+		if (depth == 1) {
+			return NegamaxEngine.evaluate(board.getMask(player), board.getMask(opponent));
+		}
+
+		NegamaxEngine engine = new NegamaxEngine(depth - 1, Long.MAX_VALUE, table);
+		int request = engine.request();
+		running.add(engine);
+		try {
+			// A cancel from now on stops the engine, even before it starts searching
+			if (id != generation) {
+				return Integer.MIN_VALUE;
+			}
+			engine.searchRoot(board, opponent, player, request);
+		}
+		finally {
+			running.remove(engine);
+		}
+
+		// Only cancel stops the engine, and it changes the generation first
+		if (id != generation) {
+			return Integer.MIN_VALUE;
+		}
+
+		// A win or loss one move further from this position
+		int s = -engine.getScore();
+		if (s > Analysis.WIN_THRESHOLD) {
+			return s - 1;
+		}
+		if (s < -Analysis.WIN_THRESHOLD) {
+			return s + 1;
+		}
+		return s;
+	}
+
+	/**
+	 * @return True if the score is a proven win or loss
+	 */
+	private static boolean isProven(int score) {
+		return score > Analysis.WIN_THRESHOLD || score < -Analysis.WIN_THRESHOLD;
+	}
+
+	/**
+	 * @return A factory of daemon threads with the given name
+	 */
+	private static ThreadFactory createFactory(final String name) {
+		return new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, name);
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			}
+		};
+	}
+}
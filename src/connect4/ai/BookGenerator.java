@@ -0,0 +1,260 @@
+package connect4.ai;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import connect4.BitBoard;
+import connect4.Player;
+import connect4.SimpleBoard;
+
+/**
+ * Tool that writes an opening book.
+ *
+ * Every position with a number of coins in the given range is found once,
+ * mirror images counted as the same, and solved exactly by the Solver.
+ * Positions where the game is over are left out. The deepest positions are
+ * solved first, so their results in the transposition table help the
+ * earlier ones. Solving positions with few coins takes a long time, so the
+ * lowest number of coins can be raised.
+ *
+ * Positions are remembered as the columns played to reach them, three bits
+ * per coin, so the tool can handle millions of positions.
+ *
+ * Usage: BookGenerator minMoves maxMoves [file] [megabytes]
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class BookGenerator {
+
+	/** Highest number of coins that fit in a packed list of columns */
+	public static final int MAX_MOVES = 21;
+
+	private final int minMoves;
+	private final int maxMoves;
+	private final Player player1 = new Player("X");
+	private final Player player2 = new Player("O");
+	private final BitBoard board = new BitBoard();
+	private final Solver solver;
+
+	/** Canonical keys of all positions seen, open addressing with 0 as empty */
+	private long[] seen = new long[1 << 16];
+	private int seenCount;
+	private boolean seenEmpty;
+
+	/** Columns played to reach each book position, and their number of coins */
+	private long[] paths = new long[1 << 12];
+	private byte[] pathMoves = new byte[1 << 12];
+	private int pathCount;
+
+	/**
+	 * @param minMoves Lowest number of coins of a position in the book
+	 * @param maxMoves Highest number of coins of a position in the book
+	 * @param solver The solver of the positions
+	 */
+	public BookGenerator(int minMoves, int maxMoves, Solver solver) {
+		if (minMoves < 0 || maxMoves < minMoves || maxMoves > MAX_MOVES) {
+			throw new IllegalArgumentException("Book positions must have 0 to " + MAX_MOVES + " coins");
+		}
+		this.minMoves = minMoves;
+		this.maxMoves = maxMoves;
+		this.solver = solver;
+	}
+
+	/**
+	 * Finds and solves all positions, and writes the book.
+	 *
+	 * @param file The book file
+	 * @throws IOException If the file cannot be written
+	 */
+	public void generate(File file) throws IOException {
+		collect(player1, player2, 0L);
+		System.out.println(pathCount + " positions with " + minMoves + " to " + maxMoves + " coins");
+
+		long[] keys = new long[pathCount];
+		byte[] scores = new byte[pathCount];
+		int n = 0;
+
+		for (int moves = maxMoves; moves >= minMoves; moves--) {
+			long start = System.currentTimeMillis();
+
+			for (int i = 0; i < pathCount; i++) {
+				if (pathMoves[i] == moves) {
+					keys[n] = replay(paths[i], moves);
+					scores[n] = (byte) toBookScore(solver.solve(board));
+					n++;
+				}
+			}
+			System.out.println("Solved positions with " + moves + " coins in " + (System.currentTimeMillis() - start) + " ms");
+		}
+
+		write(file, keys, scores);
+	}
+
+	/**
+	 * Visits every position reachable from the board that has not been
+	 * seen before, and remembers the ones that go into the book.
+	 *
+	 * @param path The columns played so far
+	 */
+	private void collect(Player player, Player opponent, long path) {
+		int moves = board.getMoveCount();
+
+		if (!addSeen(OpeningBook.getCanonicalKey(board))) {
+			return;
+		}
+		if (moves >= minMoves) {
+			addPath(path, moves);
+		}
+		if (moves == maxMoves) {
+			return;
+		}
+
+		for (int col = 0; col < SimpleBoard.COLS; col++) {
+			if (board.canPlace(col)) {
+				board.place(player, col);
+				if (board.check() == null && !board.isFull()) {
+					collect(opponent, player, path | ((long) col << (3 * moves)));
+				}
+				board.undo();
+			}
+		}
+	}
+
+	/**
+	 * Sets up a position on the board.
+	 *
+	 * @param path The columns played to reach the position
+	 * @param moves The number of columns in the path
+	 * @return The canonical key of the position
+	 */
+	private long replay(long path, int moves) {
+		while (board.getMoveCount() > 0) {
+			board.undo();
+		}
+
+		Player player = player1;
+		for (int i = 0; i < moves; i++) {
+			board.place(player, (int) (path >>> (3 * i)) & 0x7);
+			player = player == player1 ? player2 : player1;
+		}
+
+		return OpeningBook.getCanonicalKey(board);
+	}
+
+	/**
+	 * @param solution The solution of a position
+	 * @return The score in the book format, see OpeningBook
+	 */
+	static int toBookScore(Solution solution) {
+		if (solution.isWin()) {
+			return solution.getDistance();
+		}
+		if (solution.isLoss()) {
+			return -solution.getDistance();
+		}
+		return 0;
+	}
+
+	/**
+	 * @param key A canonical key
+	 * @return True if the key was not seen before
+	 */
+	private boolean addSeen(long key) {
+		// The empty board has key 0, which marks free slots
+		if (key == 0) {
+			boolean added = !seenEmpty;
+			seenEmpty = true;
+			return added;
+		}
+
+		if (seenCount * 2 >= seen.length) {
+			long[] old = seen;
+			seen = new long[old.length * 2];
+			seenCount = 0;
+			for (long k : old) {
+				if (k != 0) {
+					addSeen(k);
+				}
+			}
+		}
+
+		int mask = seen.length - 1;
+		int i = (int) (key ^ (key >>> 32)) & mask;
+		while (seen[i] != 0) {
+			if (seen[i] == key) {
+				return false;
+			}
+			i = (i + 1) & mask;
+		}
+		seen[i] = key;
+		seenCount++;
+		return true;
+	}
+
+	/**
+	 * @param path The columns played to reach a book position
+	 * @param moves The number of columns in the path
+	 */
+	private void addPath(long path, int moves) {
+		if (pathCount == paths.length) {
+			paths = Arrays.copyOf(paths, pathCount * 2);
+			pathMoves = Arrays.copyOf(pathMoves, pathCount * 2);
+		}
+		paths[pathCount] = path;
+		pathMoves[pathCount] = (byte) moves;
+		pathCount++;
+	}
+
+	/**
+	 * Sorts the records by key and writes the book file.
+	 */
+	private void write(File file, long[] keys, byte[] scores) throws IOException {
+		// Sort the record numbers by key, so each score stays with its key
+		Integer[] order = new Integer[keys.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		final long[] k = keys;
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				return Long.compare(k[a], k[b]);
+			}
+		});
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		try {
+			out.writeInt(OpeningBook.MAGIC);
+			out.writeInt(OpeningBook.VERSION);
+			out.writeInt(minMoves);
+			out.writeInt(maxMoves);
+			out.writeInt(keys.length);
+
+			for (int i : order) {
+				out.writeLong(keys[i]);
+				out.writeByte(scores[i]);
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.out.println("Usage: BookGenerator minMoves maxMoves [file] [megabytes]");
+			return;
+		}
+
+		int minMoves = Integer.parseInt(args[0]);
+		int maxMoves = Integer.parseInt(args[1]);
+		File file = new File(args.length > 2 ? args[2] : OpeningBook.DEFAULT_FILE);
+		int megabytes = args.length > 3 ? Integer.parseInt(args[3]) : 256;
+
+		new BookGenerator(minMoves, maxMoves, new Solver(megabytes)).generate(file);
+		System.out.println("Wrote " + file);
+	}
+}
@@ -0,0 +1,53 @@
+package connect4.ai;
+
+import connect4.Board;
+import connect4.MoveOrdering;
+import connect4.Player;
+import connect4.SimpleBoard;
+
+/**
+ * Tries the center column first and the edge columns last. Coins near
+ * the center take part in more lines of four, so the center columns
+ * are usually the better moves.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class CenterFirstOrdering implements MoveOrdering {
+
+	/**
+	 * Sorts by distance from the center, left before right.
+	 */
+	@Override
+	public void order(Board board, Player player, Player opponent, int[] columns, int count) {
+		for (int i = 1; i < count; i++) {
+			int col = columns[i];
+			int rank = getRank(col);
+			int j = i - 1;
+
+			while (j >= 0 && getRank(columns[j]) > rank) {
+				columns[j + 1] = columns[j];
+				j--;
+			}
+			columns[j + 1] = col;
+		}
+	}
+
+	/**
+	 * The order does not depend on the search, so nothing is learned.
+	 */
+	@Override
+	public void cutoff(Board board, int col, int depth) {
+	}
+
+	@Override
+	public void clear() {
+	}
+
+	/**
+	 * @return A number that grows with the distance from the center
+	 */
+	private static int getRank(int col) {
+		int distance = col - SimpleBoard.COLS / 2;
+		return distance < 0 ? -2 * distance - 1 : 2 * distance;
+	}
+}
@@ -0,0 +1,173 @@
+package connect4.ai;
+
+import connect4.BitBoard;
+import connect4.Board;
+import connect4.Player;
+
+/**
+ * A player controlled by an engine.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class ComputerPlayer extends Player {
+
+	/** Search depth used when none is given */
+	public static final int DEFAULT_DEPTH = 12;
+	/** Transposition table size in MB used when none is given */
+	public static final int DEFAULT_TABLE_SIZE = 64;
+
+	private Engine engine;
+
+	/**
+	 * @param n The player name
+	 * @param e The engine that chooses the moves
+	 */
+	public ComputerPlayer(String n, Engine e) {
+		super(n);
+		engine = e;
+	}
+
+	/**
+	 * @return The engine
+	 */
+	public Engine getEngine() {
+		return engine;
+	}
+
+	/**
+	 * Lets the engine choose a column. The engine searches a copy,
+	 * so the given board is never changed.
+	 *
+	 * @param board The board
+	 * @param opponent The other player
+	 * @return The chosen column index
+	 */
+	public int chooseColumn(Board board, Player opponent) {
+		return chooseColumn(board, opponent, engine.request());
+	}
+
+	/**
+	 * Lets the engine choose a column, unless stop() was called after
+	 * the move was asked for.
+	 *
+	 * @param board The board
+	 * @param opponent The other player
+	 * @param request The value returned by request()
+	 * @return The chosen column index
+	 */
+	public int chooseColumn(Board board, Player opponent, int request) {
+		return engine.search(new BitBoard(board), this, opponent, request);
+	}
+
+	/**
+	 * Asks for a move that is chosen later, maybe on another thread.
+	 *
+	 * @return The request, to pass to chooseColumn()
+	 */
+	public int request() {
+		return engine.request();
+	}
+
+	/**
+	 * Stops the search of a move in progress, and of every move asked for
+	 * before the call. The search then returns the best column found so far.
+	 * May be called from any thread.
+	 */
+	public void stop() {
+		engine.stop();
+	}
+
+	/**
+	 * @return Nodes searched and search speed of the latest move
+	 */
+	public String getReport() {
+		if ((engine instanceof NegamaxEngine && ((NegamaxEngine) engine).isFromBook())
+				|| (engine instanceof ParallelEngine && ((ParallelEngine) engine).isFromBook())) {
+			return getName() + " played from the opening book";
+		}
+
+		long nodes = engine.getNodes();
+		long time = Math.max(engine.getTime(), 1);
+		long speed = (long) (nodes * 1e9 / time);
+
+		if (engine instanceof MctsEngine) {
+			MctsEngine mcts = (MctsEngine) engine;
+			return getName() + " ran " + nodes + " playouts in " + (time / 1000000) + " ms (" + speed + " playouts/s) on "
+					+ mcts.getThreads() + " threads, expects to win " + Math.round(mcts.getWinRate() * 100) + "%";
+		}
+
+		String report = getName() + " searched " + nodes + " nodes in " + (time / 1000000) + " ms (" + speed + " nodes/s)";
+
+		TranspositionTable table = null;
+		if (engine instanceof NegamaxEngine) {
+			table = ((NegamaxEngine) engine).getTable();
+			report += " to depth " + ((NegamaxEngine) engine).getCompletedDepth();
+		} else if (engine instanceof ParallelEngine) {
+			table = ((ParallelEngine) engine).getTable();
+			report += " to depth " + ((ParallelEngine) engine).getCompletedDepth() + " on "
+					+ ((ParallelEngine) engine).getThreads() + " threads";
+		}
+
+		if (table != null) {
+			report += "\n" + table;
+		}
+		return report;
+	}
+
+	/**
+	 * Creates a computer player from a command line argument of the form
+	 * "computer:depth:megabytes:threads:millis", where the numbers can be left
+	 * out from the end. Megabytes is the size of the transposition table, with
+	 * more than one thread the search runs in parallel, and millis is the time
+	 * allowed per move. The player uses the default opening book if there is one.
+	 *
+	 * An argument of the form "mcts:playouts:threads:millis" creates a player
+	 * that uses Monte Carlo tree search instead.
+	 *
+	 * @param arg The argument
+	 * @param name The player name
+	 * @param timeLimit Time allowed per move in milliseconds if the argument does not say, or 0 for no limit
+	 * @return The player, or null if the argument does not describe a computer player
+	 */
+	public static ComputerPlayer fromArgument(String arg, String name, long timeLimit) {
+		if (arg == null) {
+			return null;
+		}
+
+		String[] parts = arg.split(":");
+
+		if (parts[0].equalsIgnoreCase("mcts")) {
+			long playouts = parts.length > 1 ? Long.parseLong(parts[1]) : MctsEngine.DEFAULT_PLAYOUTS;
+			int threads = parts.length > 2 ? Integer.parseInt(parts[2]) : 1;
+			long millis = parts.length > 3 ? Long.parseLong(parts[3]) : timeLimit;
+
+			MctsEngine mcts = new MctsEngine(playouts, threads);
+			mcts.setTimeLimit(millis);
+			return new ComputerPlayer(name, mcts);
+		}
+		if (!parts[0].equalsIgnoreCase("computer")) {
+			return null;
+		}
+
+		int depth = parts.length > 1 ? Integer.parseInt(parts[1]) : DEFAULT_DEPTH;
+		int megabytes = parts.length > 2 ? Integer.parseInt(parts[2]) : DEFAULT_TABLE_SIZE;
+		int threads = parts.length > 3 ? Integer.parseInt(parts[3]) : 1;
+		long millis = parts.length > 4 ? Long.parseLong(parts[4]) : timeLimit;
+
+		TranspositionTable table = new TranspositionTable(megabytes);
+		Engine engine;
+
+		if (threads > 1) {
+			ParallelEngine parallel = new ParallelEngine(depth, threads, table);
+			parallel.setBook(OpeningBook.getDefault());
+			engine = parallel;
+		} else {
+			NegamaxEngine negamax = new NegamaxEngine(depth, Long.MAX_VALUE, table);
+			negamax.setBook(OpeningBook.getDefault());
+			engine = negamax;
+		}
+		engine.setTimeLimit(millis);
+
+		return new ComputerPlayer(name, engine);
+	}
+}
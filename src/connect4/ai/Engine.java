@@ -0,0 +1,66 @@
+package connect4.ai;
+
+import connect4.BitBoard;
+import connect4.Player;
+
+/**
+ * Engine interface.
+ * An engine searches a board and picks a column for the player to move.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public interface Engine {
+
+	/**
+	 * Finds the best column for the given player. The board may be changed
+	 * during the search, but is restored before the method returns.
+	 *
+	 * @param board The board to search
+	 * @param player The player to move
+	 * @param opponent The other player
+	 * @return The chosen column index
+	 */
+	int search(BitBoard board, Player player, Player opponent);
+
+	/**
+	 * Like search(board, player, opponent), but stopped by every stop()
+	 * after the request was made, even one that comes before the search
+	 * starts.
+	 *
+	 * @param board The board to search
+	 * @param player The player to move
+	 * @param opponent The other player
+	 * @param request The value returned by request()
+	 * @return The chosen column index
+	 */
+	int search(BitBoard board, Player player, Player opponent, int request);
+
+	/**
+	 * Asks for a search that is started later, maybe on another thread.
+	 * Earlier calls to stop() do not stop it.
+	 *
+	 * @return The request, to pass to search()
+	 */
+	int request();
+
+	/**
+	 * Stops a running search, which then returns the best column found so far,
+	 * and every search asked for before the call. May be called from any thread.
+	 */
+	void stop();
+
+	/**
+	 * @param millis Time allowed per search in milliseconds, or 0 for no limit
+	 */
+	void setTimeLimit(long millis);
+
+	/**
+	 * @return Number of nodes searched by the latest search
+	 */
+	long getNodes();
+
+	/**
+	 * @return Duration of the latest search in nanoseconds
+	 */
+	long getTime();
+}
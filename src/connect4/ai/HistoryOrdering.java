@@ -0,0 +1,116 @@
+package connect4.ai;
+
+import connect4.Board;
+import connect4.MoveOrdering;
+import connect4.Player;
+import connect4.SimpleBoard;
+
+/**
+ * Tries columns that caused cutoffs elsewhere in the search first.
+ *
+ * Killer columns are the latest two columns that caused a cutoff with
+ * the same number of coins on the board. They are tried first, since
+ * a good reply is often good in the sibling positions too. The other
+ * columns are sorted by their history score, which grows by the square
+ * of the remaining depth for every cutoff, separately for each player.
+ * Columns without a score keep the order of another move ordering.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class HistoryOrdering implements MoveOrdering {
+
+	/** Rank of the killer columns, above any history score */
+	private static final int KILLER_RANK = Integer.MAX_VALUE;
+
+	private static final int CELLS = SimpleBoard.ROWS * SimpleBoard.COLS;
+
+	private final MoveOrdering next;
+
+	/** Killer columns per number of coins on the board, or -1 */
+	private final int[][] killers = new int[CELLS][2];
+
+	/** History score per player, indexed by the number of coins modulo 2, and column */
+	private final int[][] history = new int[2][SimpleBoard.COLS];
+
+	private final int[] ranks = new int[SimpleBoard.COLS];
+
+	/**
+	 * @param next Ordering of columns with equal history scores, or null
+	 */
+	public HistoryOrdering(MoveOrdering next) {
+		this.next = next;
+		clear();
+	}
+
+	@Override
+	public void order(Board board, Player player, Player opponent, int[] columns, int count) {
+		if (next != null) {
+			next.order(board, player, opponent, columns, count);
+		}
+
+		int moves = board.getMoveCount();
+		int[] killer = killers[moves];
+		int[] scores = history[moves & 1];
+
+		for (int i = 0; i < count; i++) {
+			int col = columns[i];
+			ranks[i] = col == killer[0] || col == killer[1] ? KILLER_RANK : scores[col];
+		}
+
+		// Stable sort, highest rank first
+		for (int i = 1; i < count; i++) {
+			int col = columns[i];
+			int rank = ranks[i];
+			int j = i - 1;
+
+			while (j >= 0 && ranks[j] < rank) {
+				columns[j + 1] = columns[j];
+				ranks[j + 1] = ranks[j];
+				j--;
+			}
+			columns[j + 1] = col;
+			ranks[j + 1] = rank;
+		}
+	}
+
+	@Override
+	public void cutoff(Board board, int col, int depth) {
+		int moves = board.getMoveCount();
+		int[] killer = killers[moves];
+
+		if (killer[0] != col) {
+			killer[1] = killer[0];
+			killer[0] = col;
+		}
+
+		int[] scores = history[moves & 1];
+		scores[col] += depth * depth;
+
+		// Halve all scores before they overflow into the killer rank
+		if (scores[col] > KILLER_RANK / 2) {
+			for (int i = 0; i < scores.length; i++) {
+				scores[i] >>= 1;
+			}
+		}
+
+		if (next != null) {
+			next.cutoff(board, col, depth);
+		}
+	}
+
+	@Override
+	public void clear() {
+		for (int[] killer : killers) {
+			killer[0] = -1;
+			killer[1] = -1;
+		}
+		for (int[] scores : history) {
+			for (int i = 0; i < scores.length; i++) {
+				scores[i] = 0;
+			}
+		}
+		if (next != null) {
+			next.clear();
+		}
+	}
+}
@@ -0,0 +1,255 @@
+package connect4.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import connect4.BitBoard;
+import connect4.Player;
+import connect4.SimpleBoard;
+
+/**
+ * Monte Carlo tree search (UCT) on several threads, with root parallelism.
+ *
+ * Every thread grows its own tree from the same position, with its own
+ * random playouts, so the threads share nothing while they search. At the
+ * end the playouts through each column are added up over all trees, and
+ * the column with the most playouts is chosen.
+ *
+ * The strength grows with the playout budget, which is shared between the
+ * threads. The search also ends when the time limit runs out or stop() is
+ * called. With one thread and no time limit the search always picks the
+ * same column for the same position.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class MctsEngine implements Engine {
+
+	/** Playouts per move used when none is given */
+	public static final long DEFAULT_PLAYOUTS = 200000;
+
+	/** Largest number of nodes in the pool of one tree */
+	private static final int MAX_TREE_SIZE = 1 << 20;
+
+	/** Playouts between looks at the clock */
+	private static final int TIME_CHECK_INTERVAL = 256;
+
+	/** Seed of the playouts of the first tree */
+	private static final long SEED = 0x4d435453L;
+
+	private final long playoutBudget;
+	private final MctsTree[] trees;
+	private final ExecutorService helpers;
+
+	/** Counts the calls to stop() */
+	private volatile int stops;
+	/** The value of stops when the running search was asked for */
+	private int request;
+	private long timeLimit;
+	private long deadline;
+	private long playouts;
+	private long time;
+	private float winRate;
+
+	/**
+	 * @param playouts The number of playouts per move, over all threads
+	 * @param threads The number of search threads, including the calling thread
+	 */
+	public MctsEngine(long playouts, int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("At least one thread is needed");
+		}
+		if (playouts < 1) {
+			throw new IllegalArgumentException("At least one playout is needed");
+		}
+
+		playoutBudget = playouts;
+
+		// Every playout adds at most one set of children
+		long perTree = playouts / threads + 1;
+		int capacity = (int) Math.min(perTree * SimpleBoard.COLS + 1, MAX_TREE_SIZE);
+
+		trees = new MctsTree[threads];
+		for (int i = 0; i < threads; i++) {
+			trees[i] = new MctsTree(capacity);
+		}
+
+		helpers = threads > 1 ? Executors.newFixedThreadPool(threads - 1, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "mcts-helper");
+				thread.setDaemon(true);
+				return thread;
+			}
+		}) : null;
+	}
+
+	/**
+	 * @return The column with the most playouts
+	 */
+	@Override
+	public int search(BitBoard board, Player player, Player opponent) {
+		return search(board, player, opponent, request());
+	}
+
+	/**
+	 * @return The column with the most playouts, unless stop() was called after the request
+	 */
+	@Override
+	public int search(BitBoard board, Player player, Player opponent, int r) {
+		long start = System.nanoTime();
+
+		request = r;
+		deadline = timeLimit > 0 ? start + timeLimit * 1000000 : Long.MAX_VALUE;
+
+		for (int i = 0; i < trees.length; i++) {
+			trees[i].reset(board, player, SEED + i);
+		}
+
+		List<Future<Void>> results = new ArrayList<Future<Void>>();
+		for (int i = 1; i < trees.length; i++) {
+			final MctsTree tree = trees[i];
+			final long budget = playoutBudget / trees.length;
+
+			results.add(helpers.submit(new Callable<Void>() {
+				public Void call() {
+					run(tree, budget);
+					return null;
+				}
+			}));
+		}
+
+		// The first tree also takes the playouts that do not divide evenly
+		run(trees[0], playoutBudget - playoutBudget / trees.length * (trees.length - 1));
+
+		for (Future<Void> result : results) {
+			try {
+				result.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				e.printStackTrace();
+			}
+		}
+
+		int bestCol = -1;
+		long bestVisits = -1;
+		float bestWins = 0;
+
+		for (int col = 0; col < SimpleBoard.COLS; col++) {
+			if (!board.canPlace(col)) {
+				continue;
+			}
+
+			long visits = 0;
+			float wins = 0;
+			for (MctsTree tree : trees) {
+				visits += tree.getVisits(col);
+				wins += tree.getWins(col);
+			}
+
+			if (visits > bestVisits) {
+				bestVisits = visits;
+				bestWins = wins;
+				bestCol = col;
+			}
+		}
+
+		playouts = 0;
+		for (MctsTree tree : trees) {
+			playouts += tree.getPlayouts();
+		}
+		winRate = bestVisits > 0 ? bestWins / bestVisits : 0.5f;
+		time = System.nanoTime() - start;
+
+		return bestCol;
+	}
+
+	/**
+	 * Runs playouts on a tree until the budget or the time runs out,
+	 * or the search is stopped.
+	 */
+	private void run(MctsTree tree, long budget) {
+		for (long i = 0; i < budget; i++) {
+			if (i % TIME_CHECK_INTERVAL == 0 && (stops != request || System.nanoTime() > deadline)) {
+				return;
+			}
+			tree.playout();
+		}
+	}
+
+	/**
+	 * @return The request, to pass to search()
+	 */
+	@Override
+	public int request() {
+		return stops;
+	}
+
+	/**
+	 * Stops a running search, and every search asked for before the call.
+	 * May be called from any thread.
+	 */
+	@Override
+	public void stop() {
+		stops++;
+	}
+
+	/**
+	 * @param millis Time allowed per search in milliseconds, or 0 for no limit
+	 */
+	@Override
+	public void setTimeLimit(long millis) {
+		timeLimit = millis;
+	}
+
+	/**
+	 * Stops the helper threads. The engine cannot search afterwards.
+	 */
+	public void shutdown() {
+		if (helpers != null) {
+			helpers.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return Number of playouts in the latest search, over all threads
+	 */
+	@Override
+	public long getNodes() {
+		return playouts;
+	}
+
+	/**
+	 * @return Duration of the latest search in nanoseconds
+	 */
+	@Override
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * @return Share of the playouts through the chosen column won by the player who moved
+	 */
+	public float getWinRate() {
+		return winRate;
+	}
+
+	/**
+	 * @return The number of playouts per move
+	 */
+	public long getPlayoutBudget() {
+		return playoutBudget;
+	}
+
+	/**
+	 * @return The number of search threads
+	 */
+	public int getThreads() {
+		return trees.length;
+	}
+}
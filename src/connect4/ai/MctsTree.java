@@ -0,0 +1,227 @@
+package connect4.ai;
+
+import connect4.BitBoard;
+import connect4.Player;
+import connect4.SimpleBoard;
+
+/**
+ * A Monte Carlo search tree (UCT) searched by one thread.
+ *
+ * The nodes live in a pool of primitive arrays, indexed by node number,
+ * which is allocated once and reused by every search. The children of a
+ * node are created together and stored next to each other, so a node only
+ * needs the number of its first child and the number of children. Node 0
+ * is the root. When the pool is full the tree stops growing and the
+ * playouts continue from the leaves.
+ *
+ * The wins of a node are counted for the player who placed the coin that
+ * leads to it, a draw counting as half a win.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+final class MctsTree {
+
+	/** Weight of the exploration term of UCT */
+	static final double EXPLORATION = 1.4;
+
+	private static final int CELLS = SimpleBoard.ROWS * SimpleBoard.COLS;
+
+	/** Columns in the order children are created, center first */
+	private static final int[] ORDER = { 3, 2, 4, 1, 5, 0, 6 };
+
+	/** Terminal states of a node */
+	private static final byte OPEN = 0;
+	private static final byte WIN = 1;
+	private static final byte DRAW = 2;
+
+	private final int capacity;
+	private final int[] visits;
+	private final float[] wins;
+	private final int[] firstChild;
+	private final byte[] childCount;
+	private final byte[] columns;
+	private final byte[] terminal;
+	private int size;
+
+	private final RolloutBoard root = new RolloutBoard();
+	private final RolloutBoard board = new RolloutBoard();
+	private final long[] random = new long[1];
+
+	/** Nodes visited by the current playout, root first */
+	private final int[] path = new int[CELLS + 1];
+	private long playouts;
+
+	/**
+	 * @param capacity The number of nodes in the pool
+	 */
+	MctsTree(int capacity) {
+		this.capacity = capacity;
+		visits = new int[capacity];
+		wins = new float[capacity];
+		firstChild = new int[capacity];
+		childCount = new byte[capacity];
+		columns = new byte[capacity];
+		terminal = new byte[capacity];
+	}
+
+	/**
+	 * Empties the tree and sets up a new root position.
+	 *
+	 * @param b The board
+	 * @param player The player to move
+	 * @param seed Seed of the random playouts
+	 */
+	void reset(BitBoard b, Player player, long seed) {
+		root.set(b, player);
+		random[0] = seed != 0 ? seed : 1;
+		playouts = 0;
+
+		size = 1;
+		visits[0] = 0;
+		wins[0] = 0;
+		childCount[0] = 0;
+		terminal[0] = OPEN;
+	}
+
+	/**
+	 * Selects a leaf, grows the tree below it, plays a random game from
+	 * there and adds the result to the nodes on the way.
+	 */
+	void playout() {
+		board.set(root);
+
+		int node = 0;
+		int depth = 0;
+		path[depth++] = node;
+
+		// Result for the player who moved into the node
+		float result;
+
+		while (true) {
+			if (terminal[node] == WIN) {
+				result = 1;
+				break;
+			}
+			if (terminal[node] == DRAW) {
+				result = 0.5f;
+				break;
+			}
+			if (childCount[node] == 0 && ((node != 0 && visits[node] == 0) || !expand(node))) {
+				result = 1 - board.rollout(random);
+				break;
+			}
+
+			node = select(node);
+			board.play(columns[node]);
+			path[depth++] = node;
+		}
+
+		for (int i = depth - 1; i >= 0; i--) {
+			int n = path[i];
+			visits[n]++;
+			wins[n] += result;
+			result = 1 - result;
+		}
+		playouts++;
+	}
+
+	/**
+	 * Creates the children of a node, for the position on the board.
+	 *
+	 * @return False if the pool has no room for the children
+	 */
+	private boolean expand(int node) {
+		if (size + SimpleBoard.COLS > capacity) {
+			return false;
+		}
+
+		int first = size;
+		boolean last = board.getMoveCount() + 1 == CELLS;
+
+		for (int col : ORDER) {
+			if (board.canPlay(col)) {
+				columns[size] = (byte) col;
+				visits[size] = 0;
+				wins[size] = 0;
+				childCount[size] = 0;
+				terminal[size] = board.isWinningMove(col) ? WIN : last ? DRAW : OPEN;
+				size++;
+			}
+		}
+
+		firstChild[node] = first;
+		childCount[node] = (byte) (size - first);
+		return true;
+	}
+
+	/**
+	 * @return The child with the highest UCT value, or the first child not visited yet
+	 */
+	private int select(int node) {
+		int first = firstChild[node];
+		int last = first + childCount[node];
+		double log = Math.log(visits[node]);
+
+		int best = first;
+		double bestValue = -1;
+
+		for (int child = first; child < last; child++) {
+			int n = visits[child];
+			if (n == 0) {
+				return child;
+			}
+
+			double value = wins[child] / n + EXPLORATION * Math.sqrt(log / n);
+			if (value > bestValue) {
+				bestValue = value;
+				best = child;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @param col A column
+	 * @return Playouts through the root child of the column
+	 */
+	int getVisits(int col) {
+		int child = getChild(col);
+		return child >= 0 ? visits[child] : 0;
+	}
+
+	/**
+	 * @param col A column
+	 * @return Wins of the player to move at the root through the child of the column
+	 */
+	float getWins(int col) {
+		int child = getChild(col);
+		return child >= 0 ? wins[child] : 0;
+	}
+
+	/**
+	 * @return Number of playouts since the latest reset
+	 */
+	long getPlayouts() {
+		return playouts;
+	}
+
+	/**
+	 * @return Number of nodes in the tree
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @return The root child of the column, or -1
+	 */
+	private int getChild(int col) {
+		int first = firstChild[0];
+		for (int child = first; child < first + childCount[0]; child++) {
+			if (columns[child] == col) {
+				return child;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,450 @@
+package connect4.ai;
+
+import connect4.BitBoard;
+import connect4.Player;
+import connect4.SimpleBoard;
+
+/**
+ * Negamax search with alpha-beta pruning.
+ *
+ * Scores are seen from the player to move. A win scores WIN_SCORE minus
+ * the number of moves needed, so faster wins score higher. When the depth
+ * runs out the position is scored by evaluate(), which stays far below
+ * the win scores.
+ *
+ * With a transposition table, results are stored per position and reused
+ * when the same position is reached again through other moves.
+ *
+ * The search deepens one move at a time up to the maximum depth, and
+ * starts each iteration with the best column of the one before. When the
+ * time limit or node budget runs out, or stop() is called, the best column
+ * of the last completed iteration is returned.
+ *
+ * Positions covered by an opening book are not searched at all.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class NegamaxEngine implements Engine {
+
+	/** Score of a win on the next move */
+	public static final int WIN_SCORE = 1000;
+
+	/** Columns are searched from the center and out */
+	private static final int[] ORDER = { 3, 2, 4, 1, 5, 0, 6 };
+
+	/** Mask of the center column */
+	private static final long CENTER_MASK = ((1L << SimpleBoard.ROWS) - 1) << (SimpleBoard.COLS / 2 * BitBoard.HEIGHT);
+
+	/** Scores above this are wins, and depend on the distance to the root */
+	private static final int WIN_THRESHOLD = WIN_SCORE - 100;
+
+	/** Nodes searched between looks at the clock */
+	private static final int TIME_CHECK_INTERVAL = 1024;
+
+	private final int depth;
+	private final long nodeBudget;
+	private final TranspositionTable table;
+	private OpeningBook book;
+	private boolean fromBook;
+
+	private BitBoard board;
+	private long nodes;
+	private long time;
+	private int score;
+	private int completedDepth;
+	private boolean aborted;
+	/** Counts the calls to stop() */
+	private volatile int stops;
+	/** The value of stops when the running search was asked for */
+	private int request;
+	private long timeLimit;
+	private long deadline;
+	private long nextTimeCheck;
+
+	/**
+	 * @param depth The maximum number of moves to search ahead
+	 */
+	public NegamaxEngine(int depth) {
+		this(depth, Long.MAX_VALUE);
+	}
+
+	/**
+	 * @param depth The maximum number of moves to search ahead
+	 * @param nodeBudget The search stops after this many nodes
+	 */
+	public NegamaxEngine(int depth, long nodeBudget) {
+		this(depth, nodeBudget, null);
+	}
+
+	/**
+	 * @param depth The maximum number of moves to search ahead
+	 * @param nodeBudget The search stops after this many nodes
+	 * @param table The transposition table, or null to search without one
+	 */
+	public NegamaxEngine(int depth, long nodeBudget, TranspositionTable table) {
+		if (depth < 1) {
+			throw new IllegalArgumentException("Depth must be at least 1");
+		}
+		this.depth = depth;
+		this.nodeBudget = nodeBudget;
+		this.table = table;
+	}
+
+	/**
+	 * Searches deeper and deeper until the maximum depth is reached, a win
+	 * or loss is proven, or the search is stopped.
+	 *
+	 * @return The best column of the last completed iteration
+	 */
+	@Override
+	public int search(BitBoard b, Player player, Player opponent) {
+		return search(b, player, opponent, request());
+	}
+
+	/**
+	 * Searches like search(b, player, opponent), unless stop() was called
+	 * after the request.
+	 *
+	 * @return The best column of the last completed iteration
+	 */
+	@Override
+	public int search(BitBoard b, Player player, Player opponent, int r) {
+		if (book != null) {
+			long start = System.nanoTime();
+			int col = book.getBestMove(b, player, opponent);
+
+			fromBook = col >= 0;
+			if (fromBook) {
+				nodes = 0;
+				completedDepth = 0;
+				time = System.nanoTime() - start;
+				return col;
+			}
+		}
+
+		if (table != null) {
+			table.newSearch();
+		}
+		return searchRoot(b, player, opponent, r);
+	}
+
+	/**
+	 * @return The request, to pass to search()
+	 */
+	@Override
+	public int request() {
+		return stops;
+	}
+
+	/**
+	 * Stops a running search as if the node budget ran out, and every
+	 * search asked for before the call. May be called from any thread.
+	 */
+	@Override
+	public void stop() {
+		stops++;
+	}
+
+	/**
+	 * @param millis Time allowed per search in milliseconds, or 0 for no limit
+	 */
+	@Override
+	public void setTimeLimit(long millis) {
+		timeLimit = millis;
+	}
+
+	/**
+	 * Searches without starting a new table generation, so several
+	 * engines can take part in the same search.
+	 *
+	 * @param r The value returned by request()
+	 * @return The best column
+	 */
+	int searchRoot(BitBoard b, Player player, Player opponent, int r) {
+		long start = System.nanoTime();
+
+		board = b;
+		request = r;
+		nodes = 0;
+		nextTimeCheck = TIME_CHECK_INTERVAL;
+		deadline = timeLimit > 0 ? start + timeLimit * 1000000 : Long.MAX_VALUE;
+		aborted = false;
+		completedDepth = 0;
+
+		int bestCol = -1;
+		int maxDepth = Math.min(depth, SimpleBoard.ROWS * SimpleBoard.COLS - board.getMoveCount());
+
+		for (int d = 1; d <= maxDepth; d++) {
+			int col = searchIteration(player, opponent, d, bestCol);
+
+			if (aborted) {
+				// Without a completed iteration, use what the first one found
+				if (bestCol == -1) {
+					bestCol = col;
+				}
+				break;
+			}
+
+			bestCol = col;
+			completedDepth = d;
+
+			// Deeper searches cannot change a proven result
+			if (score > WIN_THRESHOLD || score < -WIN_THRESHOLD) {
+				break;
+			}
+		}
+
+		time = System.nanoTime() - start;
+		board = null;
+
+		return bestCol;
+	}
+
+	/**
+	 * Searches every column to the given depth.
+	 *
+	 * @param d The depth
+	 * @param firstCol Column to search first, or -1
+	 * @return The best column, or the first legal column if aborted at once
+	 */
+	private int searchIteration(Player player, Player opponent, int d, int firstCol) {
+		int bestCol = -1;
+		int alpha = -Integer.MAX_VALUE;
+
+		for (int i = -1; i < ORDER.length; i++) {
+			int col = i < 0 ? firstCol : ORDER[i];
+
+			if (col == -1 || (i >= 0 && col == firstCol) || !board.canPlace(col)) {
+				continue;
+			}
+
+			// Always have a move, even if the search is aborted at once
+			if (bestCol == -1) {
+				bestCol = col;
+			}
+
+			int s = searchMove(player, opponent, col, d, alpha, Integer.MAX_VALUE, 1);
+
+			if (aborted) {
+				return bestCol;
+			}
+			if (s > alpha) {
+				alpha = s;
+				bestCol = col;
+			}
+		}
+
+		score = alpha;
+		return bestCol;
+	}
+
+	/**
+	 * @return Number of nodes searched by the latest search
+	 */
+	@Override
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * @return Duration of the latest search in nanoseconds
+	 */
+	@Override
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * @return Score of the latest search, seen from the player who moved
+	 */
+	public int getScore() {
+		return score;
+	}
+
+	/**
+	 * @return The maximum search depth
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * @return Depth of the last completed iteration of the latest search
+	 */
+	public int getCompletedDepth() {
+		return completedDepth;
+	}
+
+	/**
+	 * @param b The opening book to play from, or null
+	 */
+	public void setBook(OpeningBook b) {
+		book = b;
+		fromBook = false;
+	}
+
+	/**
+	 * @return True if the latest move came from the opening book
+	 */
+	public boolean isFromBook() {
+		return fromBook;
+	}
+
+	/**
+	 * @return The transposition table, or null
+	 */
+	public TranspositionTable getTable() {
+		return table;
+	}
+
+	/**
+	 * Places a coin, scores the resulting position and removes the coin again.
+	 *
+	 * @return Score of the move, seen from the player placing the coin
+	 */
+	private int searchMove(Player player, Player opponent, int col, int d, int alpha, int beta, int ply) {
+		board.place(player, col);
+		nodes++;
+
+		int s;
+		if (board.check() != null) {
+			s = WIN_SCORE - ply;
+		} else if (board.isFull()) {
+			s = 0;
+		} else if (d == 1) {
+			s = evaluate(board.getMask(player), board.getMask(opponent));
+		} else {
+			s = -negamax(opponent, player, d - 1, -beta, -alpha, ply + 1);
+		}
+
+		board.undo();
+		return s;
+	}
+
+	/**
+	 * @return Score of the position, seen from the player to move
+	 */
+	private int negamax(Player player, Player opponent, int d, int alpha, int beta, int ply) {
+		if (nodes >= nextTimeCheck) {
+			nextTimeCheck = nodes + TIME_CHECK_INTERVAL;
+			if (System.nanoTime() > deadline) {
+				aborted = true;
+			}
+		}
+		if (aborted || nodes >= nodeBudget || stops != request) {
+			aborted = true;
+			return 0;
+		}
+
+		long key = board.getKey();
+		int tableMove = TranspositionTable.NO_MOVE;
+
+		if (table != null) {
+			long entry = table.probe(key);
+
+			if (entry != 0) {
+				tableMove = TranspositionTable.getMove(entry);
+
+				if (TranspositionTable.getDepth(entry) >= d) {
+					int s = fromTable(TranspositionTable.getScore(entry), ply);
+					int bound = TranspositionTable.getBound(entry);
+
+					if (bound == TranspositionTable.EXACT
+							|| (bound == TranspositionTable.LOWER && s >= beta)
+							|| (bound == TranspositionTable.UPPER && s <= alpha)) {
+						return s;
+					}
+				}
+			}
+		}
+
+		int originalAlpha = alpha;
+		int best = -Integer.MAX_VALUE;
+		int bestCol = TranspositionTable.NO_MOVE;
+
+		// The best column from the table is searched first
+		for (int i = -1; i < ORDER.length; i++) {
+			int col = i < 0 ? tableMove : ORDER[i];
+
+			if (col == TranspositionTable.NO_MOVE || (i >= 0 && col == tableMove) || !board.canPlace(col)) {
+				continue;
+			}
+
+			int s = searchMove(player, opponent, col, d, alpha, beta, ply);
+
+			if (aborted) {
+				return 0;
+			}
+			if (s > best) {
+				best = s;
+				bestCol = col;
+				if (best > alpha) {
+					alpha = best;
+					if (alpha >= beta) {
+						break;
+					}
+				}
+			}
+		}
+
+		if (table != null) {
+			int bound = best <= originalAlpha ? TranspositionTable.UPPER
+					: best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+			table.store(key, d, bound, bestCol, toTable(best, ply));
+		}
+
+		return best;
+	}
+
+	/**
+	 * Win scores count moves from the root. In the table they are stored
+	 * as moves from the position, so they can be used at any depth.
+	 *
+	 * @param s A score
+	 * @param ply Moves from the root to the position
+	 * @return The score to store
+	 */
+	private static int toTable(int s, int ply) {
+		if (s > WIN_THRESHOLD) {
+			return s + ply;
+		}
+		if (s < -WIN_THRESHOLD) {
+			return s - ply;
+		}
+		return s;
+	}
+
+	/**
+	 * @param s A score from the table
+	 * @param ply Moves from the root to the position
+	 * @return The score seen from the root
+	 */
+	private static int fromTable(int s, int ply) {
+		if (s > WIN_THRESHOLD) {
+			return s - ply;
+		}
+		if (s < -WIN_THRESHOLD) {
+			return s + ply;
+		}
+		return s;
+	}
+
+	/**
+	 * Heuristic score of a position without a winner.
+	 * Counts the empty cells that would complete four in a row for each player,
+	 * and the coins in the center column, which take part in the most lines.
+	 *
+	 * @param player Coins of the player to score for
+	 * @param opponent Coins of the opponent
+	 * @return The score, far below WIN_SCORE
+	 */
+	static int evaluate(long player, long opponent) {
+		long occupied = player | opponent;
+
+		int threats = Long.bitCount(BitBoard.getWinningCells(player, occupied))
+				- Long.bitCount(BitBoard.getWinningCells(opponent, occupied));
+		int center = Long.bitCount(player & CENTER_MASK) - Long.bitCount(opponent & CENTER_MASK);
+
+		return 8 * threats + center;
+	}
+}
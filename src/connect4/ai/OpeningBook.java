@@ -0,0 +1,246 @@
+package connect4.ai;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import connect4.BitBoard;
+import connect4.Player;
+import connect4.SimpleBoard;
+
+/**
+ * Exact scores of early positions, read from a memory-mapped file.
+ *
+ * The file starts with a header:
+ *
+ *	 4 bytes  magic "C4BK"
+ *	 4 bytes  format version
+ *	 4 bytes  lowest number of coins of a position in the book
+ *	 4 bytes  highest number of coins of a position in the book
+ *	 4 bytes  number of records
+ *
+ * followed by records of a key (8 bytes) and a score (1 byte), sorted by
+ * key. The key is the smaller of the Zobrist keys of the position and its
+ * mirror image, which have the same score. A score of 0 is a draw, n > 0
+ * means the player to move wins with the n-th coin placed from the position,
+ * and n < 0 that the player to move loses after -n coins.
+ *
+ * Lookups are binary searches in the mapped file, so opening the book
+ * takes no time and the records never go onto the heap.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class OpeningBook {
+
+	/** Magic number at the start of the file */
+	public static final int MAGIC = 0x4334424b;
+	/** Version of the file format */
+	public static final int VERSION = 1;
+	/** Size of the header in bytes */
+	public static final int HEADER_SIZE = 20;
+	/** Size of a record in bytes */
+	public static final int RECORD_SIZE = 9;
+
+	/** Returned by getScore() for positions not in the book */
+	public static final int NOT_FOUND = Integer.MIN_VALUE;
+
+	/** The book used by computer players, if it exists */
+	public static final String DEFAULT_FILE = "opening.book";
+
+	private static OpeningBook defaultBook;
+	private static boolean defaultLoaded;
+
+	private final MappedByteBuffer buffer;
+	private final int minMoves;
+	private final int maxMoves;
+	private final int records;
+
+	/**
+	 * Maps a book file into memory.
+	 *
+	 * @param file The book file
+	 * @throws IOException If the file cannot be read or is not a book
+	 */
+	public OpeningBook(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Book files are limited to 2 GB");
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} finally {
+			// The mapping stays valid after the file is closed
+			raf.close();
+		}
+
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IOException(file + " is not an opening book");
+		}
+		if (buffer.getInt(4) != VERSION) {
+			throw new IOException(file + " has unknown book version " + buffer.getInt(4));
+		}
+
+		minMoves = buffer.getInt(8);
+		maxMoves = buffer.getInt(12);
+		records = buffer.getInt(16);
+
+		if (HEADER_SIZE + (long) records * RECORD_SIZE > buffer.capacity()) {
+			throw new IOException(file + " is truncated");
+		}
+	}
+
+	/**
+	 * @return The book in DEFAULT_FILE, or null if there is no such file
+	 */
+	public static synchronized OpeningBook getDefault() {
+		if (!defaultLoaded) {
+			defaultLoaded = true;
+			File file = new File(DEFAULT_FILE);
+			if (file.exists()) {
+				try {
+					defaultBook = new OpeningBook(file);
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+		return defaultBook;
+	}
+
+	/**
+	 * @param board A board
+	 * @return The key the position is stored under
+	 */
+	public static long getCanonicalKey(BitBoard board) {
+		return Math.min(board.getKey(), board.getMirrorKey());
+	}
+
+	/**
+	 * @param key A canonical key
+	 * @return The score of the position, or NOT_FOUND
+	 */
+	public int getScore(long key) {
+		int low = 0;
+		int high = records - 1;
+
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			long k = buffer.getLong(HEADER_SIZE + mid * RECORD_SIZE);
+
+			if (k < key) {
+				low = mid + 1;
+			} else if (k > key) {
+				high = mid - 1;
+			} else {
+				return buffer.get(HEADER_SIZE + mid * RECORD_SIZE + 8);
+			}
+		}
+		return NOT_FOUND;
+	}
+
+	/**
+	 * Picks the column that leads to the best position in the book.
+	 * Every legal column must lead to a position in the book, a win or a draw.
+	 *
+	 * @param board The board, which is restored before returning
+	 * @param player The player to move
+	 * @param opponent The other player
+	 * @return The best column, or -1 if the book does not cover the position
+	 */
+	public int getBestMove(BitBoard board, Player player, Player opponent) {
+		int moves = board.getMoveCount() + 1;
+		if (moves < minMoves || moves > maxMoves) {
+			return -1;
+		}
+
+		int bestCol = -1;
+		int bestScore = 0;
+
+		for (int col = 0; col < SimpleBoard.COLS; col++) {
+			if (!board.canPlace(col)) {
+				continue;
+			}
+
+			board.place(player, col);
+			int s;
+			if (board.check() != null) {
+				s = 1;
+			} else if (board.isFull()) {
+				s = 0;
+			} else {
+				s = toParentScore(getScore(getCanonicalKey(board)));
+			}
+			board.undo();
+
+			if (s == NOT_FOUND) {
+				return -1;
+			}
+			if (bestCol == -1 || compare(s, bestScore) > 0) {
+				bestCol = col;
+				bestScore = s;
+			}
+		}
+		return bestCol;
+	}
+
+	/**
+	 * Turns the score of the opponent after a move into the score
+	 * of the player who made the move.
+	 *
+	 * @param score Score of the position after the move, or NOT_FOUND
+	 * @return Score of the position before the move, or NOT_FOUND
+	 */
+	static int toParentScore(int score) {
+		if (score == NOT_FOUND || score == 0) {
+			return score;
+		}
+		return score > 0 ? -(score + 1) : -score + 1;
+	}
+
+	/**
+	 * @return Lowest number of coins of a position in the book
+	 */
+	public int getMinMoves() {
+		return minMoves;
+	}
+
+	/**
+	 * @return Highest number of coins of a position in the book
+	 */
+	public int getMaxMoves() {
+		return maxMoves;
+	}
+
+	/**
+	 * @return Number of positions in the book
+	 */
+	public int size() {
+		return records;
+	}
+
+	/**
+	 * Orders scores from worst to best: slow losses beat fast losses,
+	 * draws beat losses, and fast wins beat slow wins.
+	 *
+	 * @return A positive number if a is better than b
+	 */
+	static int compare(int a, int b) {
+		return rank(a) - rank(b);
+	}
+
+	/**
+	 * @return A number that grows as the score gets better
+	 */
+	private static int rank(int score) {
+		if (score > 0) {
+			return 100 - score;
+		}
+		if (score < 0) {
+			return -100 - score;
+		}
+		return 0;
+	}
+}
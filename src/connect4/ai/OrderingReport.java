@@ -0,0 +1,75 @@
+package connect4.ai;
+
+import connect4.BitBoard;
+import connect4.MoveOrdering;
+import connect4.Player;
+
+/**
+ * Measures what each move ordering saves.
+ *
+ * Searches a fixed set of positions to the same depth with every ordering
+ * and prints the nodes searched, the share of cutoffs caused by the first
+ * column tried, and the time. An ordering is worth its cost when it saves
+ * more time in fewer nodes than it spends sorting.
+ *
+ * Usage: OrderingReport [depth]
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class OrderingReport {
+
+	/** Test positions as columns played, starting at 1 */
+	private static final String[] POSITIONS = { "", "44", "4453", "444326", "3345526", "43443555", "4455326617", "1234567" };
+
+	private static final String[] NAMES = { "columns", "center", "threats", "history", "all" };
+
+	public static void main(String[] args) {
+		int depth = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+
+		Player player1 = new Player("X");
+		Player player2 = new Player("O");
+
+		MoveOrdering[] orderings = {
+			null,
+			new CenterFirstOrdering(),
+			new ThreatFirstOrdering(new CenterFirstOrdering()),
+			new HistoryOrdering(new CenterFirstOrdering()),
+			new ThreatFirstOrdering(new HistoryOrdering(new CenterFirstOrdering())),
+		};
+
+		System.out.println("Depth " + depth + ", " + POSITIONS.length + " positions");
+		System.out.println(String.format("%-10s %14s %10s %12s %10s", "ordering", "nodes", "saved", "first cut", "time (ms)"));
+
+		long baseline = 0;
+		for (int i = 0; i < orderings.length; i++) {
+			AlphaBetaSearch search = new AlphaBetaSearch(depth, orderings[i]);
+			long nodes = 0;
+			long cutoffs = 0;
+			long firstCutoffs = 0;
+			long time = 0;
+
+			for (String moves : POSITIONS) {
+				BitBoard board = new BitBoard();
+				Player current = player1;
+				for (int j = 0; j < moves.length(); j++) {
+					board.place(current, moves.charAt(j) - '1');
+					current = current == player1 ? player2 : player1;
+				}
+
+				search.search(board, current, current == player1 ? player2 : player1);
+				nodes += search.getNodes();
+				cutoffs += search.getCutoffs();
+				firstCutoffs += search.getFirstCutoffs();
+				time += search.getTime();
+			}
+
+			if (i == 0) {
+				baseline = nodes;
+			}
+
+			System.out.println(String.format("%-10s %14d %9.1f%% %11.1f%% %10d", NAMES[i], nodes,
+					100.0 * (baseline - nodes) / baseline, cutoffs > 0 ? 100.0 * firstCutoffs / cutoffs : 0.0,
+					time / 1000000));
+		}
+	}
+}
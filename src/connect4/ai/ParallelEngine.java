@@ -0,0 +1,237 @@
+package connect4.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import connect4.BitBoard;
+import connect4.Player;
+
+/**
+ * Negamax search on several threads sharing one transposition table
+ * (Lazy SMP).
+ *
+ * The calling thread searches up to the requested depth while helper threads
+ * search the same position on their own boards, every other helper one move
+ * deeper. The helpers do not report moves. They fill the shared table, which
+ * lets the main search cut off and order moves sooner. When the main search
+ * is done the helpers are stopped. Positions covered by an opening book
+ * are not searched at all.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class ParallelEngine implements Engine {
+
+	private final TranspositionTable table;
+	private final NegamaxEngine[] engines;
+	private final ExecutorService helpers;
+	private OpeningBook book;
+	private boolean fromBook;
+
+	private long nodes;
+	private long time;
+	/** Counts the calls to stop() */
+	private volatile int stops;
+
+	/**
+	 * @param depth The number of moves to search ahead
+	 * @param threads The number of search threads, including the calling thread
+	 * @param table The shared transposition table
+	 */
+	public ParallelEngine(int depth, int threads, TranspositionTable table) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("At least one thread is needed");
+		}
+
+		this.table = table;
+
+		engines = new NegamaxEngine[threads];
+		for (int i = 0; i < threads; i++) {
+			engines[i] = new NegamaxEngine(depth + (i % 2), Long.MAX_VALUE, table);
+		}
+
+		helpers = threads > 1 ? Executors.newFixedThreadPool(threads - 1, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "search-helper");
+				thread.setDaemon(true);
+				return thread;
+			}
+		}) : null;
+	}
+
+	/**
+	 * @return The best column found by the main search
+	 */
+	@Override
+	public int search(BitBoard board, Player player, Player opponent) {
+		return search(board, player, opponent, request());
+	}
+
+	/**
+	 * @return The best column found by the main search, unless stop() was called after the request
+	 */
+	@Override
+	public int search(BitBoard board, final Player player, final Player opponent, int request) {
+		long start = System.nanoTime();
+
+		if (book != null) {
+			int col = book.getBestMove(board, player, opponent);
+
+			fromBook = col >= 0;
+			if (fromBook) {
+				nodes = 0;
+				time = System.nanoTime() - start;
+				return col;
+			}
+		}
+
+		final int[] requests = new int[engines.length];
+		for (int i = 0; i < engines.length; i++) {
+			requests[i] = engines[i].request();
+		}
+		// A stop() from now on reaches the engines, an earlier one is passed on here
+		if (stops != request) {
+			for (NegamaxEngine engine : engines) {
+				engine.stop();
+			}
+		}
+		table.newSearch();
+
+		List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+		for (int i = 1; i < engines.length; i++) {
+			final NegamaxEngine engine = engines[i];
+			final BitBoard copy = new BitBoard(board);
+			final int r = requests[i];
+
+			results.add(helpers.submit(new Callable<Integer>() {
+				public Integer call() {
+					return engine.searchRoot(copy, player, opponent, r);
+				}
+			}));
+		}
+
+		int col = engines[0].searchRoot(board, player, opponent, requests[0]);
+
+		for (int i = 1; i < engines.length; i++) {
+			engines[i].stop();
+		}
+
+		nodes = engines[0].getNodes();
+		for (int i = 1; i < engines.length; i++) {
+			try {
+				results.get(i - 1).get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				e.printStackTrace();
+			}
+			nodes += engines[i].getNodes();
+		}
+
+		time = System.nanoTime() - start;
+		return col;
+	}
+
+	/**
+	 * @return The request, to pass to search()
+	 */
+	@Override
+	public int request() {
+		return stops;
+	}
+
+	/**
+	 * Stops a running search, and every search asked for before the call.
+	 * May be called from any thread.
+	 */
+	@Override
+	public void stop() {
+		stops++;
+		for (NegamaxEngine engine : engines) {
+			engine.stop();
+		}
+	}
+
+	/**
+	 * @param millis Time allowed per search in milliseconds, or 0 for no limit
+	 */
+	@Override
+	public void setTimeLimit(long millis) {
+		for (NegamaxEngine engine : engines) {
+			engine.setTimeLimit(millis);
+		}
+	}
+
+	/**
+	 * Stops the helper threads. The engine cannot search afterwards.
+	 */
+	public void shutdown() {
+		if (helpers != null) {
+			helpers.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return Number of nodes searched by all threads in the latest search
+	 */
+	@Override
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * @return Duration of the latest search in nanoseconds
+	 */
+	@Override
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * @return Score of the latest search, seen from the player who moved
+	 */
+	public int getScore() {
+		return engines[0].getScore();
+	}
+
+	/**
+	 * @return Depth of the last completed iteration of the main search
+	 */
+	public int getCompletedDepth() {
+		return engines[0].getCompletedDepth();
+	}
+
+	/**
+	 * @param b The opening book to play from, or null
+	 */
+	public void setBook(OpeningBook b) {
+		book = b;
+		fromBook = false;
+	}
+
+	/**
+	 * @return True if the latest move came from the opening book
+	 */
+	public boolean isFromBook() {
+		return fromBook;
+	}
+
+	/**
+	 * @return The number of search threads
+	 */
+	public int getThreads() {
+		return engines.length;
+	}
+
+	/**
+	 * @return The shared transposition table
+	 */
+	public TranspositionTable getTable() {
+		return table;
+	}
+}
@@ -0,0 +1,93 @@
+package connect4.ai;
+
+import java.util.Random;
+
+import connect4.BitBoard;
+import connect4.Player;
+import connect4.SimpleBoard;
+
+/**
+ * Engine that picks a random legal column. Useful as a weak opponent,
+ * and as a baseline for the other engines.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class RandomEngine implements Engine {
+
+	private final Random random;
+	private final int[] columns = new int[SimpleBoard.COLS];
+	private long time;
+
+	public RandomEngine() {
+		random = new Random();
+	}
+
+	/**
+	 * @param seed Seed of the random columns
+	 */
+	public RandomEngine(long seed) {
+		random = new Random(seed);
+	}
+
+	/**
+	 * @param seed Seed of the random columns, so a game can be played again
+	 */
+	public void setSeed(long seed) {
+		random.setSeed(seed);
+	}
+
+	/**
+	 * @return A random legal column, or -1 if the board is full
+	 */
+	@Override
+	public int search(BitBoard board, Player player, Player opponent) {
+		return search(board, player, opponent, 0);
+	}
+
+	/**
+	 * @return A random legal column, the engine is too fast to be stopped
+	 */
+	@Override
+	public int search(BitBoard board, Player player, Player opponent, int request) {
+		long start = System.nanoTime();
+		int count = board.getMoves(columns, null, player, opponent);
+		int col = count > 0 ? columns[random.nextInt(count)] : -1;
+		time = System.nanoTime() - start;
+		return col;
+	}
+
+	/**
+	 * @return 0, the engine cannot be stopped
+	 */
+	@Override
+	public int request() {
+		return 0;
+	}
+
+	/**
+	 * The engine never searches, so there is nothing to stop.
+	 */
+	@Override
+	public void stop() {
+	}
+
+	@Override
+	public void setTimeLimit(long millis) {
+	}
+
+	/**
+	 * @return 0, the engine does not search
+	 */
+	@Override
+	public long getNodes() {
+		return 0;
+	}
+
+	/**
+	 * @return Time taken by the latest move in nanoseconds
+	 */
+	@Override
+	public long getTime() {
+		return time;
+	}
+}
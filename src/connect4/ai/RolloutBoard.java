@@ -0,0 +1,141 @@
+package connect4.ai;
+
+import connect4.BitBoard;
+import connect4.Player;
+import connect4.SimpleBoard;
+
+/**
+ * The smallest board that can play a game: two masks and a coin count.
+ *
+ * Uses the layout of BitBoard, but only knows the coins of the player to
+ * move and all coins. Playing a coin swaps the sides by flipping the first
+ * mask against the second. There is no history, key or player object, so
+ * a random game to the end is a few hundred cheap operations and copying
+ * the board is copying three fields.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+final class RolloutBoard {
+
+	private static final int CELLS = SimpleBoard.ROWS * SimpleBoard.COLS;
+
+	/** Coins of the player to move */
+	private long current;
+	/** All coins */
+	private long mask;
+	private int moves;
+
+	/** Legal columns during a rollout */
+	private final int[] columns = new int[SimpleBoard.COLS];
+
+	/**
+	 * @param board The board to copy
+	 * @param player The player to move
+	 */
+	void set(BitBoard board, Player player) {
+		current = board.getMask(player);
+		mask = board.getMask();
+		moves = board.getMoveCount();
+	}
+
+	/**
+	 * @param other The board to copy
+	 */
+	void set(RolloutBoard other) {
+		current = other.current;
+		mask = other.mask;
+		moves = other.moves;
+	}
+
+	/**
+	 * @return True if a coin can be placed in the column
+	 */
+	boolean canPlay(int col) {
+		return (mask & topBit(col)) == 0;
+	}
+
+	/**
+	 * @return True if the player to move wins by placing a coin in the column
+	 */
+	boolean isWinningMove(int col) {
+		long bit = (mask + bottomBit(col)) & columnMask(col);
+		return BitBoard.isWin(current | bit);
+	}
+
+	/**
+	 * Places a coin for the player to move, who then becomes the opponent.
+	 */
+	void play(int col) {
+		current ^= mask;
+		mask |= mask + bottomBit(col);
+		moves++;
+	}
+
+	/**
+	 * @return The number of coins on the board
+	 */
+	int getMoveCount() {
+		return moves;
+	}
+
+	/**
+	 * @return True if every cell is taken
+	 */
+	boolean isFull() {
+		return moves == CELLS;
+	}
+
+	/**
+	 * Plays random coins until the game ends. A winning column is always
+	 * taken when the random column is one.
+	 *
+	 * @param random State of a xorshift generator, see next()
+	 * @return 1 if the player to move at the start wins, 0 if the opponent
+	 *		wins, or 0.5 for a draw
+	 */
+	float rollout(long[] random) {
+		boolean starter = true;
+
+		while (!isFull()) {
+			int count = 0;
+			for (int col = 0; col < SimpleBoard.COLS; col++) {
+				if (canPlay(col)) {
+					columns[count++] = col;
+				}
+			}
+
+			int col = columns[(int) ((next(random) >>> 1) % count)];
+			if (isWinningMove(col)) {
+				return starter ? 1 : 0;
+			}
+			play(col);
+			starter = !starter;
+		}
+		return 0.5f;
+	}
+
+	/**
+	 * @param state The generator state, never 0
+	 * @return The next number of a xorshift generator
+	 */
+	static long next(long[] state) {
+		long x = state[0];
+		x ^= x << 13;
+		x ^= x >>> 7;
+		x ^= x << 17;
+		state[0] = x;
+		return x;
+	}
+
+	private static long bottomBit(int col) {
+		return 1L << (col * BitBoard.HEIGHT);
+	}
+
+	private static long topBit(int col) {
+		return 1L << (SimpleBoard.ROWS - 1 + col * BitBoard.HEIGHT);
+	}
+
+	private static long columnMask(int col) {
+		return ((1L << SimpleBoard.ROWS) - 1) << (col * BitBoard.HEIGHT);
+	}
+}
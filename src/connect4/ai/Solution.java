@@ -0,0 +1,97 @@
+package connect4.ai;
+
+import connect4.SimpleBoard;
+
+/**
+ * The exact result of a position with perfect play from both sides.
+ *
+ * The score counts from the player to move. It is 0 for a draw. A win
+ * scores more the fewer coins the winner needs: a win with the last coin
+ * the player has left scores 1, and every coin saved adds one. Losses score
+ * the negative of the opponent's win. A weak solution only knows the
+ * outcome, so its score is 1, 0 or -1.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public final class Solution {
+
+	private static final int CELLS = SimpleBoard.ROWS * SimpleBoard.COLS;
+
+	private final int score;
+	private final int moves;
+	private final boolean weak;
+
+	/**
+	 * @param score The score
+	 * @param moves The number of coins on the board in the position
+	 * @param weak True if only the outcome is known
+	 */
+	Solution(int score, int moves, boolean weak) {
+		this.score = score;
+		this.moves = moves;
+		this.weak = weak;
+	}
+
+	/**
+	 * @return The score, seen from the player to move
+	 */
+	public int getScore() {
+		return score;
+	}
+
+	/**
+	 * @return True if the player to move wins
+	 */
+	public boolean isWin() {
+		return score > 0;
+	}
+
+	/**
+	 * @return True if the player to move loses
+	 */
+	public boolean isLoss() {
+		return score < 0;
+	}
+
+	/**
+	 * @return True if the game ends in a draw
+	 */
+	public boolean isDraw() {
+		return score == 0;
+	}
+
+	/**
+	 * @return True if only the outcome is known, not the distance
+	 */
+	public boolean isWeak() {
+		return weak;
+	}
+
+	/**
+	 * The winner plays for the fastest win and the loser for the slowest
+	 * loss. A draw fills the board.
+	 *
+	 * @return Coins placed by both players until the game ends, or -1 for a weak solution
+	 */
+	public int getDistance() {
+		if (weak) {
+			return -1;
+		}
+		if (score > 0) {
+			return 2 * ((CELLS + 1 - moves) / 2 - score) + 1;
+		}
+		if (score < 0) {
+			return 2 * ((CELLS - moves) / 2 + score) + 2;
+		}
+		return CELLS - moves;
+	}
+
+	/**
+	 * @return The outcome, and the distance unless the solution is weak
+	 */
+	@Override
+	public String toString() {
+		String outcome = isWin() ? "win" : isLoss() ? "loss" : "draw";
+		return weak || isDraw() ? outcome : outcome + " in " + getDistance();
+	}
+}
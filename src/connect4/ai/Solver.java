@@ -0,0 +1,350 @@
+package connect4.ai;
+
+import java.util.Arrays;
+import java.util.List;
+
+import connect4.BitBoard;
+import connect4.Board;
+import connect4.Cell;
+import connect4.Position;
+import connect4.SimpleBoard;
+
+/**
+ * Finds the exact result of any position.
+ *
+ * The solver is a negamax search with alpha-beta pruning to the end of
+ * the game, on a board of two bit masks: the coins of the player to move
+ * and all coins. It never plays a column that lets the opponent win at
+ * once, and tries the columns that make the most new threats first. Results
+ * are kept in a transposition table, as upper or lower bounds.
+ *
+ * The score is found by a binary search with null-window searches, which
+ * only answer whether the score is above a value but prune far more than
+ * a search with a full window. A weak solve only asks if the score is
+ * above or below 0, which is enough to tell win, draw and loss apart.
+ *
+ * A solver is not thread-safe. The table is kept between solves, so
+ * related positions solve faster one after another.
+ *
+ * Usage: Solver moves [weak] [megabytes]
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class Solver {
+
+	/** Table size in MB used when none is given */
+	public static final int DEFAULT_TABLE_SIZE = 64;
+
+	private static final int CELLS = SimpleBoard.ROWS * SimpleBoard.COLS;
+
+	/** Lowest score of a position that is not over within two coins */
+	private static final int MIN_SCORE = -CELLS / 2 + 3;
+	/** Highest score of a position that is not over within two coins */
+	private static final int MAX_SCORE = (CELLS + 1) / 2 - 3;
+
+	/** Columns in the order they are tried when they make as many threats */
+	private static final int[] ORDER = { 3, 2, 4, 1, 5, 0, 6 };
+
+	/**
+	 * Entries of the table. The key of a position is current + mask, which
+	 * is unique and fits in 49 bits. It is stored above an 8-bit value, and
+	 * 0 is an empty entry.
+	 */
+	private final long[] table;
+
+	/** Columns and threat counts to try per number of coins */
+	private final long[][] sortedMoves = new long[CELLS][SimpleBoard.COLS];
+	private final int[][] sortedScores = new int[CELLS][SimpleBoard.COLS];
+
+	private long nodes;
+
+	public Solver() {
+		this(DEFAULT_TABLE_SIZE);
+	}
+
+	/**
+	 * @param megabytes The size of the transposition table
+	 */
+	public Solver(int megabytes) {
+		if (megabytes < 1) {
+			throw new IllegalArgumentException("The table must be at least 1 MB");
+		}
+		// An odd size spreads the keys, which are all even in the low bits
+		table = new long[(int) Math.min((megabytes * (1L << 20) / 8) | 1, Integer.MAX_VALUE - 8)];
+	}
+
+	/**
+	 * @param board The board. The players must have taken turns.
+	 * @return The exact score and distance
+	 */
+	public Solution solve(Board board) {
+		return solve(board, false);
+	}
+
+	/**
+	 * @param moves The columns played from the empty board, starting at 1, like "4453"
+	 * @return The exact score and distance
+	 */
+	public Solution solve(String moves) {
+		return solve(moves, false);
+	}
+
+	/**
+	 * @param board The board. The players must have taken turns.
+	 * @param weak True to only find out if the player to move wins, draws or loses
+	 * @return The solution
+	 */
+	public Solution solve(Board board, boolean weak) {
+		if (board.check() != null) {
+			throw new IllegalArgumentException("The game is already over");
+		}
+
+		List<Position> history = board.getHistory();
+		Cell[][] cells = board.getMatrix();
+		int moves = history.size();
+		long current = 0;
+		long mask = 0;
+
+		for (int i = 0; i < moves; i++) {
+			Position pos = history.get(i);
+			if (cells[pos.getRow()][pos.getCol()] == null) {
+				throw new IllegalArgumentException("The history does not match the board");
+			}
+
+			long bit = 1L << (pos.getCol() * BitBoard.HEIGHT + pos.getRow());
+			mask |= bit;
+			// The player to move placed every other coin, ending with the one before the last
+			if (i % 2 == moves % 2) {
+				current |= bit;
+			}
+		}
+
+		return solve(current, mask, moves, weak);
+	}
+
+	/**
+	 * @param moves The columns played from the empty board, starting at 1, like "4453"
+	 * @param weak True to only find out if the player to move wins, draws or loses
+	 * @return The solution
+	 */
+	public Solution solve(String moves, boolean weak) {
+		long current = 0;
+		long mask = 0;
+
+		for (int i = 0; i < moves.length(); i++) {
+			int col = moves.charAt(i) - '1';
+
+			if (col < 0 || col >= SimpleBoard.COLS || (mask & topBit(col)) != 0) {
+				throw new IllegalArgumentException("Illegal move " + moves.charAt(i) + " at " + (i + 1));
+			}
+			if ((BitBoard.getWinningCells(current, mask) & columnMask(col) & (mask + bottomBit(col))) != 0) {
+				throw new IllegalArgumentException("The game is over after move " + (i + 1));
+			}
+
+			current ^= mask;
+			mask |= mask + bottomBit(col);
+		}
+
+		return solve(current, mask, moves.length(), weak);
+	}
+
+	/**
+	 * @param current Coins of the player to move
+	 * @param mask All coins
+	 * @param moves The number of coins
+	 * @param weak True to only find out if the player to move wins, draws or loses
+	 * @return The solution
+	 */
+	Solution solve(long current, long mask, int moves, boolean weak) {
+		nodes = 0;
+
+		if (moves == CELLS) {
+			return new Solution(0, moves, weak);
+		}
+		if ((BitBoard.getWinningCells(current, mask) & possible(mask)) != 0) {
+			return new Solution(weak ? 1 : (CELLS + 1 - moves) / 2, moves, weak);
+		}
+
+		int min = weak ? -1 : -(CELLS - moves) / 2;
+		int max = weak ? 1 : (CELLS + 1 - moves) / 2;
+
+		// Binary search on the score, trying values near 0 first
+		while (min < max) {
+			int med = min + (max - min) / 2;
+			if (med <= 0 && min / 2 < med) {
+				med = min / 2;
+			} else if (med >= 0 && max / 2 > med) {
+				med = max / 2;
+			}
+
+			int r = negamax(current, mask, moves, med, med + 1);
+			if (r <= med) {
+				max = r;
+			} else {
+				min = r;
+			}
+		}
+
+		return new Solution(weak ? Integer.signum(min) : min, moves, weak);
+	}
+
+	/**
+	 * Scores a position where the player to move cannot win at once.
+	 *
+	 * @return The score if it is between alpha and beta, or else a bound
+	 *		on the same side of the window as the score
+	 */
+	private int negamax(long current, long mask, int moves, int alpha, int beta) {
+		nodes++;
+
+		long next = getNonLosingMoves(current, mask);
+		if (next == 0) {
+			// Every column lets the opponent win
+			return -(CELLS - moves) / 2;
+		}
+		if (moves >= CELLS - 2) {
+			// Neither player can win with the last two coins
+			return 0;
+		}
+
+		// The opponent cannot win with the next coin
+		int min = -(CELLS - 2 - moves) / 2;
+		if (alpha < min) {
+			alpha = min;
+			if (alpha >= beta) {
+				return alpha;
+			}
+		}
+
+		// The player to move cannot win with the next coin
+		int max = (CELLS - 1 - moves) / 2;
+
+		long key = current + mask;
+		int index = (int) (key % table.length);
+		long entry = table[index];
+		if (entry != 0 && (entry >>> 8) == key) {
+			int value = (int) (entry & 0xff);
+
+			if (value > MAX_SCORE - MIN_SCORE + 1) {
+				min = value + 2 * MIN_SCORE - MAX_SCORE - 2;
+				if (alpha < min) {
+					alpha = min;
+					if (alpha >= beta) {
+						return alpha;
+					}
+				}
+			} else {
+				max = value + MIN_SCORE - 1;
+			}
+		}
+
+		if (beta > max) {
+			beta = max;
+			if (alpha >= beta) {
+				return beta;
+			}
+		}
+
+		long[] sorted = sortedMoves[moves];
+		int[] scores = sortedScores[moves];
+		int count = 0;
+
+		// Sort by the number of threats after the move, center first for equal counts
+		for (int col : ORDER) {
+			long move = next & columnMask(col);
+			if (move != 0) {
+				int score = Long.bitCount(BitBoard.getWinningCells(current | move, mask));
+				int i = count++;
+				while (i > 0 && scores[i - 1] < score) {
+					sorted[i] = sorted[i - 1];
+					scores[i] = scores[i - 1];
+					i--;
+				}
+				sorted[i] = move;
+				scores[i] = score;
+			}
+		}
+
+		for (int i = 0; i < count; i++) {
+			long move = sorted[i];
+			int score = -negamax(current ^ mask, mask | move, moves + 1, -beta, -alpha);
+
+			if (score >= beta) {
+				table[index] = key << 8 | (score + MAX_SCORE - 2 * MIN_SCORE + 2);
+				return score;
+			}
+			if (score > alpha) {
+				alpha = score;
+			}
+		}
+
+		table[index] = key << 8 | (alpha - MIN_SCORE + 1);
+		return alpha;
+	}
+
+	/**
+	 * @return Cells that can be played, and do not let the opponent win at
+	 *		once. If the opponent has two threats to block, there are none.
+	 */
+	private static long getNonLosingMoves(long current, long mask) {
+		long possible = possible(mask);
+		long opponentWins = BitBoard.getWinningCells(current ^ mask, mask);
+		long forced = possible & opponentWins;
+
+		if (forced != 0) {
+			if ((forced & (forced - 1)) != 0) {
+				return 0;
+			}
+			possible = forced;
+		}
+
+		// Never play right below a cell where the opponent would win
+		return possible & ~(opponentWins >> 1);
+	}
+
+	/**
+	 * @return The cells where the next coin of each column lands
+	 */
+	private static long possible(long mask) {
+		return (mask + BitBoard.BOTTOM_MASK) & BitBoard.BOARD_MASK;
+	}
+
+	/**
+	 * @return Number of positions searched by the latest solve
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Empties the transposition table.
+	 */
+	public void clear() {
+		Arrays.fill(table, 0);
+	}
+
+	public static void main(String[] args) {
+		String moves = args.length > 0 ? args[0] : "";
+		boolean weak = args.length > 1 && args[1].equalsIgnoreCase("weak");
+
+		Solver solver = new Solver(args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_TABLE_SIZE);
+		long start = System.nanoTime();
+		Solution solution = solver.solve(moves, weak);
+		long time = Math.max(System.nanoTime() - start, 1);
+
+		System.out.println((moves.length() > 0 ? moves : "Empty board") + ": " + solution + " (score " + solution.getScore() + ")");
+		System.out.println(solver.getNodes() + " positions in " + time / 1000000 + " ms (" + (long) (solver.getNodes() * 1e9 / time) + " positions/s)");
+	}
+
+	private static long bottomBit(int col) {
+		return 1L << (col * BitBoard.HEIGHT);
+	}
+
+	private static long topBit(int col) {
+		return 1L << (SimpleBoard.ROWS - 1 + col * BitBoard.HEIGHT);
+	}
+
+	private static long columnMask(int col) {
+		return ((1L << SimpleBoard.ROWS) - 1) << (col * BitBoard.HEIGHT);
+	}
+}
@@ -0,0 +1,61 @@
+package connect4.ai;
+
+import connect4.BitBoard;
+import connect4.Player;
+
+/**
+ * Measures how the parallel search scales.
+ *
+ * Searches a few fixed positions to the same depth with 1, 2, 4 and 8
+ * threads, each time with an empty table, and prints the time to depth
+ * and the speedup compared to one thread.
+ *
+ * Usage: SpeedupReport [depth] [megabytes]
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class SpeedupReport {
+
+	/** Thread counts to compare */
+	private static final int[] THREADS = { 1, 2, 4, 8 };
+
+	/** Test positions as columns played, starting at 1 */
+	private static final String[] POSITIONS = { "", "44", "4453", "444326", "3345526" };
+
+	public static void main(String[] args) {
+		int depth = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+		int megabytes = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+
+		Player player1 = new Player("X");
+		Player player2 = new Player("O");
+		TranspositionTable table = new TranspositionTable(megabytes);
+
+		System.out.println("Depth " + depth + ", " + Runtime.getRuntime().availableProcessors() + " processors");
+		System.out.println(String.format("%-10s %8s %12s %14s %8s", "position", "threads", "time (ms)", "nodes", "speedup"));
+
+		for (String moves : POSITIONS) {
+			long baseline = 0;
+
+			for (int threads : THREADS) {
+				BitBoard board = new BitBoard();
+				Player current = player1;
+				for (int i = 0; i < moves.length(); i++) {
+					board.place(current, moves.charAt(i) - '1');
+					current = current == player1 ? player2 : player1;
+				}
+
+				table.clear();
+				ParallelEngine engine = new ParallelEngine(depth, threads, table);
+				engine.search(board, current, current == player1 ? player2 : player1);
+				engine.shutdown();
+
+				if (threads == 1) {
+					baseline = engine.getTime();
+				}
+
+				System.out.println(String.format("%-10s %8d %12d %14d %8.2f", moves.length() > 0 ? moves : "-", threads,
+						engine.getTime() / 1000000, engine.getNodes(), (double) baseline / engine.getTime()));
+			}
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package connect4.ai;
+
+import connect4.Board;
+import connect4.MoveOrdering;
+import connect4.Player;
+import connect4.SimpleBoard;
+
+/**
+ * Tries columns that win at once first, then columns that stop the
+ * opponent from winning at once, and then the rest in the order of
+ * another move ordering.
+ *
+ * Finding threats means trying every column for both players, which
+ * costs more than the other orderings. Neither player has three coins
+ * before five coins are placed, so earlier positions have no threats.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class ThreatFirstOrdering implements MoveOrdering {
+
+	/** Coins on the board before the first threat is possible */
+	private static final int MIN_MOVES = 2 * (SimpleBoard.N - 1) - 1;
+
+	private final MoveOrdering next;
+	private final int[] ranks = new int[SimpleBoard.COLS];
+
+	/**
+	 * @param next Ordering of the columns that are not threats, or null
+	 */
+	public ThreatFirstOrdering(MoveOrdering next) {
+		this.next = next;
+	}
+
+	@Override
+	public void order(Board board, Player player, Player opponent, int[] columns, int count) {
+		if (next != null) {
+			next.order(board, player, opponent, columns, count);
+		}
+		if (board.getMoveCount() < MIN_MOVES) {
+			return;
+		}
+
+		boolean threats = false;
+		for (int i = 0; i < count; i++) {
+			int col = columns[i];
+
+			if (isWin(board, player, col)) {
+				ranks[i] = 0;
+				threats = true;
+			} else if (isWin(board, opponent, col)) {
+				ranks[i] = 1;
+				threats = true;
+			} else {
+				ranks[i] = 2;
+			}
+		}
+		if (!threats) {
+			return;
+		}
+
+		// Stable sort on the rank, so the order of the next ordering is kept
+		for (int i = 1; i < count; i++) {
+			int col = columns[i];
+			int rank = ranks[i];
+			int j = i - 1;
+
+			while (j >= 0 && ranks[j] > rank) {
+				columns[j + 1] = columns[j];
+				ranks[j + 1] = ranks[j];
+				j--;
+			}
+			columns[j + 1] = col;
+			ranks[j + 1] = rank;
+		}
+	}
+
+	@Override
+	public void cutoff(Board board, int col, int depth) {
+		if (next != null) {
+			next.cutoff(board, col, depth);
+		}
+	}
+
+	@Override
+	public void clear() {
+		if (next != null) {
+			next.clear();
+		}
+	}
+
+	/**
+	 * @return True if the player wins by placing a coin in the column
+	 */
+	private static boolean isWin(Board board, Player player, int col) {
+		board.place(player, col);
+		boolean win = board.check() != null;
+		board.undo();
+		return win;
+	}
+}
@@ -0,0 +1,256 @@
+package connect4.ai;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import connect4.BitBoard;
+import connect4.Player;
+import connect4.SimpleBoard;
+
+/**
+ * Plays large batches of games between two computer players without
+ * any user interface, on all cores.
+ *
+ * The games are split into batches on a work-stealing pool. Every worker
+ * thread has its own board and its own pair of players, and the results of
+ * the batches are added together at the end.
+ *
+ * Every game gets its own random seed, made from the tournament seed and
+ * the number of the game. The first coins of a game are random, so the games
+ * differ, and the players take turns to start. Engines search without a time
+ * limit, and tables are cleared before every game. A game therefore plays
+ * the same no matter which thread plays it or what it played before, and
+ * the results only depend on the seed, not on the number of threads.
+ *
+ * A player is given as "random", "computer:depth:megabytes" or
+ * "mcts:playouts", where the megabytes of the transposition table are
+ * optional and default to none. Monte Carlo players search on one thread.
+ *
+ * Usage: Tournament games playerA playerB [seed] [threads] [openingMoves]
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class Tournament {
+
+	/** Random coins at the start of every game */
+	public static final int DEFAULT_OPENING_MOVES = 2;
+
+	/** Games played in one task before it is split no further */
+	private static final int BATCH_SIZE = 16;
+
+	private final String playerA;
+	private final String playerB;
+	private final long seed;
+	private final int openingMoves;
+
+	/** The board and players of each worker thread */
+	private final ThreadLocal<Worker> workers = new ThreadLocal<Worker>() {
+		@Override
+		protected Worker initialValue() {
+			return new Worker();
+		}
+	};
+
+	/**
+	 * @param a Description of player A
+	 * @param b Description of player B
+	 * @param seed The seed of the games
+	 * @param openingMoves Number of random coins at the start of every game
+	 */
+	public Tournament(String a, String b, long seed, int openingMoves) {
+		// Fail at once on bad descriptions, not in a worker
+		createPlayer(a, "A");
+		createPlayer(b, "B");
+
+		playerA = a;
+		playerB = b;
+		this.seed = seed;
+		this.openingMoves = openingMoves;
+	}
+
+	/**
+	 * Plays a number of games.
+	 *
+	 * @param games The number of games
+	 * @param threads The number of threads
+	 * @return The results
+	 */
+	public TournamentResult play(int games, int threads) {
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			return pool.invoke(new Batch(0, games));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Creates a player from a description.
+	 *
+	 * @param description "random", "computer:depth:megabytes" or "mcts:playouts"
+	 * @param name The player name
+	 * @return The player
+	 */
+	static ComputerPlayer createPlayer(String description, String name) {
+		String[] parts = description.split(":");
+
+		if (parts[0].equalsIgnoreCase("random")) {
+			return new ComputerPlayer(name, new RandomEngine());
+		}
+		if (parts[0].equalsIgnoreCase("computer")) {
+			int depth = parts.length > 1 ? Integer.parseInt(parts[1]) : ComputerPlayer.DEFAULT_DEPTH;
+			int megabytes = parts.length > 2 ? Integer.parseInt(parts[2]) : 0;
+
+			TranspositionTable table = megabytes > 0 ? new TranspositionTable(megabytes) : null;
+			return new ComputerPlayer(name, new NegamaxEngine(depth, Long.MAX_VALUE, table));
+		}
+		if (parts[0].equalsIgnoreCase("mcts")) {
+			long playouts = parts.length > 1 ? Long.parseLong(parts[1]) : MctsEngine.DEFAULT_PLAYOUTS;
+			return new ComputerPlayer(name, new MctsEngine(playouts, 1));
+		}
+		throw new IllegalArgumentException("Unknown player " + description);
+	}
+
+	/**
+	 * Mixes the tournament seed and the number of a game (SplitMix64),
+	 * so neighbouring games get unrelated seeds.
+	 *
+	 * @param game The number of the game
+	 * @return The seed of the game
+	 */
+	private long getGameSeed(int game) {
+		long z = seed + (game + 1) * 0x9e3779b97f4a7c15L;
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * The state of one worker thread.
+	 */
+	private class Worker {
+		private final BitBoard board = new BitBoard();
+		private final ComputerPlayer a = createPlayer(playerA, "A");
+		private final ComputerPlayer b = createPlayer(playerB, "B");
+		private final Random random = new Random();
+		private final int[] columns = new int[SimpleBoard.COLS];
+
+		/**
+		 * Plays a game and adds its result.
+		 *
+		 * @param game The number of the game
+		 * @param result The results to add to
+		 */
+		void play(int game, TournamentResult result) {
+			long gameSeed = getGameSeed(game);
+			random.setSeed(gameSeed);
+			prepare(a, gameSeed);
+			prepare(b, ~gameSeed);
+
+			boolean aFirst = game % 2 == 0;
+			ComputerPlayer current = aFirst ? a : b;
+			ComputerPlayer other = aFirst ? b : a;
+			Player winner = null;
+			int firstCol = -1;
+
+			board.clear();
+			while (winner == null && !board.isFull()) {
+				int col;
+				if (board.getMoveCount() < openingMoves) {
+					col = columns[random.nextInt(board.getMoves(columns, null, current, other))];
+				} else {
+					col = current.getEngine().search(board, current, other);
+				}
+				if (firstCol == -1) {
+					firstCol = col;
+				}
+
+				board.place(current, col);
+				winner = board.check();
+
+				ComputerPlayer p = current;
+				current = other;
+				other = p;
+			}
+
+			int outcome = winner == null ? TournamentResult.DRAW
+					: winner == a ? TournamentResult.WIN : TournamentResult.LOSS;
+			result.add(outcome, aFirst, firstCol, board.getMoveCount());
+		}
+
+		/**
+		 * Makes a player play the same way whenever it plays this game.
+		 */
+		private void prepare(ComputerPlayer player, long gameSeed) {
+			Engine engine = player.getEngine();
+
+			if (engine instanceof RandomEngine) {
+				((RandomEngine) engine).setSeed(gameSeed);
+			} else if (engine instanceof NegamaxEngine && ((NegamaxEngine) engine).getTable() != null) {
+				((NegamaxEngine) engine).getTable().clear();
+			}
+		}
+	}
+
+	/**
+	 * A range of games, split in halves until it is small enough to play.
+	 */
+	private class Batch extends RecursiveTask<TournamentResult> {
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+
+		/**
+		 * @param from The number of the first game
+		 * @param to The number after the last game
+		 */
+		Batch(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected TournamentResult compute() {
+			if (to - from <= BATCH_SIZE) {
+				TournamentResult result = new TournamentResult();
+				Worker worker = workers.get();
+				for (int game = from; game < to; game++) {
+					worker.play(game, result);
+				}
+				return result;
+			}
+
+			int middle = (from + to) >>> 1;
+			Batch left = new Batch(from, middle);
+			left.fork();
+
+			TournamentResult result = new Batch(middle, to).compute();
+			result.merge(left.join());
+			return result;
+		}
+	}
+
+	public static void main(String[] args) {
+		if (args.length < 3) {
+			System.out.println("Usage: Tournament games playerA playerB [seed] [threads] [openingMoves]");
+			return;
+		}
+
+		int games = Integer.parseInt(args[0]);
+		long seed = args.length > 3 ? Long.parseLong(args[3]) : 0;
+		int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+		int openingMoves = args.length > 5 ? Integer.parseInt(args[5]) : DEFAULT_OPENING_MOVES;
+
+		Tournament tournament = new Tournament(args[1], args[2], seed, openingMoves);
+
+		long start = System.nanoTime();
+		TournamentResult result = tournament.play(games, threads);
+		long time = Math.max(System.nanoTime() - start, 1);
+
+		System.out.println("A: " + args[1] + ", B: " + args[2] + ", seed " + seed + ", " + threads + " threads");
+		System.out.print(result);
+		System.out.println(String.format("%.0f games/s", games * 1e9 / time));
+	}
+}
@@ -0,0 +1,136 @@
+package connect4.ai;
+
+import connect4.SimpleBoard;
+
+/**
+ * Results of a batch of games between two players, A and B.
+ *
+ * Results of separate batches can be added together with merge(), in any
+ * order, so games can be played on many threads and still give the same
+ * totals.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class TournamentResult {
+
+	/** Index of a win in the opening results */
+	public static final int WIN = 0;
+	/** Index of a draw in the opening results */
+	public static final int DRAW = 1;
+	/** Index of a loss in the opening results */
+	public static final int LOSS = 2;
+
+	private long wins;
+	private long draws;
+	private long losses;
+	private long moves;
+
+	/** Results of the first player, by the column of the first coin */
+	private final long[][] openings = new long[SimpleBoard.COLS][3];
+
+	/**
+	 * Adds the result of one game.
+	 *
+	 * @param outcome WIN, DRAW or LOSS, seen from player A
+	 * @param aFirst True if player A placed the first coin
+	 * @param firstCol The column of the first coin
+	 * @param length The number of coins placed
+	 */
+	public void add(int outcome, boolean aFirst, int firstCol, int length) {
+		if (outcome == WIN) {
+			wins++;
+		} else if (outcome == DRAW) {
+			draws++;
+		} else {
+			losses++;
+		}
+		moves += length;
+
+		// Seen from the player who placed the first coin
+		int firstOutcome = aFirst || outcome == DRAW ? outcome : LOSS - outcome;
+		openings[firstCol][firstOutcome]++;
+	}
+
+	/**
+	 * Adds the results of another batch to this one.
+	 *
+	 * @param other The other results
+	 */
+	public void merge(TournamentResult other) {
+		wins += other.wins;
+		draws += other.draws;
+		losses += other.losses;
+		moves += other.moves;
+
+		for (int i = 0; i < openings.length; i++) {
+			for (int j = 0; j < openings[i].length; j++) {
+				openings[i][j] += other.openings[i][j];
+			}
+		}
+	}
+
+	/**
+	 * @return The number of games played
+	 */
+	public long getGames() {
+		return wins + draws + losses;
+	}
+
+	/**
+	 * @return Games won by player A
+	 */
+	public long getWins() {
+		return wins;
+	}
+
+	/**
+	 * @return Games that ended in a draw
+	 */
+	public long getDraws() {
+		return draws;
+	}
+
+	/**
+	 * @return Games lost by player A
+	 */
+	public long getLosses() {
+		return losses;
+	}
+
+	/**
+	 * @return The average number of coins placed per game
+	 */
+	public double getAverageLength() {
+		long games = getGames();
+		return games > 0 ? (double) moves / games : 0;
+	}
+
+	/**
+	 * @param col The column of the first coin
+	 * @param outcome WIN, DRAW or LOSS
+	 * @return Games with the given outcome for the player who placed the first coin
+	 */
+	public long getOpeningResult(int col, int outcome) {
+		return openings[col][outcome];
+	}
+
+	/**
+	 * @return A report of the results
+	 */
+	@Override
+	public String toString() {
+		long games = Math.max(getGames(), 1);
+		StringBuilder s = new StringBuilder();
+
+		s.append(String.format("%d games, A won %d (%.1f%%), drew %d (%.1f%%), lost %d (%.1f%%)%n", getGames(),
+				wins, 100.0 * wins / games, draws, 100.0 * draws / games, losses, 100.0 * losses / games));
+		s.append(String.format("Average length %.2f coins%n", getAverageLength()));
+		s.append(String.format("%-8s %10s %10s %10s%n", "opening", "win", "draw", "loss"));
+
+		for (int col = 0; col < openings.length; col++) {
+			s.append(String.format("%-8d %10d %10d %10d%n", col + 1, openings[col][WIN], openings[col][DRAW],
+					openings[col][LOSS]));
+		}
+		return s.toString();
+	}
+}
@@ -0,0 +1,309 @@
+package connect4.ai;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size table of search results, stored outside the Java heap.
+ *
+ * Every entry is packed into one 64-bit word:
+ *
+ *	 63..32  upper half of the position key, used to verify the entry
+ *	 31..24  search depth
+ *	 23..22  bound, see EXACT, LOWER and UPPER (0 means empty)
+ *	 21..19  best column, or 7 if there is none
+ *	 18..16  generation of the search that stored the entry
+ *	 15..0   score
+ *
+ * The lower bits of the key select a bucket of two entries. The first
+ * entry keeps the deepest result, unless it was stored by an older search,
+ * and the second entry is always replaced.
+ *
+ * Words are read and written with single atomic accesses. An entry is either
+ * seen whole or not at all, and entries are verified against the key, so
+ * threads can share the table without locks. Concurrent stores to the same
+ * bucket may lose one of the results, which only costs a little search.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class TranspositionTable {
+
+	/** The score is exact */
+	public static final int EXACT = 1;
+	/** The score is a lower bound, the search failed high */
+	public static final int LOWER = 2;
+	/** The score is an upper bound, the search failed low */
+	public static final int UPPER = 3;
+
+	/** Column stored when there is no best column */
+	public static final int NO_MOVE = 7;
+
+	/** Words per direct buffer, 1 GB each */
+	private static final int SEGMENT_BITS = 27;
+
+	/** Number of buckets looked at by getFillRate() */
+	private static final int FILL_SAMPLE = 1000;
+
+	private static final VarHandle WORDS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+	private final ByteBuffer[] segments;
+	private final long buckets;
+	private final long mask;
+	private volatile int generation;
+
+	private final LongAdder probes = new LongAdder();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder collisions = new LongAdder();
+	private final LongAdder stores = new LongAdder();
+	private final LongAdder overwrites = new LongAdder();
+
+	/**
+	 * Creates a table of the given size. The number of buckets is rounded
+	 * down to a power of two.
+	 *
+	 * @param megabytes The size of the table
+	 */
+	public TranspositionTable(int megabytes) {
+		if (megabytes < 1) {
+			throw new IllegalArgumentException("The table must be at least 1 MB");
+		}
+
+		long words = Long.highestOneBit(megabytes * (1L << 20) / 8);
+		int segmentWords = (int) Math.min(words, 1L << SEGMENT_BITS);
+
+		segments = new ByteBuffer[(int) (words / segmentWords)];
+		for (int i = 0; i < segments.length; i++) {
+			segments[i] = ByteBuffer.allocateDirect(segmentWords * 8).order(ByteOrder.nativeOrder());
+		}
+
+		buckets = words / 2;
+		mask = buckets - 1;
+	}
+
+	/**
+	 * Looks up a position.
+	 *
+	 * @param key The position key
+	 * @return The entry, or 0 if the position is not in the table
+	 */
+	public long probe(long key) {
+		long index = (key & mask) * 2;
+		int check = (int) (key >>> 32);
+
+		probes.increment();
+
+		long first = read(index);
+		if (first != 0 && (int) (first >>> 32) == check) {
+			hits.increment();
+			return first;
+		}
+
+		long second = read(index + 1);
+		if (second != 0 && (int) (second >>> 32) == check) {
+			hits.increment();
+			return second;
+		}
+
+		if (first != 0 || second != 0) {
+			collisions.increment();
+		}
+		return 0;
+	}
+
+	/**
+	 * Stores a search result.
+	 *
+	 * @param key The position key
+	 * @param depth The search depth
+	 * @param bound EXACT, LOWER or UPPER
+	 * @param move The best column, or NO_MOVE
+	 * @param score The score
+	 */
+	public void store(long key, int depth, int bound, int move, int score) {
+		long index = (key & mask) * 2;
+		int check = (int) (key >>> 32);
+		int gen = generation;
+
+		long entry = ((long) check << 32)
+				| ((long) (depth & 0xff) << 24)
+				| ((bound & 0x3) << 22)
+				| ((move & 0x7) << 19)
+				| ((gen & 0x7) << 16)
+				| (score & 0xffff);
+
+		stores.increment();
+
+		long first = read(index);
+		boolean same = first != 0 && (int) (first >>> 32) == check;
+
+		// Keep the deeper result of the current search in the first entry
+		if (first == 0 || same || getGeneration(first) != gen || depth >= getDepth(first)) {
+			if (first != 0 && !same) {
+				overwrites.increment();
+			}
+			write(index, entry);
+			return;
+		}
+
+		long second = read(index + 1);
+		if (second != 0 && (int) (second >>> 32) != check) {
+			overwrites.increment();
+		}
+		write(index + 1, entry);
+	}
+
+	/**
+	 * Starts a new search. Entries from earlier searches are replaced first.
+	 */
+	public void newSearch() {
+		generation = (generation + 1) & 0x7;
+	}
+
+	/**
+	 * Empties the table and resets the counters.
+	 */
+	public void clear() {
+		for (ByteBuffer segment : segments) {
+			for (int i = 0; i < segment.capacity(); i += 8) {
+				WORDS.setOpaque(segment, i, 0L);
+			}
+		}
+		probes.reset();
+		hits.reset();
+		collisions.reset();
+		stores.reset();
+		overwrites.reset();
+	}
+
+	/**
+	 * @return The size of the table in bytes
+	 */
+	public long getSize() {
+		return buckets * 16;
+	}
+
+	/**
+	 * @return Number of lookups
+	 */
+	public long getProbes() {
+		return probes.sum();
+	}
+
+	/**
+	 * @return Number of lookups that found the position
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return Number of lookups that found only other positions in the bucket
+	 */
+	public long getCollisions() {
+		return collisions.sum();
+	}
+
+	/**
+	 * @return Number of stored results
+	 */
+	public long getStores() {
+		return stores.sum();
+	}
+
+	/**
+	 * @return Number of stores that replaced another position
+	 */
+	public long getOverwrites() {
+		return overwrites.sum();
+	}
+
+	/**
+	 * Estimates how full the table is from the first buckets.
+	 * Entries from earlier searches are counted as empty.
+	 *
+	 * @return Fraction of the entries in use, between 0 and 1
+	 */
+	public double getFillRate() {
+		long sample = Math.min(buckets, FILL_SAMPLE) * 2;
+		int gen = generation;
+		int used = 0;
+
+		for (long i = 0; i < sample; i++) {
+			long entry = read(i);
+			if (entry != 0 && getGeneration(entry) == gen) {
+				used++;
+			}
+		}
+		return (double) used / sample;
+	}
+
+	/**
+	 * @return The counters, for reports
+	 */
+	@Override
+	public String toString() {
+		long p = getProbes();
+		return String.format("%d MB table: %d probes, %.1f%% hits, %d collisions, %d stores, %d overwrites, %.1f%% full",
+				getSize() >> 20, p, p > 0 ? 100.0 * getHits() / p : 0.0, getCollisions(), getStores(), getOverwrites(),
+				100 * getFillRate());
+	}
+
+	/**
+	 * @param entry An entry
+	 * @return The search depth of the entry
+	 */
+	public static int getDepth(long entry) {
+		return (int) (entry >>> 24) & 0xff;
+	}
+
+	/**
+	 * @param entry An entry
+	 * @return EXACT, LOWER or UPPER
+	 */
+	public static int getBound(long entry) {
+		return (int) (entry >>> 22) & 0x3;
+	}
+
+	/**
+	 * @param entry An entry
+	 * @return The best column, or NO_MOVE
+	 */
+	public static int getMove(long entry) {
+		return (int) (entry >>> 19) & 0x7;
+	}
+
+	/**
+	 * @param entry An entry
+	 * @return The score of the entry
+	 */
+	public static int getScore(long entry) {
+		return (short) entry;
+	}
+
+	/**
+	 * @param entry An entry
+	 * @return The generation of the search that stored the entry
+	 */
+	private static int getGeneration(long entry) {
+		return (int) (entry >>> 16) & 0x7;
+	}
+
+	/**
+	 * @param index Index of a word
+	 * @return The word
+	 */
+	private long read(long index) {
+		return (long) WORDS.getOpaque(segments[(int) (index >>> SEGMENT_BITS)], (int) (index & ((1 << SEGMENT_BITS) - 1)) << 3);
+	}
+
+	/**
+	 * @param index Index of a word
+	 * @param word The new value
+	 */
+	private void write(long index, long word) {
+		WORDS.setOpaque(segments[(int) (index >>> SEGMENT_BITS)], (int) (index & ((1 << SEGMENT_BITS) - 1)) << 3, word);
+	}
+}
@@ -0,0 +1,84 @@
+package connect4.gui;
+
+/**
+ * Clock for animations that are simulated in fixed steps of time.
+ * 
+ * The timer that drives an animation does not fire at an exact rate, and
+ * repaints may be merged. Instead of one step per frame, the clock counts
+ * how many whole steps of simulation time have passed since the last frame,
+ * measured with System.nanoTime(). The rest of a step is kept for the next
+ * frame, and tells how far the frame is between two steps, so positions
+ * can be interpolated.
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class AnimationClock {
+	
+	/** Most steps taken in one frame, so a stalled frame does not freeze the next */
+	public static final int MAX_STEPS = 25;
+	
+	private final long stepNanos;
+	private long last;
+	private long accumulator;
+	
+	/**
+	 * @param step Nanoseconds of simulation time in one step
+	 */
+	public AnimationClock(long step) {
+		stepNanos = step;
+	}
+	
+	/**
+	 * Starts counting from now.
+	 */
+	public void start() {
+		start(System.nanoTime());
+	}
+	
+	/**
+	 * @param now The time to count from, in nanoseconds
+	 */
+	public void start(long now) {
+		last = now;
+		accumulator = 0;
+	}
+	
+	/**
+	 * @return The number of steps to simulate since the last call
+	 */
+	public int advance() {
+		return advance(System.nanoTime());
+	}
+	
+	/**
+	 * @param now The current time, in nanoseconds
+	 * @return The number of steps to simulate since the last call
+	 */
+	public int advance(long now) {
+		accumulator += now - last;
+		last = now;
+		
+		long steps = accumulator / stepNanos;
+		if (steps > MAX_STEPS) {
+			// Too far behind, skip the time instead of catching up
+			accumulator = 0;
+			return MAX_STEPS;
+		}
+		accumulator -= steps * stepNanos;
+		return (int) steps;
+	}
+	
+	/**
+	 * @return How far the time is between the last step and the next, from 0 to 1
+	 */
+	public double getAlpha() {
+		return accumulator / (double) stepNanos;
+	}
+	
+	/**
+	 * @return Nanoseconds of simulation time in one step
+	 */
+	public long getStep() {
+		return stepNanos;
+	}
+}
@@ -1,28 +1,58 @@
 package connect4.gui;
 
+import java.awt.AlphaComposite;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.Point;
 import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
-import java.awt.geom.Area;
-import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import javax.swing.JFrame;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 
-import connect4.Cell;
+import connect4.BitBoard;
 import connect4.Game;
+import connect4.Player;
 import connect4.SimpleBoard;
 import connect4.Sound;
+import connect4.ai.Analysis;
+import connect4.ai.AnalysisListener;
+import connect4.ai.Analyzer;
+import connect4.ai.ComputerPlayer;
 
 /**
  * The GUI implementation of our Connect 4 game
+ * 
+ * The game only repaints when something changes: a click, the mouse moving
+ * to another column, a computer move, or a step of the falling coin. The
+ * falling coin is moved by a timer that only runs while a coin falls, so
+ * an idle game uses no CPU. The grid is drawn once into an image, which
+ * is then copied on top of the coins in every frame.
+ * 
+ * All state is changed on the event dispatch thread, which publishes an
+ * immutable GameSnapshot after every change. Painting only reads the
+ * latest snapshot, so it never sees a change half done.
+ * 
+ * While a human player thinks, every column is scored in the background
+ * and the scores are shown above the board. The analysis is cancelled
+ * when a coin is placed, and never makes the event dispatch thread wait.
+ * 
  * @author Andre, Mazen, Pierre & Jacob
  */
 @SuppressWarnings("serial")
@@ -35,6 +65,39 @@ public class GUIGame extends JFrame implements Game {
 	/** Coin width and height */
 	public static int COIN_WIDTH = 80;
 	public static int COIN_HEIGHT = 80;
+	/** Time in milliseconds a computer player may think, unless told otherwise */
+	public static long COMPUTER_TIME_LIMIT = 2000;
+	/** Colors of the first and the second player */
+	public static Color PLAYER1_COLOR = Color.BLUE;
+	public static Color PLAYER2_COLOR = Color.GREEN;
+	/** Milliseconds between the frames of the falling coin */
+	public static int ANIMATION_DELAY = 10;
+	/**
+	 * How fast coins fall, 1 is normal and 0 places them at once.
+	 * Set with the system property connect4.animation.
+	 */
+	public static double ANIMATION_SPEED = Double.parseDouble(System.getProperty("connect4.animation", "1"));
+	/** The least speed when two computers play each other */
+	public static double COMPUTER_ANIMATION_SPEED = 4;
+	/** Simulated time of one step of the falling coin */
+	private static final long ANIMATION_STEP = 10000000L;
+	/** Steps after which a coin is placed even if it still bounces */
+	private static final int MAX_ANIMATION_STEPS = 400;
+	/**
+	 * Threads scoring the columns while a human player thinks, 0 for none.
+	 * Set with the system property connect4.analysis.
+	 */
+	public static int ANALYSIS_THREADS = Integer.getInteger("connect4.analysis", 1);
+	/** Deepest search of a column by the analysis */
+	public static int ANALYSIS_DEPTH = Analyzer.DEFAULT_MAX_DEPTH;
+	/** Size in megabytes of the transposition table of the analysis */
+	private static final int ANALYSIS_TABLE_SIZE = 16;
+	
+	private static final String TITLE = "Connect4 (C) 2012 Andr, Mazen, Pierre & Jacob";
+	private static final Color GRID_COLOR = Color.DARK_GRAY;
+	private static final Font TITLE_FONT = new Font("Verdana", Font.ITALIC, 30);
+	private static final Font HINT_FONT = new Font("Verdana", Font.ITALIC, 20);
+	private static final Font ANALYSIS_FONT = new Font("Verdana", Font.PLAIN, 12);
 	
 	/** Game playing state */
 	public static enum State { 
@@ -51,78 +114,365 @@ public class GUIGame extends JFrame implements Game {
 		ANIMATION,
 	};
 	
-	private SimpleBoard board;
-	private GUIPlayer player1;
-	private GUIPlayer player2;
-	private GUIPlayer winner;
-	private GUIPlayer current;
+	private BitBoard board;
+	private final Player player1;
+	private final Player player2;
+	private Player winner;
+	private Player current;
 	private Canvas canvas;
 	private State state;
 	private PlayState playState;
 	private int nextCoinColumn;
 	private int queueColumn;
 	private double droppingCoinX, droppingCoinY, droppingCoinDeltaY, droppingCoinBottom, droppingCoinEnergyLoss;
+	/** Position of the falling coin before the last step, for interpolation */
+	private double droppingCoinLastY;
+	private int droppingCoinSteps;
+	private double animationSpeed;
+	private AnimationClock clock;
+	/** Runs the searches of computer players, away from the event dispatch thread */
+	private final ExecutorService computerExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "computer-player");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+	/** The running computer search, or null */
+	private Future<?> computerMove;
+	/** Identifies the latest computer search, so results of cancelled searches are ignored */
+	private int computerMoveId;
+	/** Moves the falling coin, runs only during the animation */
+	private final Timer animationTimer;
+	/** What is painted, replaced after every change of the game */
+	private volatile GameSnapshot snapshot;
+	/** The grid with holes for the coins, drawn on first use */
+	private BufferedImage gridImage;
+	/** Scores the columns while a human player thinks, or null */
+	private final Analyzer analyzer;
+	/** Id of the analysis of the current position, or 0 */
+	private int analysisId;
+	/** The latest scores of the analysis of the current position, or null */
+	private Analysis analysis;
 	
 	/**
 	 * Constructor.
 	 */
 	public GUIGame() {
+		this(new GUIPlayer("X", PLAYER1_COLOR), new GUIPlayer("O", PLAYER2_COLOR));
+	}
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param p1 The player who starts
+	 * @param p2 The other player
+	 */
+	public GUIGame(Player p1, Player p2) {
+		player1 = p1;
+		player2 = p2;
+		
+		// Start loading the sounds before the first click
+		Sound.getPlayer();
 		
 		initialize();
 		
+		animationSpeed = ANIMATION_SPEED;
+		if (p1 instanceof ComputerPlayer && p2 instanceof ComputerPlayer && animationSpeed > 0) {
+			animationSpeed = Math.max(animationSpeed, COMPUTER_ANIMATION_SPEED);
+		}
+		
+		analyzer = ANALYSIS_THREADS > 0 ? new Analyzer(ANALYSIS_THREADS, ANALYSIS_DEPTH, ANALYSIS_TABLE_SIZE) : null;
+		
+		animationTimer = new Timer(ANIMATION_DELAY, new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				stepAnimation();
+			}
+		});
+		
 		canvas = new Canvas();
 		canvas.setPreferredSize(new Dimension(CANVAS_WIDTH, CANVAS_HEIGHT));
 		setContentPane(canvas);
 		setSize(CANVAS_WIDTH, CANVAS_HEIGHT);
 		setDefaultCloseOperation(EXIT_ON_CLOSE);
 		setLocationRelativeTo(null);
-		setTitle("Connect4 (C) 2012 Andr, Mazen, Pierre & Jacob");
+		setTitle(TITLE);
 		pack();
 		setVisible(true);
-		
-		start();
 	}
 	
 	/**
 	 * Initialize the game. 
-	 * Create the board and players, and give them colors and names.
+	 * Create the board.
 	 */
 	private void initialize() {
-		board = new SimpleBoard();
-		player1 = new GUIPlayer("X", Color.BLUE);
-		player2 = new GUIPlayer("O", Color.GREEN);
+		board = new BitBoard();
 		nextCoinColumn = 0;
 		current = player1;
 	}
 	
 	/**
-	 * Start the thread that runs the game loop.
+	 * Lets the current computer player search a copy of the board on the
+	 * computer thread. The chosen column is handed back on the event dispatch
+	 * thread, where the coin is dropped like a mouse click would.
 	 */
-	private void start() {
-		Thread thread = new Thread(new Runnable() {
+	private void startComputerMove() {
+		final ComputerPlayer computer = (ComputerPlayer) current;
+		final Player opponent = current == player1 ? player2 : player1;
+		final BitBoard copy = new BitBoard(board);
+		final int id = ++computerMoveId;
+		// Asked for here, so a cancel stops the search even before it starts
+		final int request = computer.request();
+		
+		computerMove = computerExecutor.submit(new Runnable() {
 			public void run() {
-				loop();
+				final int col = computer.chooseColumn(copy, opponent, request);
+				// Only the first line fits in the title bar, the rest is the table
+				final String report = computer.getReport().split("\n")[0];
+				
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						// The game was restarted while searching
+						if (id != computerMoveId || state != State.PLAYING) {
+							return;
+						}
+						
+						computerMove = null;
+						setTitle(TITLE + " - " + report);
+						Sound.play("sound/click.wav");
+						
+						startAnimation(col);
+					}
+				});
+			}
+		});
+	}
+	
+	/**
+	 * Stops the running computer search, if any, and makes sure its
+	 * column is never played.
+	 */
+	private void cancelComputerMove() {
+		computerMoveId++;
+		
+		if (computerMove != null) {
+			for (Player p : new Player[] { player1, player2 }) {
+				if (p instanceof ComputerPlayer) {
+					((ComputerPlayer) p).stop();
+				}
+			}
+			computerMove.cancel(true);
+			computerMove = null;
+		}
+	}
+	
+	/**
+	 * Waits for the current player. A computer player is asked to
+	 * choose a column at once, since it does not use the mouse, and
+	 * for a human player the columns are analysed.
+	 */
+	private void waitForPlayer() {
+		playState = PlayState.WAITING_FOR_PLAYER;
+		
+		if (current instanceof ComputerPlayer) {
+			if (computerMove == null) {
+				startComputerMove();
+			}
+		} else {
+			startAnalysis();
+		}
+		publish();
+	}
+	
+	/**
+	 * Starts scoring the columns for the current player. The scores
+	 * arrive on the analysis threads, which hand them to the event
+	 * dispatch thread without waiting for it.
+	 */
+	private void startAnalysis() {
+		if (analyzer == null) {
+			return;
+		}
+		
+		analysis = null;
+		analysisId = analyzer.start(board, current, current == player1 ? player2 : player1, new AnalysisListener() {
+			public void update(final Analysis a) {
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						showAnalysis(a);
+					}
+				});
 			}
 		});
+	}
+	
+	/**
+	 * Publishes new scores, unless they are of an earlier position.
+	 * Only the row above the board is repainted.
+	 * 
+	 * @param a The scores
+	 */
+	private void showAnalysis(Analysis a) {
+		if (a.getId() != analysisId) {
+			return;
+		}
+		
+		analysis = a;
+		snapshot = createSnapshot();
+		canvas.repaint(0, 0, CANVAS_WIDTH, 90);
+	}
+	
+	/**
+	 * Stops the analysis and hides its scores.
+	 */
+	private void cancelAnalysis() {
+		if (analyzer != null && analysisId != 0) {
+			analyzer.cancel();
+			analysisId = 0;
+			analysis = null;
+		}
+	}
+	
+	/**
+	 * @param speed How fast coins fall, 1 is normal and 0 places them at once
+	 */
+	public void setAnimationSpeed(double speed) {
+		animationSpeed = speed;
+	}
+	
+	/**
+	 * Starts dropping a coin in a column.
+	 * 
+	 * @param col The column
+	 */
+	private void startAnimation(int col) {
+		cancelAnalysis();
+		
+		queueColumn = col;
+		droppingCoinBottom = getBottomOfColumn(queueColumn);
+		droppingCoinX = getPositionAtCanvas(SimpleBoard.ROWS, queueColumn).getX();
+		droppingCoinY = 0;
+		droppingCoinLastY = 0;
+		droppingCoinDeltaY = 5;
+		droppingCoinEnergyLoss = 0.2;
+		droppingCoinSteps = 0;
+		
+		playState = PlayState.ANIMATION;
+		if (animationSpeed <= 0) {
+			placeCoin();
+			return;
+		}
+		
+		clock = new AnimationClock((long) (ANIMATION_STEP / animationSpeed));
+		clock.start();
+		animationTimer.start();
+		publish();
+	}
+	
+	/**
+	 * Moves the falling coin by the steps of simulated time since the
+	 * last frame, so it falls just as fast however often the timer fires.
+	 */
+	private void stepAnimation() {
+		if (state != State.PLAYING || playState != PlayState.ANIMATION) {
+			animationTimer.stop();
+			return;
+		}
+		
+		for (int steps = clock.advance(); steps > 0; steps--) {
+			if (stepCoin()) {
+				placeCoin();
+				return;
+			}
+		}
 		
-		thread.start();
+		publish();
 	}
 	
 	/**
-	 * The main game loop.
+	 * Moves the falling coin one step.
+	 * 
+	 * @return True when the coin stands still
 	 */
-	private void loop() {		
-		while (true) {
-			repaint();
+	private boolean stepCoin() {
+		droppingCoinLastY = droppingCoinY;
+		droppingCoinDeltaY += 0.1;
+		droppingCoinY += droppingCoinDeltaY;
+		
+		if (droppingCoinY > (droppingCoinBottom - COIN_HEIGHT)) {
+			droppingCoinY = droppingCoinBottom - COIN_HEIGHT;
 			
-			try {
-				Thread.sleep( 10 );
-			} catch (InterruptedException e) {}
+			droppingCoinDeltaY *= -1;
+			droppingCoinDeltaY *= droppingCoinEnergyLoss;
+		}
+		
+		return (droppingCoinY >= (droppingCoinBottom - COIN_HEIGHT) && droppingCoinDeltaY > -0.012)
+				|| ++droppingCoinSteps >= MAX_ANIMATION_STEPS;
+	}
+	
+	/**
+	 * Places the falling coin on the board, and the game goes on or ends.
+	 */
+	private void placeCoin() {
+		// The coin is now standing still
+		// Place the coin on the board and return to waiting state
+		animationTimer.stop();
+		
+		board.place(current, queueColumn);
+		winner = board.check();
+		current = current == player1 ? player2 : player1;
+		
+		if (winner != null) {
+			state = State.WINNER;
+			Sound.play("sound/winner.wav");
+		} else if (board.isFull()) {
+			state = State.DRAW;
+			Sound.play("sound/draw.wav");
+		}
+		else {
+			waitForPlayer();
+		}
+		
+		publish();
+	}
+	
+	/**
+	 * Starts a new game.
+	 */
+	private void restart() {
+		cancelComputerMove();
+		cancelAnalysis();
+		animationTimer.stop();
+		board = new BitBoard();
+		current = player1;
+		state = State.PLAYING;
+		waitForPlayer();
+	}
+	
+	/**
+	 * Publishes a snapshot of the game and repaints it.
+	 */
+	private void publish() {
+		snapshot = createSnapshot();
+		canvas.repaint();
+	}
+	
+	/**
+	 * @return A snapshot of the game as it is now
+	 */
+	private GameSnapshot createSnapshot() {
+		double y = droppingCoinY;
+		if (playState == PlayState.ANIMATION && clock != null) {
+			// Between the last two steps of the falling coin
+			y = droppingCoinLastY + (droppingCoinY - droppingCoinLastY) * clock.getAlpha();
 		}
+		return new GameSnapshot(state, playState, player1, player2, board, current, winner, nextCoinColumn, droppingCoinX, y,
+				analysisId, analysis);
 	}
 	
 	/**
 	 * This is where all the magic happens.
+	 * Only the snapshot is read, never the fields that the game changes.
 	 */
 	private void draw(Graphics2D g) {
 		// Force the use of anti-aliasing and good render quality
@@ -132,93 +482,38 @@ public class GUIGame extends JFrame implements Game {
 	    // Draw the background white
 	    g.setColor(Color.white);
 	    g.fillRect(0, 0, CANVAS_WIDTH, CANVAS_HEIGHT);
+	    
+	    GameSnapshot s = snapshot;
+	    if (s == null || s.getState() == null) {
+	    	return;
+	    }
+	    Player winner = s.getWinner();
 		
 	    // The overall game state
-		switch (state) {
+		switch (s.getState()) {
 			case PLAYING: {
-		
-				// The playing state.
-				// This is only used to implement the animation stuff.
-				switch (playState) {
-					
-					// While waiting for the current player to drop a coin
-					case WAITING_FOR_PLAYER: {
-						
-						drawNextCoin(g);
-						drawBoard(g);
-						drawGrid(g);
-						
-						break;
-					}
-					
-					// While the player has released a coin, we prepare for the animation
-					case PREPARE_ANIMATION: {
-						droppingCoinBottom = getBottomOfColumn(queueColumn);
-						droppingCoinX = getPositionAtCanvas(SimpleBoard.ROWS, queueColumn).getX();
-						droppingCoinY = 0;
-						droppingCoinDeltaY = 5;
-						droppingCoinEnergyLoss = 0.2;
 				
-						drawNextCoin(g);
-						drawBoard(g);
-						drawGrid(g);
-						
-						playState = PlayState.ANIMATION;
-						break;
-					}
-					
-					// While the coin travels down through the rows.
-					case ANIMATION: {
-						
-						droppingCoinDeltaY += 0.1;
-						droppingCoinY += droppingCoinDeltaY;
-						
-						if (droppingCoinY > (droppingCoinBottom - COIN_HEIGHT)) {
-							droppingCoinY = droppingCoinBottom - COIN_HEIGHT;
-							
-							droppingCoinDeltaY *= -1;
-							droppingCoinDeltaY *= droppingCoinEnergyLoss;
-						}
-						
-						if (droppingCoinY >= (droppingCoinBottom - COIN_HEIGHT) && droppingCoinDeltaY > -0.012) {
-							// The coin is now standing still
-							// Place the coin on the board and return to waiting state
-							
-							board.place(current, queueColumn);
-							winner = (GUIPlayer) board.check();
-							current = current == player1 ? player2 : player1;
-							
-							if (winner != null) {
-								state = State.WINNER;
-								Sound.play("sound/winner.wav");
-							} else if (board.isFull()) {
-								state = State.DRAW;
-								Sound.play("sound/draw.wav");
-							}
-							else {
-								playState = PlayState.WAITING_FOR_PLAYER;
-							}
-						}
-					
-						g.setColor(current.getColor());
-						g.fillRect((int) droppingCoinX, (int) droppingCoinY, COIN_WIDTH, COIN_HEIGHT);
-
-						drawBoard(g);
-						drawGrid(g);
-						
-						break;
-					}
+				if (s.getPlayState() == PlayState.ANIMATION) {
+					// The coin travels down through the rows
+					g.setColor(getColor(s.getCurrent()));
+					g.fillRect((int) s.getFallingCoinX(), (int) s.getFallingCoinY(), COIN_WIDTH, COIN_HEIGHT);
+				} else {
+					drawNextCoin(g, s);
+					drawAnalysis(g, s);
 				}
+				
+				drawBoard(g, s);
+				drawGrid(g);
 				break;
 			}
 			// When a winner is found. 
 			case WINNER: {
 				if (winner != null) {
-					g.setColor(winner.getColor());
-					g.setFont(new Font("Verdana", Font.ITALIC, 30));
+					g.setColor(getColor(winner));
+					g.setFont(TITLE_FONT);
 					g.drawString("GAMEOVER! " + ((winner == player1) ? "Blue" : "Green") + " has won!", 110, 200);
 					
-					g.setFont(new Font("Verdana", Font.ITALIC, 20));
+					g.setFont(HINT_FONT);
 					g.drawString("Click to restart game!", 210, 270);
 				}
 				break;
@@ -226,33 +521,44 @@ public class GUIGame extends JFrame implements Game {
 			// When the game ends in a draw
 			case DRAW: {
 				g.setColor(Color.DARK_GRAY);
-				g.setFont(new Font("Verdana", Font.ITALIC, 30));
+				g.setFont(TITLE_FONT);
 				g.drawString("IT'S A DRAW!", 220, 200);
 				break;
 			}
-			// When the player choose to restart the game
+			// A restart is handled at once, when it is asked for
 			case RESTART: {
-				board = new SimpleBoard();
-				current = player1;
-				state = State.PLAYING;
-				playState = PlayState.WAITING_FOR_PLAYER;
+				break;
 			}
 		}		
 		
 	}
 	
 	/**
-	 * @return The background of the grid
+	 * Draws the grid once into an image of the same format as the screen,
+	 * with transparent holes for the coins.
+	 * 
+	 * @param gc The configuration of the screen, or null
+	 * @return The grid
 	 */
-	private Area getGridClip() {
-		Area notToDrawIn = new Area(new Rectangle2D.Double(0, 80, CANVAS_WIDTH, CANVAS_HEIGHT));
-		for (int i = 0; i < 7; i++) {
-			for (int j = 0; j < 6; j++) {
-				Rectangle2D bum = new Rectangle2D.Double(i * 90 + 10, j * 90 + 80 + 10, 80, 80); 
-				notToDrawIn.subtract(new Area(bum));
+	private static BufferedImage createGridImage(GraphicsConfiguration gc) {
+		int height = CANVAS_HEIGHT - 80;
+		BufferedImage image = gc != null
+				? gc.createCompatibleImage(CANVAS_WIDTH, height, Transparency.BITMASK)
+				: new BufferedImage(CANVAS_WIDTH, height, BufferedImage.TYPE_INT_ARGB);
+		
+		Graphics2D g = image.createGraphics();
+		g.setColor(GRID_COLOR);
+		g.fillRect(0, 0, CANVAS_WIDTH, height);
+		
+		g.setComposite(AlphaComposite.Clear);
+		for (int i = 0; i < SimpleBoard.COLS; i++) {
+			for (int j = 0; j < SimpleBoard.ROWS; j++) {
+				g.fillRect(i * 90 + 10, j * 90 + 10, COIN_WIDTH, COIN_HEIGHT);
 			}
 		}
-		return notToDrawIn;
+		g.dispose();
+		
+		return image;
 	}
 	
 	/**
@@ -260,24 +566,25 @@ public class GUIGame extends JFrame implements Game {
 	 * @param g The graphics object
 	 */
 	private void drawGrid(Graphics2D g) {
-		g.setColor(Color.DARK_GRAY);
-		g.setClip(getGridClip());
-		g.fillRect(0, 80, CANVAS_WIDTH, CANVAS_HEIGHT);
+		if (gridImage == null) {
+			gridImage = createGridImage(canvas.getGraphicsConfiguration());
+		}
+		g.drawImage(gridImage, 0, 80, null);
 	}
 	
 	/**
 	 * Draws all coins placed on the board
 	 * @param g The graphics object
+	 * @param s The snapshot to draw
 	 */
-	private void drawBoard(Graphics2D g) {
+	private void drawBoard(Graphics2D g, GameSnapshot s) {
 		for (int i = 0; i < SimpleBoard.ROWS; i++) {
 			for (int j = 0; j < SimpleBoard.COLS; j++) {
 				
-				Cell c = board.getMatrix()[i][j];
-				if (c != null) {
-					GUIPlayer p = (GUIPlayer) c.getPlayer();
+				Player p = s.getPlayerAt(i, j);
+				if (p != null) {
 					Point point = getPositionAtCanvas(i, j);
-					g.setColor(p.getColor());
+					g.setColor(getColor(p));
 					g.fillRect((int) point.getX(), (int) point.getY(), COIN_WIDTH, COIN_HEIGHT);
 					
 				}
@@ -288,21 +595,59 @@ public class GUIGame extends JFrame implements Game {
 	/**
 	 * Draw the "next coin" in the top of the canvas.
 	 * @param g The graphics object
+	 * @param s The snapshot to draw
 	 */
-	private void drawNextCoin(Graphics2D g) {
-		Point nextCoinPos = getPositionAtCanvas(SimpleBoard.ROWS, nextCoinColumn);
-		g.setColor( board.canPlace(nextCoinColumn) ? current.getColor() : Color.red);
+	private void drawNextCoin(Graphics2D g, GameSnapshot s) {
+		Point nextCoinPos = getPositionAtCanvas(SimpleBoard.ROWS, s.getNextCoinColumn());
+		g.setColor( s.canPlace(s.getNextCoinColumn()) ? getColor(s.getCurrent()) : Color.red);
 		g.fillRect((int) nextCoinPos.getX(), (int) nextCoinPos.getY(), COIN_WIDTH, COIN_HEIGHT);
 	}
 	
+	/**
+	 * Draws the scores of the analysis above the columns.
+	 * @param g The graphics object
+	 * @param s The snapshot to draw
+	 */
+	private void drawAnalysis(Graphics2D g, GameSnapshot s) {
+		Analysis a = s.getAnalysis();
+		if (a == null) {
+			return;
+		}
+		
+		g.setFont(ANALYSIS_FONT);
+		g.setColor(GRID_COLOR);
+		for (int col = 0; col < SimpleBoard.COLS; col++) {
+			String text = a.getText(col);
+			if (!text.isEmpty()) {
+				int width = g.getFontMetrics().stringWidth(text);
+				g.drawString(text, col * 90 + 10 + (COIN_WIDTH - width) / 2, 14);
+			}
+		}
+	}
+	
 	/**
 	 * Play! 
 	 * This method implements the play method in the Game interface.
 	 */
 	@Override
 	public void play() {
-		state = State.PLAYING;
-		playState = PlayState.WAITING_FOR_PLAYER;
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				state = State.PLAYING;
+				waitForPlayer();
+			}
+		});
+	}
+	
+	/**
+	 * @param player A player
+	 * @return The color of the players coins
+	 */
+	private Color getColor(Player player) {
+		if (player instanceof GUIPlayer) {
+			return ((GUIPlayer) player).getColor();
+		}
+		return player == player1 ? PLAYER1_COLOR : PLAYER2_COLOR;
 	}
 	
 	/**
@@ -354,7 +699,14 @@ public class GUIGame extends JFrame implements Game {
 		 */
 		@Override
 		public void mouseMoved(MouseEvent e) {
-			nextCoinColumn = e.getX() / 90;
+			int col = Math.max(0, Math.min(e.getX() / 90, SimpleBoard.COLS - 1));
+			
+			// Only the next coin moves, so only its row is repainted
+			if (col != nextCoinColumn) {
+				nextCoinColumn = col;
+				snapshot = createSnapshot();
+				repaint(0, 0, CANVAS_WIDTH, 90);
+			}
 		}
 
 		/**
@@ -362,26 +714,29 @@ public class GUIGame extends JFrame implements Game {
 		 */
 		@Override
 		public void mouseClicked(MouseEvent e) {
+			// A right click restarts the game at any time
+			if (SwingUtilities.isRightMouseButton(e)) {
+				restart();
+			}
 			// If we are playing
-			if (state == State.PLAYING) {
-				if (playState == PlayState.WAITING_FOR_PLAYER) {
+			else if (state == State.PLAYING) {
+				if (playState == PlayState.WAITING_FOR_PLAYER && !(current instanceof ComputerPlayer)) {
 					// If we can place, play the click sound and prepare the animation.
 					if (board.canPlace(nextCoinColumn)) {
 						
 						// Play the click sound
 						Sound.play("sound/click.wav");
 						
-						playState = PlayState.PREPARE_ANIMATION;
-						queueColumn = nextCoinColumn;
+						startAnimation(nextCoinColumn);
 					} else {
 						// Else the column must be full, play the full sound.
 						Sound.play("sound/full.wav");
 					}
 				}
 			}
-			// If a player clicked in the WINNER state, then restart the game
-			else if (state == State.WINNER) {
-				state = State.RESTART;
+			// If a player clicked when the game is over, then restart the game
+			else if (state == State.WINNER || state == State.DRAW) {
+				restart();
 			}
 		}
 
@@ -398,9 +753,27 @@ public class GUIGame extends JFrame implements Game {
 		public void mouseReleased(MouseEvent e) { }
 	}
 	
+	/**
+	 * Each argument selects a player, "human" (the default),
+	 * "computer:depth:megabytes:threads:millis" or "mcts:playouts:threads:millis"
+	 * where the numbers are optional.
+	 * The first argument is blue, who starts.
+	 */
 	public static void main(String[] args) {
-		Game game = new GUIGame();
+		Game game = new GUIGame(createPlayer(args, 0, "X", PLAYER1_COLOR), createPlayer(args, 1, "O", PLAYER2_COLOR));
 		game.play();
 	}
+	
+	/**
+	 * @param args The command line arguments
+	 * @param index Index of the argument for this player
+	 * @param name The player name
+	 * @param color The color of a human player
+	 * @return A computer player if the argument asks for one, otherwise a human player
+	 */
+	private static Player createPlayer(String[] args, int index, String name, Color color) {
+		Player player = args.length > index ? ComputerPlayer.fromArgument(args[index], name, COMPUTER_TIME_LIMIT) : null;
+		return player != null ? player : new GUIPlayer(name, color);
+	}
 
 }
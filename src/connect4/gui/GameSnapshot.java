@@ -0,0 +1,167 @@
+package connect4.gui;
+
+import connect4.BitBoard;
+import connect4.Player;
+import connect4.SimpleBoard;
+import connect4.ai.Analysis;
+import connect4.gui.GUIGame.PlayState;
+import connect4.gui.GUIGame.State;
+
+/**
+ * An immutable copy of everything the GUI draws.
+ * 
+ * The game changes its state on the event dispatch thread only, and after
+ * every change publishes a new snapshot. Painting reads the latest
+ * snapshot once and draws from it, so it never sees a game that is half
+ * way through a change. The coins are kept as the two masks of a bit
+ * board, which makes a snapshot a handful of fields. Scores from the
+ * background analysis are kept as the immutable Analysis they came in.
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public final class GameSnapshot {
+	
+	private final State state;
+	private final PlayState playState;
+	private final Player player1;
+	private final Player player2;
+	private final long mask1;
+	private final long mask2;
+	private final Player current;
+	private final Player winner;
+	private final int nextCoinColumn;
+	private final double fallingCoinX;
+	private final double fallingCoinY;
+	private final int analysisId;
+	private final Analysis analysis;
+	
+	/**
+	 * @param state The game state
+	 * @param playState The state while playing
+	 * @param player1 The player who starts
+	 * @param player2 The other player
+	 * @param board The board, which is copied
+	 * @param current The player to move
+	 * @param winner The winner, or null
+	 * @param nextCoinColumn The column of the coin above the board
+	 * @param fallingCoinX X-position of the falling coin
+	 * @param fallingCoinY Y-position of the falling coin
+	 */
+	public GameSnapshot(State state, PlayState playState, Player player1, Player player2, BitBoard board,
+			Player current, Player winner, int nextCoinColumn, double fallingCoinX, double fallingCoinY) {
+		this(state, playState, player1, player2, board, current, winner, nextCoinColumn, fallingCoinX, fallingCoinY, 0, null);
+	}
+	
+	/**
+	 * @param state The game state
+	 * @param playState The state while playing
+	 * @param player1 The player who starts
+	 * @param player2 The other player
+	 * @param board The board, which is copied
+	 * @param current The player to move
+	 * @param winner The winner, or null
+	 * @param nextCoinColumn The column of the coin above the board
+	 * @param fallingCoinX X-position of the falling coin
+	 * @param fallingCoinY Y-position of the falling coin
+	 * @param analysisId Id of the analysis of the position, or 0
+	 * @param analysis Scores of the columns, kept only if they are from that analysis
+	 */
+	public GameSnapshot(State state, PlayState playState, Player player1, Player player2, BitBoard board,
+			Player current, Player winner, int nextCoinColumn, double fallingCoinX, double fallingCoinY,
+			int analysisId, Analysis analysis) {
+		this.state = state;
+		this.playState = playState;
+		this.player1 = player1;
+		this.player2 = player2;
+		this.mask1 = board.getMask(player1);
+		this.mask2 = board.getMask(player2);
+		this.current = current;
+		this.winner = winner;
+		this.nextCoinColumn = nextCoinColumn;
+		this.fallingCoinX = fallingCoinX;
+		this.fallingCoinY = fallingCoinY;
+		this.analysisId = analysisId;
+		this.analysis = analysis != null && analysisId != 0 && analysis.getId() == analysisId ? analysis : null;
+	}
+	
+	/**
+	 * @param row A row index
+	 * @param col A column index
+	 * @return The player with a coin in the cell, or null
+	 */
+	public Player getPlayerAt(int row, int col) {
+		long bit = 1L << (col * BitBoard.HEIGHT + row);
+		if ((mask1 & bit) != 0) {
+			return player1;
+		}
+		if ((mask2 & bit) != 0) {
+			return player2;
+		}
+		return null;
+	}
+	
+	/**
+	 * @param col A column index
+	 * @return True if a coin can be placed in the column
+	 */
+	public boolean canPlace(int col) {
+		if (col < 0 || col >= SimpleBoard.COLS) {
+			return false;
+		}
+		return ((mask1 | mask2) & (1L << (col * BitBoard.HEIGHT + SimpleBoard.ROWS - 1))) == 0;
+	}
+	
+	/**
+	 * @return The number of coins on the board
+	 */
+	public int getMoveCount() {
+		return Long.bitCount(mask1 | mask2);
+	}
+	
+	public State getState() {
+		return state;
+	}
+	
+	public PlayState getPlayState() {
+		return playState;
+	}
+	
+	public Player getPlayer1() {
+		return player1;
+	}
+	
+	public Player getPlayer2() {
+		return player2;
+	}
+	
+	public Player getCurrent() {
+		return current;
+	}
+	
+	public Player getWinner() {
+		return winner;
+	}
+	
+	public int getNextCoinColumn() {
+		return nextCoinColumn;
+	}
+	
+	public double getFallingCoinX() {
+		return fallingCoinX;
+	}
+	
+	public double getFallingCoinY() {
+		return fallingCoinY;
+	}
+	
+	public int getAnalysisId() {
+		return analysisId;
+	}
+	
+	/**
+	 * @return The scores of the analysis of the position, or null
+	 */
+	public Analysis getAnalysis() {
+		return analysis;
+	}
+}
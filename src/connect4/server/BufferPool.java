@@ -0,0 +1,63 @@
+package connect4.server;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * A pool of direct buffers of one size.
+ * 
+ * Direct buffers are slow to allocate and free, but the channels read and
+ * write them without copying. The pool keeps released buffers and hands
+ * them out again. It is meant for the one thread of a selector loop, and
+ * is not thread safe.
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class BufferPool {
+	
+	private final int bufferSize;
+	private final int maxPooled;
+	private final ArrayDeque<ByteBuffer> pool;
+	private long allocated;
+	
+	/**
+	 * @param size Bytes in every buffer
+	 * @param max Most buffers kept in the pool
+	 */
+	public BufferPool(int size, int max) {
+		bufferSize = size;
+		maxPooled = max;
+		pool = new ArrayDeque<ByteBuffer>(max);
+	}
+	
+	/**
+	 * @return A cleared buffer, from the pool if it has one
+	 */
+	public ByteBuffer acquire() {
+		ByteBuffer buffer = pool.pollFirst();
+		if (buffer == null) {
+			allocated++;
+			buffer = ByteBuffer.allocateDirect(bufferSize);
+		}
+		return buffer;
+	}
+	
+	/**
+	 * Returns a buffer to the pool.
+	 * 
+	 * @param buffer A buffer from acquire
+	 */
+	public void release(ByteBuffer buffer) {
+		if (pool.size() < maxPooled) {
+			buffer.clear();
+			pool.addFirst(buffer);
+		}
+	}
+	
+	/**
+	 * @return The number of buffers allocated, which stops growing once the pool is warm
+	 */
+	public long getAllocated() {
+		return allocated;
+	}
+}
@@ -0,0 +1,151 @@
+package connect4.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A client of the server, served by its own thread.
+ * 
+ * Lines are read from the socket by hand into a small buffer, so a
+ * connection holds a few hundred bytes however long it stays open.
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+class Connection implements Runnable {
+	
+	/** Longest line a client may send */
+	private static final int MAX_LINE = 64;
+	
+	private final ServerGame server;
+	private final Socket socket;
+	/** Held while a line is sent, a monitor would pin a virtual thread during the write */
+	private final ReentrantLock lock = new ReentrantLock();
+	
+	private final byte[] buffer = new byte[MAX_LINE];
+	private int start;
+	private int end;
+	
+	/** The game of the client, once it has an opponent */
+	private volatile Session session;
+	
+	/**
+	 * @param s The server
+	 * @param c The socket of the client
+	 */
+	Connection(ServerGame s, Socket c) {
+		server = s;
+		socket = c;
+	}
+	
+	/**
+	 * Pairs the client and passes its lines to its game until it disconnects.
+	 */
+	public void run() {
+		try {
+			Session joined = server.join(this);
+			if (joined != null) {
+				joined.start();
+			}
+			
+			String line;
+			while ((line = readLine()) != null) {
+				Session current = session;
+				
+				if (current == null) {
+					send("ERROR Waiting for an opponent");
+				} else if (!current.handle(this, line.trim())) {
+					break;
+				}
+			}
+		}
+		catch (IOException e) {
+			// The client is gone
+		}
+		finally {
+			Session current = session;
+			if (current != null) {
+				current.left(this);
+			}
+			close();
+			server.leave(this);
+		}
+	}
+	
+	/**
+	 * @param s The game the client plays
+	 */
+	void setSession(Session s) {
+		session = s;
+	}
+	
+	/**
+	 * Sends a line to the client. Lines from the threads of both players
+	 * of a game are sent one at a time.
+	 * 
+	 * @param message The line, without the line break
+	 */
+	void send(String message) {
+		lock.lock();
+		try {
+			try {
+				OutputStream out = socket.getOutputStream();
+				out.write((message + "\n").getBytes(StandardCharsets.US_ASCII));
+				out.flush();
+			}
+			catch (IOException e) {
+				close();
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Closes the socket, which also ends the thread of the client.
+	 */
+	void close() {
+		try {
+			socket.close();
+		}
+		catch (IOException e) { }
+	}
+	
+	/**
+	 * @return The next line from the client, or null at the end of the stream
+	 * @throws IOException If the line is too long or the socket fails
+	 */
+	private String readLine() throws IOException {
+		InputStream in = socket.getInputStream();
+		
+		while (true) {
+			for (int i = start; i < end; i++) {
+				if (buffer[i] == '\n') {
+					String line = new String(buffer, start, i - start, StandardCharsets.US_ASCII);
+					start = i + 1;
+					return line;
+				}
+			}
+			
+			// Move the start of the line to the front to make room
+			if (start > 0) {
+				System.arraycopy(buffer, start, buffer, 0, end - start);
+				end -= start;
+				start = 0;
+			}
+			if (end == buffer.length) {
+				throw new IOException("Line too long");
+			}
+			
+			int read = in.read(buffer, end, buffer.length - end);
+			if (read < 0) {
+				return null;
+			}
+			end += read;
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package connect4.server;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The frames of the binary protocol of NioServerGame.
+ * 
+ * Every frame has the same ten bytes, in network byte order:
+ * 
+ *	 4 bytes  game id
+ *	 4 bytes  sequence number
+ *	 1 byte   type
+ *	 1 byte   column or code
+ * 
+ * Clients send:
+ * 
+ *	 JOIN      ask for a game, the id and column are ignored
+ *	 MOVE      place a coin in a column from 0 to 6 in the given game
+ *	 QUIT      leave the current game
+ * 
+ * and the server sends:
+ * 
+ *	 START     a game with the given id started, the code is 0 if the
+ *			   client plays X and moves first, and 1 if it plays O
+ *	 ACCEPTED  the move with the given sequence number was played
+ *	 OPPONENT  the opponent placed a coin in the given column, and the
+ *			   client is to move, unless LAST is added to the column
+ *			   because the move ended the game
+ *	 END       the game is over, the code is one of the results
+ *	 ERROR     the move with the given sequence number was not played,
+ *			   the code is one of the errors
+ * 
+ * Frames are read and written in place in a buffer, so no objects are
+ * created for them.
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public final class Frame {
+	
+	/** Bytes in a frame */
+	public static final int SIZE = 10;
+	
+	public static final byte JOIN = 1;
+	public static final byte MOVE = 2;
+	public static final byte QUIT = 3;
+	
+	public static final byte START = 16;
+	public static final byte ACCEPTED = 17;
+	public static final byte OPPONENT = 18;
+	public static final byte END = 19;
+	public static final byte ERROR = 20;
+	
+	/** Added to the column of OPPONENT when the move ended the game */
+	public static final int LAST = 0x10;
+	
+	/** Results of END */
+	public static final byte DRAW = 0;
+	public static final byte WON = 1;
+	public static final byte LOST = 2;
+	public static final byte LEFT = 3;
+	
+	/** Codes of ERROR */
+	public static final byte NOT_YOUR_TURN = 1;
+	public static final byte ILLEGAL_COLUMN = 2;
+	public static final byte NO_GAME = 3;
+	public static final byte UNKNOWN_TYPE = 4;
+	
+	private Frame() {
+	}
+	
+	/**
+	 * Appends a frame to a buffer.
+	 * 
+	 * @param buffer The buffer, with room for a frame
+	 * @param gameId The game id
+	 * @param seq The sequence number
+	 * @param type The type
+	 * @param code The column or code
+	 */
+	public static void put(ByteBuffer buffer, int gameId, int seq, byte type, int code) {
+		buffer.putInt(gameId);
+		buffer.putInt(seq);
+		buffer.put(type);
+		buffer.put((byte) code);
+	}
+	
+	/**
+	 * @param buffer The buffer
+	 * @param offset The start of a frame in the buffer
+	 * @return The game id of the frame
+	 */
+	public static int getGameId(ByteBuffer buffer, int offset) {
+		return buffer.getInt(offset);
+	}
+	
+	/**
+	 * @param buffer The buffer
+	 * @param offset The start of a frame in the buffer
+	 * @return The sequence number of the frame
+	 */
+	public static int getSeq(ByteBuffer buffer, int offset) {
+		return buffer.getInt(offset + 4);
+	}
+	
+	/**
+	 * @param buffer The buffer
+	 * @param offset The start of a frame in the buffer
+	 * @return The type of the frame
+	 */
+	public static byte getType(ByteBuffer buffer, int offset) {
+		return buffer.get(offset + 8);
+	}
+	
+	/**
+	 * @param buffer The buffer
+	 * @param offset The start of a frame in the buffer
+	 * @return The column or code of the frame
+	 */
+	public static int getCode(ByteBuffer buffer, int offset) {
+		return buffer.get(offset + 9);
+	}
+}
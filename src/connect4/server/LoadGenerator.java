@@ -0,0 +1,260 @@
+package connect4.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+
+import connect4.SimpleBoard;
+
+/**
+ * Simulates many clients of NioServerGame playing random legal moves,
+ * and measures the time from sending a move until it is accepted.
+ * 
+ * All clients run on one selector loop. A client asks for a game, plays
+ * when it is its turn, and asks for a new game when the game is over,
+ * until the time is up.
+ * 
+ * Usage: LoadGenerator host port clients seconds [seed]
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class LoadGenerator {
+	
+	private final InetSocketAddress address;
+	private final int clientCount;
+	private final Random random;
+	
+	/** Round trip times of the moves in nanoseconds */
+	private long[] latencies = new long[1 << 16];
+	private int moves;
+	private long games;
+	private long errors;
+	private long elapsed;
+	
+	/**
+	 * A simulated client.
+	 */
+	private static class Client {
+		SocketChannel channel;
+		SelectionKey key;
+		final ByteBuffer in = ByteBuffer.allocateDirect(64 * Frame.SIZE);
+		final ByteBuffer out = ByteBuffer.allocateDirect(4 * Frame.SIZE);
+		final int[] heights = new int[SimpleBoard.COLS];
+		int gameId;
+		int slot;
+		int seq;
+		long sent;
+	}
+	
+	/**
+	 * @param a The address of the server
+	 * @param clients The number of clients
+	 * @param seed Seed of the random moves
+	 */
+	public LoadGenerator(InetSocketAddress a, int clients, long seed) {
+		address = a;
+		clientCount = clients;
+		random = new Random(seed);
+	}
+	
+	/**
+	 * Connects the clients and plays until the time is up.
+	 * 
+	 * @param seconds How long to play
+	 * @throws IOException If a client cannot connect
+	 */
+	public void run(double seconds) throws IOException {
+		Selector selector = Selector.open();
+		Client[] clients = new Client[clientCount];
+		
+		try {
+			for (int i = 0; i < clientCount; i++) {
+				Client client = new Client();
+				client.channel = SocketChannel.open(address);
+				client.channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+				client.channel.configureBlocking(false);
+				client.key = client.channel.register(selector, SelectionKey.OP_READ, client);
+				clients[i] = client;
+				
+				join(client);
+			}
+			
+			long start = System.nanoTime();
+			long end = start + (long) (seconds * 1e9);
+			
+			while (System.nanoTime() < end) {
+				selector.select(Math.max(1, (end - System.nanoTime()) / 1000000));
+				
+				Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+				while (it.hasNext()) {
+					SelectionKey key = it.next();
+					it.remove();
+					
+					if (key.isValid() && key.isReadable()) {
+						read((Client) key.attachment(), end);
+					}
+				}
+			}
+			elapsed = System.nanoTime() - start;
+		}
+		finally {
+			for (Client client : clients) {
+				if (client != null) {
+					client.channel.close();
+				}
+			}
+			selector.close();
+		}
+	}
+	
+	private void read(Client client, long end) throws IOException {
+		ByteBuffer in = client.in;
+		if (client.channel.read(in) < 0) {
+			throw new IOException("The server closed a connection");
+		}
+		
+		int offset = 0;
+		for (; in.position() - offset >= Frame.SIZE; offset += Frame.SIZE) {
+			int code = Frame.getCode(in, offset);
+			
+			switch (Frame.getType(in, offset)) {
+			case Frame.START:
+				client.gameId = Frame.getGameId(in, offset);
+				client.slot = code;
+				Arrays.fill(client.heights, 0);
+				if (code == 0) {
+					move(client);
+				}
+				break;
+			case Frame.ACCEPTED:
+				record(System.nanoTime() - client.sent);
+				break;
+			case Frame.OPPONENT:
+				client.heights[code & 7]++;
+				if ((code & Frame.LAST) == 0) {
+					move(client);
+				}
+				break;
+			case Frame.END:
+				// Both clients are told, so only one of them counts the game
+				client.gameId = 0;
+				if (code == Frame.WON || (code == Frame.DRAW && client.slot == 0)) {
+					games++;
+				}
+				if (System.nanoTime() < end) {
+					join(client);
+				}
+				break;
+			case Frame.ERROR:
+				errors++;
+				break;
+			}
+		}
+		
+		in.flip();
+		in.position(offset);
+		in.compact();
+	}
+	
+	/**
+	 * Plays a random legal column.
+	 */
+	private void move(Client client) throws IOException {
+		int col;
+		do {
+			col = random.nextInt(SimpleBoard.COLS);
+		} while (client.heights[col] >= SimpleBoard.ROWS);
+		
+		client.heights[col]++;
+		client.sent = System.nanoTime();
+		send(client, client.gameId, ++client.seq, Frame.MOVE, col);
+	}
+	
+	private void join(Client client) throws IOException {
+		send(client, 0, 0, Frame.JOIN, 0);
+	}
+	
+	private void send(Client client, int gameId, int seq, byte type, int code) throws IOException {
+		ByteBuffer out = client.out;
+		out.clear();
+		Frame.put(out, gameId, seq, type, code);
+		out.flip();
+		
+		// A frame is tiny, so the socket takes it at once unless the server is stuck
+		while (out.hasRemaining()) {
+			client.channel.write(out);
+		}
+	}
+	
+	private void record(long latency) {
+		if (moves == latencies.length) {
+			latencies = Arrays.copyOf(latencies, moves * 2);
+		}
+		latencies[moves++] = latency;
+	}
+	
+	/**
+	 * @return The number of moves played
+	 */
+	public int getMoves() {
+		return moves;
+	}
+	
+	/**
+	 * @return The number of games finished
+	 */
+	public long getGames() {
+		return games;
+	}
+	
+	/**
+	 * @return The number of moves the server did not accept
+	 */
+	public long getErrors() {
+		return errors;
+	}
+	
+	/**
+	 * @param fraction The fraction of moves, such as 0.99
+	 * @return The round trip time in nanoseconds that the fraction of the moves were faster than
+	 */
+	public long getPercentile(double fraction) {
+		if (moves == 0) {
+			return 0;
+		}
+		long[] sorted = Arrays.copyOf(latencies, moves);
+		Arrays.sort(sorted);
+		return sorted[(int) Math.min(moves - 1, Math.ceil(fraction * moves) - 1)];
+	}
+	
+	/**
+	 * @return The results as text
+	 */
+	public String getReport() {
+		return String.format("%d clients, %d moves, %d games, %d errors in %.1f s, %.0f moves/s%n"
+				+ "round trip p50 %.1f us, p99 %.1f us, max %.1f us",
+				clientCount, moves, games, errors, elapsed / 1e9, moves / (elapsed / 1e9),
+				getPercentile(0.5) / 1e3, getPercentile(0.99) / 1e3, getPercentile(1) / 1e3);
+	}
+	
+	public static void main(String[] args) throws IOException {
+		if (args.length < 4) {
+			System.out.println("Usage: LoadGenerator host port clients seconds [seed]");
+			return;
+		}
+		
+		long seed = args.length > 4 ? Long.parseLong(args[4]) : 42;
+		LoadGenerator generator = new LoadGenerator(new InetSocketAddress(args[0], Integer.parseInt(args[1])),
+				Integer.parseInt(args[2]), seed);
+		
+		generator.run(Double.parseDouble(args[3]));
+		System.out.println(generator.getReport());
+	}
+}
@@ -0,0 +1,466 @@
+package connect4.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+import connect4.BitBoard;
+import connect4.Game;
+import connect4.Player;
+import connect4.SimpleBoard;
+
+/**
+ * Implementation of game that hosts many games over the binary protocol
+ * described in Frame, on one thread.
+ * 
+ * All clients are served by one selector loop with non-blocking channels.
+ * Every connection borrows a read buffer and a write buffer from a pool of
+ * direct buffers, and returns them when it closes. Frames are decoded and
+ * encoded in place in these buffers, and games are reused with a cleared
+ * board, so playing a move creates no objects.
+ * 
+ * Clients are paired in the order they ask for a game. A client may ask
+ * for a new game when its game is over. Frames that do not fit in the
+ * write buffer of a client mean that the client does not read them, and
+ * the client is disconnected.
+ * 
+ * Usage: NioServerGame [port]
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class NioServerGame implements Game {
+	
+	/** Port used when none is given */
+	public static final int DEFAULT_PORT = 4005;
+	
+	/** Bytes in the read and write buffer of a connection */
+	private static final int BUFFER_SIZE = 64 * Frame.SIZE;
+	
+	private static final Player PLAYER1 = new Player("X");
+	private static final Player PLAYER2 = new Player("O");
+	
+	private final Selector selector;
+	private final ServerSocketChannel serverChannel;
+	private final BufferPool buffers = new BufferPool(BUFFER_SIZE, 1 << 16);
+	private final ArrayDeque<Session> sessions = new ArrayDeque<Session>();
+	
+	private Connection waiting;
+	private int nextGameId = 1;
+	private volatile boolean running = true;
+	
+	/** Changed only by the selector thread, and read by any thread */
+	private volatile int connections;
+	private volatile long games;
+	private volatile long moves;
+	
+	/**
+	 * A client.
+	 */
+	private static class Connection {
+		SocketChannel channel;
+		SelectionKey key;
+		ByteBuffer in;
+		ByteBuffer out;
+		Session session;
+		int slot;
+	}
+	
+	/**
+	 * A game between two clients.
+	 */
+	private static class Session {
+		final BitBoard board = new BitBoard();
+		final Connection[] connections = new Connection[2];
+		int id;
+		int turn;
+	}
+	
+	/**
+	 * @param port The port to listen on, or 0 for any free port
+	 * @throws IOException If the port cannot be opened
+	 */
+	public NioServerGame(int port) throws IOException {
+		selector = Selector.open();
+		serverChannel = ServerSocketChannel.open();
+		serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+		serverChannel.bind(new InetSocketAddress(port), 4096);
+		serverChannel.configureBlocking(false);
+		serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+	}
+	
+	/**
+	 * Serves clients until the server is stopped.
+	 */
+	@Override
+	public void play() {
+		try {
+			while (running) {
+				selector.select();
+				
+				Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+				while (it.hasNext()) {
+					SelectionKey key = it.next();
+					it.remove();
+					
+					if (!key.isValid()) {
+						continue;
+					}
+					if (key.isAcceptable()) {
+						accept();
+						continue;
+					}
+					
+					Connection connection = (Connection) key.attachment();
+					try {
+						if (key.isWritable()) {
+							flush(connection);
+						}
+						if (key.isValid() && key.isReadable()) {
+							read(connection);
+						}
+					}
+					catch (IOException e) {
+						close(connection);
+					}
+				}
+			}
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+		finally {
+			for (SelectionKey key : selector.keys()) {
+				if (key.attachment() instanceof Connection) {
+					close((Connection) key.attachment());
+				}
+			}
+			try {
+				serverChannel.close();
+				selector.close();
+			}
+			catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+	
+	/**
+	 * Stops the server and disconnects all clients.
+	 */
+	public void stop() {
+		running = false;
+		selector.wakeup();
+	}
+	
+	/**
+	 * @return The port the server listens on
+	 */
+	public int getPort() {
+		return serverChannel.socket().getLocalPort();
+	}
+	
+	/**
+	 * @return The number of connected clients
+	 */
+	public int getConnections() {
+		return connections;
+	}
+	
+	/**
+	 * @return The number of games started
+	 */
+	public long getGames() {
+		return games;
+	}
+	
+	/**
+	 * @return The number of moves played
+	 */
+	public long getMoves() {
+		return moves;
+	}
+	
+	/**
+	 * @return The number of direct buffers allocated
+	 */
+	public long getBuffersAllocated() {
+		return buffers.getAllocated();
+	}
+	
+	/**
+	 * Accepts the waiting clients. A client that cannot be set up is
+	 * closed, and the other clients are served as before.
+	 */
+	private void accept() {
+		while (true) {
+			SocketChannel channel;
+			try {
+				channel = serverChannel.accept();
+			}
+			catch (IOException e) {
+				// For example out of file descriptors, the next select tries again
+				System.err.println("Cannot accept a client: " + e);
+				return;
+			}
+			if (channel == null) {
+				return;
+			}
+			
+			Connection connection = new Connection();
+			try {
+				channel.configureBlocking(false);
+				channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+				connection.channel = channel;
+				connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+			}
+			catch (IOException e) {
+				// The client reset the connection during the handshake
+				try {
+					channel.close();
+				}
+				catch (IOException ignored) { }
+				continue;
+			}
+			
+			connection.in = buffers.acquire();
+			connection.out = buffers.acquire();
+			connections++;
+		}
+	}
+	
+	/**
+	 * Reads what the client sent and handles every whole frame.
+	 */
+	private void read(Connection connection) throws IOException {
+		ByteBuffer in = connection.in;
+		if (connection.channel.read(in) < 0) {
+			close(connection);
+			return;
+		}
+		
+		int offset = 0;
+		while (in.position() - offset >= Frame.SIZE) {
+			handle(connection, in, offset);
+			offset += Frame.SIZE;
+			
+			// The buffers went back to the pool if the connection was closed
+			if (!connection.key.isValid()) {
+				return;
+			}
+		}
+		
+		// Keep a partial frame for the next read
+		in.flip();
+		in.position(offset);
+		in.compact();
+		
+		flush(connection);
+	}
+	
+	private void handle(Connection connection, ByteBuffer in, int offset) {
+		int seq = Frame.getSeq(in, offset);
+		
+		switch (Frame.getType(in, offset)) {
+		case Frame.JOIN:
+			join(connection);
+			break;
+		case Frame.MOVE:
+			move(connection, Frame.getGameId(in, offset), seq, Frame.getCode(in, offset));
+			break;
+		case Frame.QUIT:
+			leave(connection);
+			break;
+		default:
+			send(connection, 0, seq, Frame.ERROR, Frame.UNKNOWN_TYPE);
+		}
+	}
+	
+	private void join(Connection connection) {
+		if (connection.session != null || waiting == connection) {
+			return;
+		}
+		if (waiting == null) {
+			waiting = connection;
+			return;
+		}
+		
+		Session session = sessions.pollFirst();
+		if (session == null) {
+			session = new Session();
+		}
+		session.id = nextGameId++;
+		session.turn = 0;
+		session.connections[0] = waiting;
+		session.connections[1] = connection;
+		waiting.session = session;
+		waiting.slot = 0;
+		connection.session = session;
+		connection.slot = 1;
+		games++;
+		
+		send(waiting, session.id, 0, Frame.START, 0);
+		send(connection, session.id, 0, Frame.START, 1);
+		
+		// The waiting client is not reading, so its frame is flushed here
+		flushQuietly(waiting);
+		waiting = null;
+	}
+	
+	/**
+	 * Plays a move: canPlace, place, check and isFull, as in TextGame.
+	 */
+	private void move(Connection connection, int gameId, int seq, int col) {
+		Session session = connection.session;
+		if (session == null || session.id != gameId) {
+			send(connection, gameId, seq, Frame.ERROR, Frame.NO_GAME);
+			return;
+		}
+		if (session.turn != connection.slot) {
+			send(connection, gameId, seq, Frame.ERROR, Frame.NOT_YOUR_TURN);
+			return;
+		}
+		if (col < 0 || col >= SimpleBoard.COLS || !session.board.canPlace(col)) {
+			send(connection, gameId, seq, Frame.ERROR, Frame.ILLEGAL_COLUMN);
+			return;
+		}
+		
+		session.board.place(connection.slot == 0 ? PLAYER1 : PLAYER2, col);
+		moves++;
+		
+		boolean won = session.board.check() != null;
+		boolean over = won || session.board.isFull();
+		
+		Connection opponent = session.connections[1 - connection.slot];
+		send(connection, gameId, seq, Frame.ACCEPTED, col);
+		send(opponent, gameId, seq, Frame.OPPONENT, over ? col | Frame.LAST : col);
+		
+		// A client with a full write buffer was disconnected, which ended the game
+		if (connection.session != session || opponent.session != session) {
+			return;
+		}
+		
+		if (won) {
+			send(connection, gameId, seq, Frame.END, Frame.WON);
+			send(opponent, gameId, seq, Frame.END, Frame.LOST);
+			end(session);
+		} else if (over) {
+			send(connection, gameId, seq, Frame.END, Frame.DRAW);
+			send(opponent, gameId, seq, Frame.END, Frame.DRAW);
+			end(session);
+		} else {
+			session.turn = 1 - session.turn;
+		}
+		flushQuietly(opponent);
+	}
+	
+	/**
+	 * Takes a client out of its game or the queue, and tells the opponent.
+	 */
+	private void leave(Connection connection) {
+		if (waiting == connection) {
+			waiting = null;
+		}
+		
+		Session session = connection.session;
+		if (session != null) {
+			Connection opponent = session.connections[1 - connection.slot];
+			send(opponent, session.id, 0, Frame.END, Frame.LEFT);
+			end(session);
+			flushQuietly(opponent);
+		}
+	}
+	
+	/**
+	 * Detaches the clients from a game and puts the game back in the pool.
+	 */
+	private void end(Session session) {
+		if (session.connections[0] == null) {
+			// Already ended, by a client that was disconnected while the game ended
+			return;
+		}
+		session.connections[0].session = null;
+		session.connections[1].session = null;
+		session.connections[0] = null;
+		session.connections[1] = null;
+		session.board.clear();
+		sessions.addFirst(session);
+	}
+	
+	/**
+	 * Adds a frame to the write buffer of a client, or disconnects the
+	 * client if the buffer is full.
+	 */
+	private void send(Connection connection, int gameId, int seq, byte type, int code) {
+		if (!connection.key.isValid()) {
+			return;
+		}
+		if (connection.out.remaining() < Frame.SIZE) {
+			close(connection);
+			return;
+		}
+		Frame.put(connection.out, gameId, seq, type, code);
+	}
+	
+	/**
+	 * Writes as much of the write buffer as the channel takes, and asks
+	 * to be told when the channel can take the rest.
+	 */
+	private void flush(Connection connection) throws IOException {
+		ByteBuffer out = connection.out;
+		out.flip();
+		connection.channel.write(out);
+		out.compact();
+		
+		if (out.position() > 0) {
+			connection.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+		} else {
+			connection.key.interestOps(SelectionKey.OP_READ);
+		}
+	}
+	
+	private void flushQuietly(Connection connection) {
+		if (connection.key.isValid()) {
+			try {
+				flush(connection);
+			}
+			catch (IOException e) {
+				close(connection);
+			}
+		}
+	}
+	
+	private void close(Connection connection) {
+		if (!connection.key.isValid()) {
+			return;
+		}
+		connection.key.cancel();
+		
+		try {
+			connection.channel.close();
+		}
+		catch (IOException e) { }
+		
+		leave(connection);
+		buffers.release(connection.in);
+		buffers.release(connection.out);
+		connections--;
+	}
+	
+	/**
+	 * Starts a server on the given port, or the default port.
+	 */
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		NioServerGame game = new NioServerGame(port);
+		
+		System.out.println("Connect4 binary server listening on port " + game.getPort());
+		game.play();
+	}
+}
@@ -0,0 +1,231 @@
+package connect4.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import connect4.Game;
+
+/**
+ * Implementation of game that hosts many games for clients on the network.
+ * 
+ * Clients connect with TCP and are paired in the order they connect. The
+ * first of a pair plays X and starts. Every connection is served by its own
+ * thread, which reads the moves of its client and plays them on the board
+ * of the game. The threads are virtual threads when the Java runtime has
+ * them, so a server can hold very many idle or slow clients. On older
+ * runtimes they are ordinary threads with a small stack.
+ * 
+ * The protocol is text, one message per line. The server sends:
+ * 
+ *	 WAIT            waiting for an opponent
+ *	 START name      the game started, and the client plays name, X or O
+ *	 TURN            the client is to move
+ *	 MOVE name col   a player placed a coin in a column, from 1 to 7
+ *	 WIN name        the player won, and the connection is closed
+ *	 DRAW            the board is full, and the connection is closed
+ *	 LEFT            the opponent left, and the connection is closed
+ *	 ERROR message   the last line from the client was not accepted
+ * 
+ * and the client sends the column of its move, from 1 to 7, or QUIT.
+ * 
+ * A session keeps a bit board and a few small buffers for each client, so
+ * the memory of a game does not grow while it is played.
+ * 
+ * Usage: ServerGame [port]
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class ServerGame implements Game {
+	
+	/** Port used when none is given */
+	public static final int DEFAULT_PORT = 4004;
+	
+	/** Stack size of connection threads when there are no virtual threads */
+	private static final long STACK_SIZE = 128 * 1024;
+	
+	private final ServerSocket serverSocket;
+	private final ExecutorService executor;
+	
+	/** Guards waiting, and is held while WAIT is sent, so not a monitor */
+	private final ReentrantLock lock = new ReentrantLock();
+	/** A client waiting for an opponent, or null */
+	private Connection waiting;
+	
+	private final AtomicInteger connections = new AtomicInteger();
+	private final AtomicInteger sessions = new AtomicInteger();
+	private final AtomicInteger games = new AtomicInteger();
+	
+	/**
+	 * @param port The port to listen on, or 0 for any free port
+	 * @throws IOException If the port cannot be opened
+	 */
+	public ServerGame(int port) throws IOException {
+		this(new InetSocketAddress(port));
+	}
+	
+	/**
+	 * @param address The address to listen on
+	 * @throws IOException If the address cannot be opened
+	 */
+	public ServerGame(InetSocketAddress address) throws IOException {
+		serverSocket = new ServerSocket();
+		serverSocket.setReuseAddress(true);
+		serverSocket.bind(address, 4096);
+		executor = createExecutor();
+	}
+	
+	/**
+	 * Accepts clients until the server is stopped.
+	 */
+	@Override
+	public void play() {
+		while (!serverSocket.isClosed()) {
+			try {
+				final Socket socket = serverSocket.accept();
+				socket.setTcpNoDelay(true);
+				connections.incrementAndGet();
+				
+				executor.execute(new Connection(this, socket));
+			}
+			catch (IOException e) {
+				if (!serverSocket.isClosed()) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Stops accepting clients. Games that are being played go on.
+	 */
+	public void stop() {
+		try {
+			serverSocket.close();
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+		executor.shutdown();
+	}
+	
+	/**
+	 * @return The port the server listens on
+	 */
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+	
+	/**
+	 * @return The number of connected clients
+	 */
+	public int getConnections() {
+		return connections.get();
+	}
+	
+	/**
+	 * @return The number of games being played
+	 */
+	public int getSessions() {
+		return sessions.get();
+	}
+	
+	/**
+	 * @return The number of games started since the server started
+	 */
+	public int getGames() {
+		return games.get();
+	}
+	
+	/**
+	 * Pairs a new client with the waiting one, or lets it wait.
+	 * 
+	 * @param connection The new client
+	 * @return The game of the client, or null if it has to wait
+	 */
+	Session join(Connection connection) {
+		lock.lock();
+		try {
+			if (waiting == null) {
+				// Sent before another client can join, so it comes before START
+				connection.send("WAIT");
+				waiting = connection;
+				return null;
+			}
+			
+			Session session = new Session(this, waiting, connection);
+			waiting = null;
+			sessions.incrementAndGet();
+			games.incrementAndGet();
+			return session;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Called when a client disconnects.
+	 * 
+	 * @param connection The client
+	 */
+	void leave(Connection connection) {
+		lock.lock();
+		try {
+			if (waiting == connection) {
+				waiting = null;
+			}
+			connections.decrementAndGet();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Called when a game ends.
+	 */
+	void ended() {
+		sessions.decrementAndGet();
+	}
+	
+	/**
+	 * Uses a virtual thread per connection when the runtime has them,
+	 * they are looked up by reflection so the server runs on older runtimes.
+	 * 
+	 * @return An executor that runs every task on a new thread
+	 */
+	private static ExecutorService createExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch (Exception e) {
+			final AtomicInteger count = new AtomicInteger();
+			
+			return Executors.newCachedThreadPool(new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(null, r, "connection-" + count.incrementAndGet(), STACK_SIZE);
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Starts a server on the given port, or the default port.
+	 */
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		ServerGame game = new ServerGame(port);
+		
+		System.out.println("Connect4 server listening on port " + game.getPort());
+		game.play();
+	}
+}
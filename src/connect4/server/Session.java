@@ -0,0 +1,163 @@
+package connect4.server;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import connect4.BitBoard;
+import connect4.Board;
+import connect4.Player;
+import connect4.SimpleBoard;
+
+/**
+ * A game between two clients of the server.
+ * 
+ * The moves of both clients arrive on their own threads, so every change
+ * of the game is made while holding the lock of the session. It is a
+ * ReentrantLock rather than a monitor, since lines are sent to the clients
+ * while it is held, and a virtual thread blocked in a write inside
+ * synchronized would pin its carrier thread.
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+class Session {
+	
+	private final ServerGame server;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Board board = new BitBoard();
+	private final Player player1 = new Player("X");
+	private final Player player2 = new Player("O");
+	private final Connection connection1;
+	private final Connection connection2;
+	
+	private Player current = player1;
+	private boolean over;
+	
+	/**
+	 * @param s The server
+	 * @param c1 The client who plays X and starts
+	 * @param c2 The client who plays O
+	 */
+	Session(ServerGame s, Connection c1, Connection c2) {
+		server = s;
+		connection1 = c1;
+		connection2 = c2;
+	}
+	
+	/**
+	 * Tells both clients that the game started.
+	 */
+	void start() {
+		lock.lock();
+		try {
+			connection1.setSession(this);
+			connection2.setSession(this);
+			
+			connection1.send("START " + player1.getName());
+			connection2.send("START " + player2.getName());
+			connection1.send("TURN");
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Plays a line from a client.
+	 * 
+	 * @param connection The client
+	 * @param line The line
+	 * @return False if the client should be disconnected
+	 */
+	boolean handle(Connection connection, String line) {
+		lock.lock();
+		try {
+			if (over) {
+				return false;
+			}
+			if ("QUIT".equalsIgnoreCase(line)) {
+				return false;
+			}
+			if (connection != getConnection(current)) {
+				connection.send("ERROR Not your turn");
+				return true;
+			}
+			
+			int colIndex;
+			try {
+				colIndex = Integer.parseInt(line) - 1;
+			}
+			catch (NumberFormatException e) {
+				connection.send("ERROR Not a column");
+				return true;
+			}
+			
+			if (colIndex < 0 || colIndex >= SimpleBoard.COLS || !board.canPlace(colIndex)) {
+				connection.send("ERROR You cannot place a coin there");
+				return true;
+			}
+			
+			board.place(current, colIndex);
+			Player winner = board.check();
+			
+			String move = "MOVE " + current.getName() + " " + (colIndex + 1);
+			connection1.send(move);
+			connection2.send(move);
+			
+			if (winner != null) {
+				end("WIN " + winner.getName());
+			} else if (board.isFull()) {
+				end("DRAW");
+			} else {
+				current = current == player1 ? player2 : player1;
+				getConnection(current).send("TURN");
+			}
+			return true;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Called when a client disconnects, and tells the other client.
+	 * 
+	 * @param connection The client
+	 */
+	void left(Connection connection) {
+		lock.lock();
+		try {
+			if (!over) {
+				end(null);
+				(connection == connection1 ? connection2 : connection1).send("LEFT");
+				connection1.close();
+				connection2.close();
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Ends the game and disconnects both clients.
+	 * 
+	 * @param message The last line for both clients, or null
+	 */
+	private void end(String message) {
+		over = true;
+		server.ended();
+		
+		if (message != null) {
+			connection1.send(message);
+			connection2.send(message);
+			connection1.close();
+			connection2.close();
+		}
+	}
+	
+	/**
+	 * @return The client of the given player
+	 */
+	private Connection getConnection(Player player) {
+		return player == player1 ? connection1 : connection2;
+	}
+}
@@ -0,0 +1,116 @@
+package connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Test;
+
+import connect4.BitBoard;
+import connect4.Player;
+import connect4.SimpleBoard;
+import connect4.ai.Analysis;
+import connect4.ai.AnalysisListener;
+import connect4.ai.Analyzer;
+
+/**
+ * Unit test for the background analysis of the columns.
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class AnalyzerTest {
+
+	private Player player1 = new Player("X");
+	private Player player2 = new Player("O");
+	private Analyzer analyzer = new Analyzer(2, 8, 1);
+	
+	private AtomicReference<Analysis> latest = new AtomicReference<Analysis>();
+	private AtomicInteger updates = new AtomicInteger();
+	private AnalysisListener listener = new AnalysisListener() {
+		public void update(Analysis a) {
+			latest.set(a);
+			updates.incrementAndGet();
+		}
+	};
+	
+	@After
+	public void tearDown() {
+		analyzer.shutdown();
+	}
+	
+	@Test
+	public void testScoresWinsAndLosses() throws InterruptedException {
+		BitBoard board = new BitBoard();
+		for (int i = 0; i < 3; i++) {
+			board.place(player1, 0);
+			board.place(player2, 1);
+		}
+		
+		int id = analyzer.start(board, player1, player2, listener);
+		
+		// Column 0 wins, column 1 blocks, and every other column loses
+		Analysis a = null;
+		long deadline = System.currentTimeMillis() + 10000;
+		while (System.currentTimeMillis() < deadline) {
+			a = latest.get();
+			if (a != null && a.getDepth(6) >= 2 && a.getDepth(1) >= 2) {
+				break;
+			}
+			Thread.sleep(10);
+		}
+		
+		assertEquals(id, a.getId());
+		assertEquals(Analysis.WIN_SCORE - 1, a.getScore(0));
+		assertEquals("win 1", a.getText(0));
+		assertEquals(0, a.getBestColumn());
+		for (int col = 2; col < SimpleBoard.COLS; col++) {
+			assertEquals(-(Analysis.WIN_SCORE - 2), a.getScore(col));
+			assertEquals("loss 2", a.getText(col));
+		}
+	}
+	
+	@Test
+	public void testCancelStopsUpdates() throws InterruptedException {
+		int id = analyzer.start(new BitBoard(), player1, player2, listener);
+		
+		long deadline = System.currentTimeMillis() + 10000;
+		while (updates.get() == 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(1);
+		}
+		assertTrue(updates.get() > 0);
+		assertEquals(id, latest.get().getId());
+		
+		analyzer.cancel();
+		Thread.sleep(100);
+		int count = updates.get();
+		Thread.sleep(200);
+		
+		assertEquals(count, updates.get());
+	}
+	
+	@Test
+	public void testStartCopiesBoard() throws InterruptedException {
+		BitBoard board = new BitBoard();
+		int id = analyzer.start(board, player1, player2, listener);
+		
+		// Filling a column right away does not change what is analysed
+		for (int i = 0; i < SimpleBoard.ROWS; i++) {
+			board.place(i % 2 == 0 ? player1 : player2, 3);
+		}
+		
+		long deadline = System.currentTimeMillis() + 10000;
+		while (System.currentTimeMillis() < deadline) {
+			Analysis a = latest.get();
+			if (a != null && a.hasScore(3)) {
+				break;
+			}
+			Thread.sleep(10);
+		}
+		
+		assertEquals(id, latest.get().getId());
+		assertTrue(latest.get().hasScore(3));
+	}
+}
@@ -0,0 +1,60 @@
+package connect4.test;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import connect4.gui.AnimationClock;
+
+/**
+ * Unit test for the animation clock.
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class AnimationClockTest {
+
+	@Test
+	public void testSteps() {
+		AnimationClock clock = new AnimationClock(10);
+		clock.start(1000);
+		
+		assertEquals(0, clock.advance(1004));
+		assertEquals(0.4, clock.getAlpha(), 1e-9);
+		
+		// The rest of the last frame is carried over
+		assertEquals(1, clock.advance(1017));
+		assertEquals(0.7, clock.getAlpha(), 1e-9);
+		assertEquals(3, clock.advance(1043));
+		assertEquals(0.3, clock.getAlpha(), 1e-9);
+	}
+	
+	@Test
+	public void testFrameRateIndependent() {
+		// The same time in many short frames or a few long ones gives the same steps
+		AnimationClock fast = new AnimationClock(10);
+		AnimationClock slow = new AnimationClock(10);
+		fast.start(0);
+		slow.start(0);
+		
+		int fastSteps = 0;
+		for (int t = 3; t <= 300; t += 3) {
+			fastSteps += fast.advance(t);
+		}
+		int slowSteps = 0;
+		for (int t = 100; t <= 300; t += 100) {
+			slowSteps += slow.advance(t);
+		}
+		
+		assertEquals(30, fastSteps);
+		assertEquals(30, slowSteps);
+	}
+	
+	@Test
+	public void testStall() {
+		AnimationClock clock = new AnimationClock(10);
+		clock.start(0);
+		
+		assertEquals(AnimationClock.MAX_STEPS, clock.advance(1000000));
+		assertEquals(1, clock.advance(1000010));
+	}
+}
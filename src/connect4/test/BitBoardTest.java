@@ -0,0 +1,47 @@
+package connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import connect4.BitBoard;
+import connect4.Board;
+import connect4.Player;
+
+/**
+ * Runs the board tests against the bit board, and tests the masks.
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class BitBoardTest extends BoardTest {
+
+	@Override
+	protected Board createBoard() {
+		return new BitBoard();
+	}
+	
+	@Test
+	public void testMasks() {
+		BitBoard board = new BitBoard();
+		Player a = new Player("A");
+		Player b = new Player("B");
+		
+		board.place(a, 0);
+		board.place(b, 0);
+		board.place(a, 6);
+		
+		assertEquals(1L << 1, board.getMask(b));
+		assertEquals(1L | 1L << (6 * BitBoard.HEIGHT), board.getMask(a));
+		assertEquals(board.getMask(a) | board.getMask(b), board.getMask());
+	}
+	
+	@Test
+	public void testNoWrapAroundColumns() {
+		// The top three cells of column 0 and the bottom cell of column 1
+		// are only separated by the empty bit on top of column 0
+		assertFalse(BitBoard.isWin((1L << 3) | (1L << 4) | (1L << 5) | (1L << 7)));
+		assertTrue(BitBoard.isWin(0xFL));
+	}
+}
@@ -4,8 +4,11 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.List;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -28,11 +31,18 @@ public class BoardTest {
 	
 	@Before
 	public void setupBoard() {
-		board = new SimpleBoard();
+		board = createBoard();
 		player1 = new Player();
 		player2 = new Player();
 	}
 	
+	/**
+	 * @return The board implementation under test
+	 */
+	protected Board createBoard() {
+		return new SimpleBoard();
+	}
+	
 	@Test
 	public void testEmptyBoardOnStart() {
 		Cell[][] matrix = board.getMatrix();
@@ -162,6 +172,59 @@ public class BoardTest {
 		assertEquals(winner, player1);
 	}
 	
+	@Test
+	public void testUndo() {
+		board.place(player1, 2);
+		board.place(player2, 2);
+		board.place(player1, 3);
+		
+		assertEquals(3, board.getMoveCount());
+		assertEquals(Position.valueOf(0, 3), board.undo());
+		assertNull(board.getMatrix()[0][3]);
+		assertEquals(Position.valueOf(1, 2), board.getLastPosition());
+		assertEquals(2, board.getMoveCount());
+		
+		// The column can be used again, and the removed coin is gone
+		board.place(player2, 2);
+		assertEquals(Position.valueOf(2, 2), board.getLastPosition());
+		assertEquals(player2, board.getMatrix()[2][2].getPlayer());
+		
+		board.undo();
+		board.undo();
+		board.undo();
+		assertNull(board.getLastPosition());
+		assertNull(board.undo());
+		assertEquals(0, board.getMoveCount());
+	}
+	
+	@Test
+	public void testCheckAfterUndo() {
+		for (int i = 0; i < SimpleBoard.N; i++) {
+			board.place(player1, i);
+		}
+		assertEquals(player1, board.check());
+		
+		board.undo();
+		assertNull(board.check());
+		
+		// The last position is now the third coin, still owned by player 1
+		board.place(player2, 3);
+		assertNull(board.check());
+	}
+	
+	@Test
+	public void testHistory() {
+		board.place(player1, 5);
+		board.place(player2, 1);
+		board.place(player1, 5);
+		
+		List<Position> history = board.getHistory();
+		assertEquals(3, history.size());
+		assertEquals(Position.valueOf(0, 5), history.get(0));
+		assertEquals(Position.valueOf(0, 1), history.get(1));
+		assertEquals(Position.valueOf(1, 5), history.get(2));
+	}
+	
 	@Test
 	public void testIsFull() {
 		Player cur = player1;
@@ -185,5 +248,16 @@ public class BoardTest {
 		assertTrue(board.isFull());
 	}
 	
-
+	@Test
+	public void testPlaceReusesObjects() {
+		assertSame(Position.valueOf(0, 3), board.place(player1, 3));
+		Cell cell = board.getMatrix()[0][3];
+		
+		board.undo();
+		board.place(player1, 3);
+		
+		assertSame(Position.valueOf(0, 3), board.getLastPosition());
+		assertSame(cell, board.getMatrix()[0][3]);
+	}
+	
 }
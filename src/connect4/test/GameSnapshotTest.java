@@ -0,0 +1,79 @@
+package connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import connect4.BitBoard;
+import connect4.Player;
+import connect4.SimpleBoard;
+import connect4.ai.Analysis;
+import connect4.gui.GUIGame.PlayState;
+import connect4.gui.GUIGame.State;
+import connect4.gui.GameSnapshot;
+
+/**
+ * Unit test for the snapshots painted by the GUI.
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class GameSnapshotTest {
+
+	private Player player1 = new Player("X");
+	private Player player2 = new Player("O");
+	
+	@Test
+	public void testCopiesBoard() {
+		BitBoard board = new BitBoard();
+		board.place(player1, 3);
+		board.place(player2, 3);
+		
+		GameSnapshot snapshot = new GameSnapshot(State.PLAYING, PlayState.WAITING_FOR_PLAYER,
+				player1, player2, board, player1, null, 3, 0, 0);
+		
+		// Later changes of the board are not seen
+		board.place(player1, 0);
+		board.undo();
+		board.undo();
+		
+		assertSame(player1, snapshot.getPlayerAt(0, 3));
+		assertSame(player2, snapshot.getPlayerAt(1, 3));
+		assertNull(snapshot.getPlayerAt(2, 3));
+		assertNull(snapshot.getPlayerAt(0, 0));
+		assertEquals(2, snapshot.getMoveCount());
+	}
+	
+	@Test
+	public void testCanPlace() {
+		BitBoard board = new BitBoard();
+		for (int i = 0; i < SimpleBoard.ROWS; i++) {
+			board.place(i % 2 == 0 ? player1 : player2, 0);
+		}
+		
+		GameSnapshot snapshot = new GameSnapshot(State.PLAYING, PlayState.WAITING_FOR_PLAYER,
+				player1, player2, board, player1, null, 0, 0, 0);
+		
+		assertFalse(snapshot.canPlace(0));
+		assertTrue(snapshot.canPlace(1));
+		assertFalse(snapshot.canPlace(SimpleBoard.COLS));
+	}
+	
+	@Test
+	public void testAnalysisOfOtherPosition() {
+		BitBoard board = new BitBoard();
+		Analysis analysis = new Analysis(2, new int[SimpleBoard.COLS], new int[SimpleBoard.COLS]);
+		
+		GameSnapshot current = new GameSnapshot(State.PLAYING, PlayState.WAITING_FOR_PLAYER,
+				player1, player2, board, player1, null, 0, 0, 0, 2, analysis);
+		GameSnapshot stale = new GameSnapshot(State.PLAYING, PlayState.WAITING_FOR_PLAYER,
+				player1, player2, board, player1, null, 0, 0, 0, 3, analysis);
+		
+		assertSame(analysis, current.getAnalysis());
+		assertNull(stale.getAnalysis());
+		assertEquals(3, stale.getAnalysisId());
+	}
+}
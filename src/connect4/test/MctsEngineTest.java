@@ -0,0 +1,88 @@
+package connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import connect4.BitBoard;
+import connect4.Player;
+import connect4.ai.MctsEngine;
+
+/**
+ * Unit test for the Monte Carlo engine
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class MctsEngineTest {
+
+	private Player player1;
+	private Player player2;
+	private BitBoard board;
+	
+	@Before
+	public void setupBoard() {
+		board = new BitBoard();
+		player1 = new Player("X");
+		player2 = new Player("O");
+	}
+	
+	@Test
+	public void testTakesWin() {
+		board.place(player1, 0);
+		board.place(player2, 6);
+		board.place(player1, 1);
+		board.place(player2, 6);
+		board.place(player1, 2);
+		board.place(player2, 5);
+		
+		MctsEngine engine = new MctsEngine(5000, 1);
+		assertEquals(3, engine.search(board, player1, player2));
+		assertTrue(engine.getWinRate() > 0.9);
+	}
+	
+	@Test
+	public void testBlocksThreat() {
+		board.place(player1, 6);
+		board.place(player2, 2);
+		board.place(player1, 6);
+		board.place(player2, 2);
+		board.place(player1, 0);
+		board.place(player2, 2);
+		
+		MctsEngine engine = new MctsEngine(20000, 2);
+		assertEquals(2, engine.search(board, player1, player2));
+		engine.shutdown();
+	}
+	
+	@Test
+	public void testPlayoutBudget() {
+		MctsEngine engine = new MctsEngine(3001, 2);
+		engine.search(board, player1, player2);
+		assertEquals(3001, engine.getNodes());
+		assertEquals(0, board.getMoveCount());
+		engine.shutdown();
+	}
+	
+	@Test
+	public void testSameColumnOnOneThread() {
+		board.place(player1, 3);
+		board.place(player2, 2);
+		
+		int col = new MctsEngine(10000, 1).search(board, player1, player2);
+		assertEquals(col, new MctsEngine(10000, 1).search(board, player1, player2));
+	}
+	
+	@Test
+	public void testTimeLimit() {
+		MctsEngine engine = new MctsEngine(Long.MAX_VALUE, 1);
+		engine.setTimeLimit(100);
+		
+		long start = System.currentTimeMillis();
+		int col = engine.search(board, player1, player2);
+		
+		assertTrue(col >= 0);
+		assertTrue(System.currentTimeMillis() - start < 1000);
+	}
+}
@@ -0,0 +1,141 @@
+package connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import connect4.BitBoard;
+import connect4.Board;
+import connect4.MoveJournal;
+import connect4.Persistence;
+import connect4.Player;
+import connect4.SimpleBoard;
+
+/**
+ * Unit test for the move journal.
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class MoveJournalTest {
+
+	private Player player1 = new Player("X");
+	private Player player2 = new Player("O");
+	private File dir;
+	
+	@Before
+	public void createDir() throws IOException {
+		dir = File.createTempFile("journal", "");
+		dir.delete();
+		dir.mkdir();
+	}
+	
+	@After
+	public void deleteDir() {
+		for (File file : dir.listFiles()) {
+			file.delete();
+		}
+		dir.delete();
+	}
+	
+	/**
+	 * Plays the moves on the board and logs them.
+	 */
+	private void play(Board board, MoveJournal journal, String moves) throws IOException {
+		for (int i = 0; i < moves.length(); i++) {
+			Player player = board.getMoveCount() % 2 == 0 ? player1 : player2;
+			board.place(player, moves.charAt(i) - '1');
+			journal.placed(player, moves.charAt(i) - '1');
+		}
+	}
+	
+	@Test
+	public void testRecover() throws IOException {
+		Board board = new SimpleBoard();
+		MoveJournal journal = new MoveJournal(dir, "game", player1, player2, board);
+		journal.start(player1);
+		play(board, journal, "44536");
+		
+		// Not closed, as if the program crashed
+		Board recovered = new BitBoard();
+		MoveJournal other = new MoveJournal(dir, "game", player1, player2, recovered);
+		
+		assertTrue(other.exists());
+		assertSame(player2, other.recover());
+		assertEquals(board.getHistory(), recovered.getHistory());
+		assertSame(player1, recovered.getMatrix()[0][3].getPlayer());
+		journal.close();
+	}
+	
+	@Test
+	public void testTornTail() throws IOException {
+		Board board = new SimpleBoard();
+		MoveJournal journal = new MoveJournal(dir, "game", player1, player2, board, 0, 0);
+		journal.start(player1);
+		play(board, journal, "123");
+		journal.close();
+		
+		File file = dir.listFiles()[0];
+		long length = file.length();
+		FileOutputStream out = new FileOutputStream(file, true);
+		out.write(new byte[] { 0, 0, 0 });
+		out.close();
+		
+		Board recovered = new SimpleBoard();
+		assertSame(player2, new MoveJournal(dir, "game", player1, player2, recovered).recover());
+		assertEquals(3, recovered.getMoveCount());
+		assertEquals(length, file.length());
+	}
+	
+	@Test
+	public void testUndoAndCompact() throws IOException {
+		Board board = new SimpleBoard();
+		MoveJournal journal = new MoveJournal(dir, "game", player1, player2, board, 1, 8);
+		journal.start(player1);
+		play(board, journal, "44");
+		
+		for (int i = 0; i < 4; i++) {
+			board.undo();
+			journal.undone();
+			play(board, journal, "5");
+		}
+		
+		// The undos made the log long enough to be compacted to the two coins
+		assertEquals(2, journal.getEntries());
+		journal.close();
+		
+		Board recovered = new SimpleBoard();
+		assertSame(player1, new MoveJournal(dir, "game", player1, player2, recovered).recover());
+		assertEquals(board.getHistory(), recovered.getHistory());
+		assertSame(player2, recovered.getMatrix()[0][4].getPlayer());
+	}
+	
+	@Test
+	public void testPersistenceReplaysJournal() throws IOException {
+		Board board = new SimpleBoard();
+		Persistence persistence = new Persistence(player1, player2, board, dir);
+		persistence.persist("game", player1);
+		
+		MoveJournal journal = persistence.getJournal("game");
+		journal.start(player1);
+		play(board, journal, "4455");
+		journal.close();
+		
+		Board loaded = new SimpleBoard();
+		assertSame(player1, new Persistence(player1, player2, loaded, dir).load("game"));
+		assertEquals(4, loaded.getMoveCount());
+		
+		// Saving the game replaces the journal
+		persistence.persist("game", player1);
+		assertFalse(journal.exists());
+		assertEquals(1, dir.listFiles().length);
+	}
+}
@@ -0,0 +1,103 @@
+package connect4.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import connect4.BitBoard;
+import connect4.Board;
+import connect4.MoveOrdering;
+import connect4.Player;
+import connect4.SimpleBoard;
+import connect4.ai.AlphaBetaSearch;
+import connect4.ai.CenterFirstOrdering;
+import connect4.ai.HistoryOrdering;
+import connect4.ai.ThreatFirstOrdering;
+
+/**
+ * Unit test for the move generation and the move orderings.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class MoveOrderingTest {
+
+	private Player player1 = new Player("X");
+	private Player player2 = new Player("O");
+
+	private int[] getMoves(Board board, MoveOrdering ordering) {
+		int[] columns = new int[SimpleBoard.COLS];
+		int count = board.getMoves(columns, ordering, player1, player2);
+		return Arrays.copyOf(columns, count);
+	}
+
+	@Test
+	public void testLegalColumns() {
+		Board simple = new SimpleBoard();
+		Board bits = new BitBoard();
+		for (int i = 0; i < SimpleBoard.ROWS; i++) {
+			simple.place(i % 2 == 0 ? player1 : player2, 2);
+			bits.place(i % 2 == 0 ? player1 : player2, 2);
+		}
+
+		assertArrayEquals(new int[] { 0, 1, 3, 4, 5, 6 }, getMoves(simple, null));
+		assertArrayEquals(new int[] { 0, 1, 3, 4, 5, 6 }, getMoves(bits, null));
+	}
+
+	@Test
+	public void testCenterFirst() {
+		assertArrayEquals(new int[] { 3, 2, 4, 1, 5, 0, 6 }, getMoves(new BitBoard(), new CenterFirstOrdering()));
+	}
+
+	@Test
+	public void testThreatFirst() {
+		Board board = new BitBoard();
+		// X threatens to win in column 0, O in column 6
+		int[] moves = { 0, 6, 0, 6, 0, 6 };
+		for (int i = 0; i < moves.length; i++) {
+			board.place(i % 2 == 0 ? player1 : player2, moves[i]);
+		}
+		long key = board.getKey();
+
+		int[] ordered = getMoves(board, new ThreatFirstOrdering(new CenterFirstOrdering()));
+		assertArrayEquals(new int[] { 0, 6, 3, 2, 4, 1, 5 }, ordered);
+		assertEquals(key, board.getKey());
+	}
+
+	@Test
+	public void testKillerFirst() {
+		HistoryOrdering ordering = new HistoryOrdering(new CenterFirstOrdering());
+		Board board = new BitBoard();
+
+		ordering.cutoff(board, 5, 3);
+		assertEquals(5, getMoves(board, ordering)[0]);
+
+		ordering.clear();
+		assertEquals(3, getMoves(board, ordering)[0]);
+	}
+
+	@Test
+	public void testOrderingsAgree() {
+		BitBoard board = new BitBoard();
+		int[] moves = { 3, 3, 4, 2, 2, 4 };
+		for (int i = 0; i < moves.length; i++) {
+			board.place(i % 2 == 0 ? player1 : player2, moves[i]);
+		}
+
+		AlphaBetaSearch plain = new AlphaBetaSearch(7, null);
+		plain.search(board, player1, player2);
+
+		MoveOrdering[] orderings = {
+			new CenterFirstOrdering(),
+			new ThreatFirstOrdering(new CenterFirstOrdering()),
+			new HistoryOrdering(new CenterFirstOrdering()),
+		};
+		for (MoveOrdering ordering : orderings) {
+			AlphaBetaSearch search = new AlphaBetaSearch(7, ordering);
+			search.search(board, player1, player2);
+			assertEquals(plain.getScore(), search.getScore());
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import connect4.BitBoard;
+import connect4.Player;
+import connect4.ai.NegamaxEngine;
+import connect4.ai.ParallelEngine;
+import connect4.ai.TranspositionTable;
+
+/**
+ * Unit test for the negamax engine
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class NegamaxEngineTest {
+
+	private Player player1;
+	private Player player2;
+	private BitBoard board;
+	
+	@Before
+	public void setupBoard() {
+		board = new BitBoard();
+		player1 = new Player("X");
+		player2 = new Player("O");
+	}
+	
+	@Test
+	public void testTakesWin() {
+		board.place(player1, 0);
+		board.place(player2, 6);
+		board.place(player1, 1);
+		board.place(player2, 6);
+		board.place(player1, 2);
+		board.place(player2, 5);
+		
+		NegamaxEngine engine = new NegamaxEngine(6);
+		assertEquals(3, engine.search(board, player1, player2));
+		assertEquals(NegamaxEngine.WIN_SCORE - 1, engine.getScore());
+	}
+	
+	@Test
+	public void testBlocksThreat() {
+		board.place(player1, 6);
+		board.place(player2, 2);
+		board.place(player1, 6);
+		board.place(player2, 2);
+		board.place(player1, 0);
+		board.place(player2, 2);
+		
+		assertEquals(2, new NegamaxEngine(4).search(board, player1, player2));
+	}
+	
+	@Test
+	public void testParallelBlocksThreat() {
+		board.place(player1, 6);
+		board.place(player2, 2);
+		board.place(player1, 6);
+		board.place(player2, 2);
+		board.place(player1, 0);
+		board.place(player2, 2);
+		
+		ParallelEngine engine = new ParallelEngine(8, 3, new TranspositionTable(1));
+		assertEquals(2, engine.search(board, player1, player2));
+		assertEquals(6, board.getMoveCount());
+		engine.shutdown();
+	}
+	
+	@Test
+	public void testBoardIsRestored() {
+		board.place(player1, 3);
+		board.place(player2, 3);
+		
+		new NegamaxEngine(8).search(board, player1, player2);
+		
+		assertEquals(2, board.getMoveCount());
+		assertEquals(player2, board.getMatrix()[1][3].getPlayer());
+	}
+	
+	@Test
+	public void testTimeLimit() {
+		NegamaxEngine engine = new NegamaxEngine(42);
+		engine.setTimeLimit(100);
+		
+		long start = System.currentTimeMillis();
+		int col = engine.search(board, player1, player2);
+		
+		assertTrue(System.currentTimeMillis() - start < 1000);
+		assertTrue(board.canPlace(col));
+		assertTrue(engine.getCompletedDepth() > 0);
+		assertTrue(engine.getCompletedDepth() < 42);
+	}
+	
+	@Test
+	public void testNodeBudget() {
+		NegamaxEngine engine = new NegamaxEngine(20, 1000);
+		int col = engine.search(board, player1, player2);
+		
+		assertTrue(board.canPlace(col));
+		assertTrue(engine.getNodes() <= 1000 + 20);
+	}
+	
+	@Test
+	public void testStopBeforeSearchStarts() {
+		NegamaxEngine engine = new NegamaxEngine(42);
+		
+		// The stop arrives after the request, but before the search runs
+		int request = engine.request();
+		engine.stop();
+		int col = engine.search(board, player1, player2, request);
+		
+		// Only the first iteration, which has no inner nodes to stop at, completes
+		assertTrue(board.canPlace(col));
+		assertTrue(engine.getCompletedDepth() <= 1);
+		assertTrue(engine.getNodes() <= 8);
+	}
+	
+	@Test
+	public void testStopBeforeRequest() {
+		NegamaxEngine engine = new NegamaxEngine(6);
+		
+		// A stop of an earlier search does not stop the next one
+		engine.stop();
+		engine.search(board, player1, player2);
+		
+		assertEquals(6, engine.getCompletedDepth());
+	}
+	
+	@Test
+	public void testParallelStopBeforeSearchStarts() {
+		ParallelEngine engine = new ParallelEngine(42, 2, new TranspositionTable(1));
+		
+		int request = engine.request();
+		engine.stop();
+		int col = engine.search(board, player1, player2, request);
+		engine.shutdown();
+		
+		assertTrue(board.canPlace(col));
+		assertTrue(engine.getCompletedDepth() <= 1);
+	}
+}
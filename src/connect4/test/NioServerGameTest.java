@@ -0,0 +1,153 @@
+package connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import connect4.server.Frame;
+import connect4.server.LoadGenerator;
+import connect4.server.NioServerGame;
+
+/**
+ * Unit test for the binary game server.
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class NioServerGameTest {
+
+	private NioServerGame server;
+	private Thread thread;
+	
+	@Before
+	public void startServer() throws IOException {
+		server = new NioServerGame(0);
+		thread = new Thread(new Runnable() {
+			public void run() {
+				server.play();
+			}
+		});
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	@After
+	public void stopServer() throws InterruptedException {
+		server.stop();
+		thread.join();
+	}
+	
+	private SocketChannel connect() throws IOException {
+		return SocketChannel.open(new InetSocketAddress("localhost", server.getPort()));
+	}
+	
+	private void send(SocketChannel channel, int gameId, int seq, byte type, int code) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(Frame.SIZE);
+		Frame.put(buffer, gameId, seq, type, code);
+		buffer.flip();
+		channel.write(buffer);
+	}
+	
+	private ByteBuffer receive(SocketChannel channel) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(Frame.SIZE);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				throw new IOException("Closed");
+			}
+		}
+		return buffer;
+	}
+	
+	private void expect(SocketChannel channel, byte type, int code) throws IOException {
+		ByteBuffer frame = receive(channel);
+		assertEquals(type, Frame.getType(frame, 0));
+		assertEquals(code, Frame.getCode(frame, 0));
+	}
+	
+	@Test
+	public void testGame() throws IOException {
+		SocketChannel a = connect();
+		SocketChannel b = connect();
+		send(a, 0, 0, Frame.JOIN, 0);
+		send(b, 0, 0, Frame.JOIN, 0);
+		
+		// The server may handle either JOIN first, so the roles come from the START codes
+		ByteBuffer startA = receive(a);
+		ByteBuffer startB = receive(b);
+		assertEquals(Frame.START, Frame.getType(startA, 0));
+		assertEquals(Frame.START, Frame.getType(startB, 0));
+		assertEquals(1, Frame.getCode(startA, 0) + Frame.getCode(startB, 0));
+		int id = Frame.getGameId(startA, 0);
+		assertEquals(id, Frame.getGameId(startB, 0));
+		
+		boolean aMovesFirst = Frame.getCode(startA, 0) == 0;
+		SocketChannel x = aMovesFirst ? a : b;
+		SocketChannel o = aMovesFirst ? b : a;
+		
+		send(o, id, 1, Frame.MOVE, 0);
+		ByteBuffer error = receive(o);
+		assertEquals(Frame.NOT_YOUR_TURN, Frame.getCode(error, 0));
+		assertEquals(1, Frame.getSeq(error, 0));
+		
+		for (int i = 0; i < 3; i++) {
+			send(x, id, i + 1, Frame.MOVE, 3);
+			expect(x, Frame.ACCEPTED, 3);
+			expect(o, Frame.OPPONENT, 3);
+			
+			send(o, id, i + 2, Frame.MOVE, 4);
+			expect(o, Frame.ACCEPTED, 4);
+			expect(x, Frame.OPPONENT, 4);
+		}
+		
+		send(x, id, 4, Frame.MOVE, 3);
+		expect(x, Frame.ACCEPTED, 3);
+		expect(x, Frame.END, Frame.WON);
+		expect(o, Frame.OPPONENT, 3 | Frame.LAST);
+		expect(o, Frame.END, Frame.LOST);
+		
+		x.close();
+		o.close();
+	}
+	
+	@Test
+	public void testResetClients() throws IOException {
+		// Clients that reset at once do not stop the server
+		for (int i = 0; i < 20; i++) {
+			SocketChannel channel = connect();
+			channel.setOption(StandardSocketOptions.SO_LINGER, 0);
+			channel.close();
+		}
+		
+		SocketChannel a = connect();
+		SocketChannel b = connect();
+		send(a, 0, 0, Frame.JOIN, 0);
+		send(b, 0, 0, Frame.JOIN, 0);
+		
+		assertEquals(Frame.START, Frame.getType(receive(a), 0));
+		assertEquals(Frame.START, Frame.getType(receive(b), 0));
+		
+		a.close();
+		b.close();
+	}
+	
+	@Test
+	public void testLoad() throws IOException {
+		LoadGenerator generator = new LoadGenerator(new InetSocketAddress("localhost", server.getPort()), 8, 1);
+		generator.run(1);
+		
+		assertEquals(0, generator.getErrors());
+		assertTrue(generator.getGames() > 0);
+		assertTrue(generator.getPercentile(0.5) <= generator.getPercentile(0.99));
+		
+		// Buffers were only allocated for the connections
+		assertTrue(server.getBuffersAllocated() <= 2 * 8);
+	}
+}
@@ -0,0 +1,109 @@
+package connect4.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import connect4.BitBoard;
+import connect4.Player;
+import connect4.SimpleBoard;
+import connect4.ai.OpeningBook;
+
+/**
+ * Unit test for the opening book.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class OpeningBookTest {
+
+	private Player player1 = new Player("X");
+	private Player player2 = new Player("O");
+
+	/**
+	 * Writes a book with the positions after the first coin, where
+	 * only the center column is a win for the first player.
+	 */
+	private OpeningBook createBook() throws IOException {
+		BitBoard board = new BitBoard();
+		long[] keys = new long[SimpleBoard.COLS];
+		for (int col = 0; col < SimpleBoard.COLS; col++) {
+			board.place(player1, col);
+			keys[col] = OpeningBook.getCanonicalKey(board);
+			board.undo();
+		}
+		long center = keys[3];
+
+		// Mirror images share a key, so only four records are written
+		long[] unique = new long[4];
+		System.arraycopy(keys, 0, unique, 0, 4);
+		Arrays.sort(unique);
+
+		File file = File.createTempFile("test", ".book");
+		file.deleteOnExit();
+
+		DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+		out.writeInt(OpeningBook.MAGIC);
+		out.writeInt(OpeningBook.VERSION);
+		out.writeInt(1);
+		out.writeInt(1);
+		out.writeInt(unique.length);
+		for (long key : unique) {
+			out.writeLong(key);
+			out.writeByte(key == center ? -5 : 0);
+		}
+		out.close();
+
+		return new OpeningBook(file);
+	}
+
+	@Test
+	public void testMirrorImagesShareKey() {
+		BitBoard a = new BitBoard();
+		a.place(player1, 1);
+		a.place(player2, 2);
+
+		BitBoard b = new BitBoard();
+		b.place(player1, 5);
+		b.place(player2, 4);
+
+		assertEquals(OpeningBook.getCanonicalKey(a), OpeningBook.getCanonicalKey(b));
+	}
+
+	@Test
+	public void testGetScore() throws IOException {
+		OpeningBook book = createBook();
+		assertEquals(4, book.size());
+
+		BitBoard board = new BitBoard();
+		board.place(player1, 3);
+		assertEquals(-5, book.getScore(OpeningBook.getCanonicalKey(board)));
+
+		board.place(player2, 3);
+		assertEquals(OpeningBook.NOT_FOUND, book.getScore(OpeningBook.getCanonicalKey(board)));
+	}
+
+	@Test
+	public void testGetBestMove() throws IOException {
+		OpeningBook book = createBook();
+		BitBoard board = new BitBoard();
+		assertEquals(3, book.getBestMove(board, player1, player2));
+		assertEquals(0, board.getMoveCount());
+
+		// The book does not cover later positions
+		board.place(player1, 0);
+		assertEquals(-1, book.getBestMove(board, player2, player1));
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotABook() throws IOException {
+		File file = File.createTempFile("test", ".book");
+		file.deleteOnExit();
+		new OpeningBook(file);
+	}
+}
@@ -0,0 +1,275 @@
+package connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.util.zip.CRC32;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import connect4.BitBoard;
+import connect4.Board;
+import connect4.GameStore;
+import connect4.Persistence;
+import connect4.Player;
+import connect4.SavedGame;
+import connect4.SimpleBoard;
+
+/**
+ * Unit test for saving and loading games.
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class PersistenceTest {
+
+	private Player player1 = new Player("X");
+	private Player player2 = new Player("O");
+	private File dir;
+	
+	@Before
+	public void createDir() throws IOException {
+		dir = File.createTempFile("games", "");
+		dir.delete();
+		dir.mkdir();
+	}
+	
+	@After
+	public void deleteDir() {
+		for (File file : dir.listFiles()) {
+			file.delete();
+		}
+		dir.delete();
+	}
+	
+	private Board play(String moves) {
+		Board board = new SimpleBoard();
+		for (int i = 0; i < moves.length(); i++) {
+			board.place(i % 2 == 0 ? player1 : player2, moves.charAt(i) - '1');
+		}
+		return board;
+	}
+	
+	@Test
+	public void testRoundTrip() {
+		Board board = play("4453326617");
+		new Persistence(player1, player2, board, dir).persist("test", player1);
+		
+		Board loaded = new BitBoard();
+		Player current = new Persistence(player1, player2, loaded, dir).load("test");
+		
+		assertSame(player1, current);
+		assertEquals(board.getHistory(), loaded.getHistory());
+		assertEquals(board.getKey(), loaded.getKey());
+		assertEquals("test", new Persistence(player1, player2, loaded, dir).getSavedGames().get(0));
+	}
+	
+	@Test
+	public void testSecondPlayerToMove() {
+		Board board = play("444");
+		new Persistence(player1, player2, board, dir).persist("odd", player2);
+		
+		assertSame(player2, new Persistence(player1, player2, new SimpleBoard(), dir).load("odd"));
+	}
+	
+	@Test
+	public void testCorruptGame() throws IOException {
+		new Persistence(player1, player2, play("4453"), dir).persist("bad", player1);
+		
+		SavedGame game = new GameStore(dir).find("bad");
+		RandomAccessFile raf = new RandomAccessFile(new File(dir, GameStore.FILE_NAME), "rw");
+		raf.seek(game.getOffset() + game.getLength() - 6);
+		raf.write(0x55);
+		raf.close();
+		
+		assertNull(new Persistence(player1, player2, new SimpleBoard(), dir).load("bad"));
+	}
+	
+	@Test
+	public void testLoadTextFormat() throws IOException {
+		PrintWriter writer = new PrintWriter(new FileWriter(new File(dir, "board." + "old".hashCode() + ".txt")));
+		writer.println("old");
+		writer.println("O");
+		writer.println("0 3 X");
+		writer.println("0 4 O");
+		writer.println("1 3 X");
+		writer.close();
+		
+		Board board = new SimpleBoard();
+		Persistence persistence = new Persistence(player1, player2, board, dir);
+		
+		// Loading works before and after the file is moved into the store
+		assertSame(player2, new Persistence(player1, player2, new SimpleBoard(), dir).load("old"));
+		assertEquals("old", persistence.getSavedGames().get(0));
+		assertEquals(1, dir.listFiles().length);
+		assertEquals(GameStore.FILE_NAME, dir.listFiles()[0].getName());
+		
+		assertSame(player2, persistence.load("old"));
+		assertEquals(3, board.getMoveCount());
+		assertSame(player1, board.getMatrix()[1][3].getPlayer());
+		assertEquals(1, new GameStore(dir).find("old").getPlayerToMove());
+	}
+	
+	@Test
+	public void testTextRoundTrip() throws IOException {
+		// Coins are listed row by row, which is not an order they could be played in
+		PrintWriter writer = new PrintWriter(new FileWriter(new File(dir, "board." + "rows".hashCode() + ".txt")));
+		writer.println("rows");
+		writer.println("X");
+		writer.println("0 0 X");
+		writer.println("0 1 X");
+		writer.println("1 0 O");
+		writer.println("1 1 O");
+		writer.close();
+		
+		Board board = new SimpleBoard();
+		Persistence persistence = new Persistence(player1, player2, board, dir);
+		assertSame(player1, persistence.load("rows"));
+		persistence.persist("rows", player1);
+		
+		Board loaded = new BitBoard();
+		assertSame(player1, new Persistence(player1, player2, loaded, dir).load("rows"));
+		assertSame(player1, loaded.getMatrix()[0][0].getPlayer());
+		assertSame(player1, loaded.getMatrix()[0][1].getPlayer());
+		assertSame(player2, loaded.getMatrix()[1][0].getPlayer());
+		assertSame(player2, loaded.getMatrix()[1][1].getPlayer());
+	}
+	
+	@Test
+	public void testMigrateTextRoundTrip() throws IOException {
+		PrintWriter writer = new PrintWriter(new FileWriter(new File(dir, "board." + "rows".hashCode() + ".txt")));
+		writer.println("rows");
+		writer.println("O");
+		writer.println("0 3 X");
+		writer.println("0 4 X");
+		writer.println("1 3 O");
+		writer.close();
+		
+		// Listing moves the game into the store, and the text file is deleted once it is checked
+		assertEquals("rows", new Persistence(player1, player2, new SimpleBoard(), dir).getSavedGames().get(0));
+		assertEquals(1, dir.listFiles().length);
+		
+		Board loaded = new SimpleBoard();
+		assertSame(player2, new Persistence(player1, player2, loaded, dir).load("rows"));
+		assertSame(player1, loaded.getMatrix()[0][3].getPlayer());
+		assertSame(player1, loaded.getMatrix()[0][4].getPlayer());
+		assertSame(player2, loaded.getMatrix()[1][3].getPlayer());
+	}
+	
+	@Test
+	public void testLoadVersion1() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(Persistence.MAGIC);
+		out.writeByte(1);
+		out.writeUTF("v1");
+		out.writeByte(2);
+		out.writeUTF("X");
+		out.writeUTF("O");
+		out.writeByte(0);
+		out.writeByte(0);
+		out.writeByte(2);
+		// Columns 3 and 3, three bits each, the players take turns
+		out.writeByte(3 | 3 << 3);
+		CRC32 crc = new CRC32();
+		crc.update(bytes.toByteArray());
+		out.writeInt((int) crc.getValue());
+		out.close();
+		
+		FileOutputStream file = new FileOutputStream(new File(dir, "board." + "v1".hashCode() + ".bin"));
+		file.write(bytes.toByteArray());
+		file.close();
+		
+		Board board = new SimpleBoard();
+		assertSame(player1, new Persistence(player1, player2, board, dir).load("v1"));
+		assertSame(player1, board.getMatrix()[0][3].getPlayer());
+		assertSame(player2, board.getMatrix()[1][3].getPlayer());
+	}
+	
+	@Test
+	public void testNamesWithSameHashCode() {
+		// "Aa" and "BB" have the same hash code
+		new Persistence(player1, player2, play("44"), dir).persist("Aa", player1);
+		new Persistence(player1, player2, play("123"), dir).persist("BB", player2);
+		
+		Board board = new SimpleBoard();
+		assertSame(player1, new Persistence(player1, player2, board, dir).load("Aa"));
+		assertEquals(2, board.getMoveCount());
+		assertEquals(2, new Persistence(player1, player2, board, dir).getSavedGames().size());
+	}
+	
+	@Test
+	public void testReplaceAndRemove() throws IOException {
+		Persistence persistence = new Persistence(player1, player2, play("4453"), dir);
+		persistence.persist("a", player1);
+		persistence.persist("b", player1);
+		persistence.persist("a", player1);
+		persistence.remove("b");
+		
+		assertEquals(1, persistence.getSavedGames().size());
+		assertNull(new Persistence(player1, player2, new SimpleBoard(), dir).load("b"));
+		
+		// Compacting keeps only the live game
+		GameStore store = new GameStore(dir);
+		long size = new File(dir, GameStore.FILE_NAME).length();
+		store.compact();
+		assertTrue(new File(dir, GameStore.FILE_NAME).length() < size);
+		assertEquals("a", store.list().get(0).getName());
+		
+		Board board = new BitBoard();
+		assertSame(player1, new Persistence(player1, player2, board, dir).load("a"));
+		assertEquals(4, board.getMoveCount());
+	}
+	
+	@Test
+	public void testConcurrentStores() throws Exception {
+		// Two stores on the same file, saving at the same time
+		final GameStore[] stores = { new GameStore(dir), new GameStore(dir) };
+		Thread[] threads = new Thread[stores.length];
+		final Exception[] errors = new Exception[stores.length];
+		
+		for (int t = 0; t < threads.length; t++) {
+			final int n = t;
+			threads[t] = new Thread(new Runnable() {
+				public void run() {
+					try {
+						for (int i = 0; i < 50; i++) {
+							stores[n].write(n + "-" + i, new byte[] { (byte) n, (byte) i }, 0);
+						}
+					}
+					catch (Exception e) {
+						errors[n] = e;
+					}
+				}
+			});
+			threads[t].start();
+		}
+		for (int t = 0; t < threads.length; t++) {
+			threads[t].join();
+			if (errors[t] != null) {
+				throw errors[t];
+			}
+		}
+		
+		// No save was lost, and no record overwrote another
+		assertEquals(100, stores[0].list().size());
+		for (int t = 0; t < threads.length; t++) {
+			for (int i = 0; i < 50; i++) {
+				byte[] record = stores[1 - t].read(t + "-" + i);
+				assertEquals(t, record[0]);
+				assertEquals(i, record[1]);
+			}
+		}
+	}
+}
@@ -1,6 +1,8 @@
 package connect4.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 
 import org.junit.Test;
 
@@ -24,6 +26,17 @@ public class PositionTest {
 	@Test
 	public void testEquals() {
 		assertEquals(new Position(1,1), new Position(1,1));
+		assertFalse(new Position(1,1).equals(null));
+	}
+	
+	@Test
+	public void testValueOf() {
+		assertSame(Position.valueOf(2, 3), Position.valueOf(2, 3));
+		assertEquals(new Position(2, 3), Position.valueOf(2, 3));
+		assertEquals(new Position(2, 3).hashCode(), Position.valueOf(2, 3).hashCode());
+		
+		// Positions outside the board are not shared
+		assertEquals(4, Position.valueOf(4, 7).getRow());
 	}
 
 }
@@ -0,0 +1,167 @@
+package connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import connect4.Board;
+import connect4.GameStore;
+import connect4.MoveJournal;
+import connect4.Persistence;
+import connect4.Player;
+import connect4.SaveWriter;
+import connect4.SimpleBoard;
+
+/**
+ * Unit test for the background save writer.
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class SaveWriterTest {
+
+	private Player player1 = new Player("X");
+	private Player player2 = new Player("O");
+	private File dir;
+	private GameStore store;
+	private SaveWriter writer;
+	
+	@Before
+	public void createWriter() throws IOException {
+		dir = File.createTempFile("writer", "");
+		dir.delete();
+		dir.mkdir();
+		
+		store = new GameStore(dir);
+		writer = new SaveWriter(store, 16, 64, 200);
+	}
+	
+	@After
+	public void deleteDir() {
+		writer.close();
+		for (File file : dir.listFiles()) {
+			file.delete();
+		}
+		dir.delete();
+	}
+	
+	@Test
+	public void testCoalesce() throws Exception {
+		Board board = new SimpleBoard();
+		Persistence persistence = new Persistence(player1, player2, board, dir);
+		
+		CompletableFuture<Void> first = persistence.persist("a", player1, writer);
+		board.place(player1, 3);
+		CompletableFuture<Void> second = persistence.persist("a", player2, writer);
+		persistence.persist("b", player2, writer);
+		
+		writer.flush().get();
+		assertTrue(first.isDone() && second.isDone());
+		
+		// Both games were written together, and "a" only once with its latest state
+		assertEquals(3, writer.getSaves());
+		assertEquals(1, writer.getCoalesced());
+		assertEquals(2, writer.getWrites());
+		assertEquals(1, writer.getBatches());
+		assertEquals(2, writer.getMaxQueueDepth());
+		assertEquals(0, writer.getQueueDepth());
+		assertTrue(writer.getMaxLatency() > 0);
+		
+		Board loaded = new SimpleBoard();
+		assertEquals(player2, new Persistence(player1, player2, loaded, dir).load("a"));
+		assertEquals(1, loaded.getMoveCount());
+	}
+	
+	@Test
+	public void testKeepsJournalOfGame() throws Exception {
+		Board board = new SimpleBoard();
+		Persistence persistence = new Persistence(player1, player2, board, dir);
+		MoveJournal journal = persistence.getJournal("a");
+		board.place(player1, 3);
+		journal.start(player2);
+		
+		// The game goes on while the save is queued
+		CompletableFuture<Void> saved = persistence.persist("a", player2, writer, journal);
+		board.place(player2, 4);
+		journal.placed(player2, 4);
+		saved.get();
+		board.place(player1, 4);
+		journal.placed(player1, 4);
+		journal.close();
+		
+		Board loaded = new SimpleBoard();
+		assertEquals(player2, new Persistence(player1, player2, loaded, dir).load("a"));
+		assertEquals(3, loaded.getMoveCount());
+	}
+	
+	@Test
+	public void testDeletesOtherJournal() throws Exception {
+		Board old = new SimpleBoard();
+		MoveJournal journal = new Persistence(player1, player2, old, dir).getJournal("a");
+		old.place(player1, 0);
+		journal.start(player2);
+		journal.close();
+		
+		// Another position is saved under the same name
+		Board board = new SimpleBoard();
+		Persistence persistence = new Persistence(player1, player2, board, dir);
+		board.place(player1, 3);
+		board.place(player2, 3);
+		persistence.persist("a", player1, writer).get();
+		
+		assertFalse(journal.exists());
+		Board loaded = new SimpleBoard();
+		assertEquals(player1, new Persistence(player1, player2, loaded, dir).load("a"));
+		assertEquals(2, loaded.getMoveCount());
+	}
+	
+	@Test
+	public void testCleanupOnWriterThread() throws Exception {
+		final String[] thread = new String[1];
+		writer.save("a", new byte[] { 1, 2, 3 }, 0, new Runnable() {
+			public void run() {
+				thread[0] = Thread.currentThread().getName();
+			}
+		}).get();
+		
+		assertEquals("save-writer", thread[0]);
+	}
+	
+	@Test
+	public void testRemove() throws Exception {
+		Persistence persistence = new Persistence(player1, player2, new SimpleBoard(), dir);
+		persistence.persist("a", player1, writer);
+		writer.remove("a").get();
+		
+		assertEquals(0, store.list().size());
+	}
+	
+	@Test
+	public void testManyGames() throws Exception {
+		Persistence persistence = new Persistence(player1, player2, new SimpleBoard(), dir);
+		
+		// More games than the queue holds, so saving has to wait for the writer
+		for (int i = 0; i < 100; i++) {
+			persistence.persist("game" + i, player1, writer);
+		}
+		writer.flush().get();
+		
+		assertEquals(100, store.list().size());
+		assertEquals(100, writer.getWrites());
+		assertTrue(writer.getMaxQueueDepth() <= 16);
+	}
+	
+	@Test(expected = ExecutionException.class)
+	public void testClosed() throws Exception {
+		writer.close();
+		writer.save("a", new byte[0], 0).get();
+	}
+}
@@ -0,0 +1,115 @@
+package connect4.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import connect4.server.ServerGame;
+
+/**
+ * Unit test for the game server.
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class ServerGameTest {
+
+	private ServerGame server;
+	
+	@Before
+	public void startServer() throws IOException {
+		server = new ServerGame(0);
+		Thread thread = new Thread(new Runnable() {
+			public void run() {
+				server.play();
+			}
+		});
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	@After
+	public void stopServer() {
+		server.stop();
+	}
+	
+	/**
+	 * A client of the server for the test.
+	 */
+	private class Client {
+		Socket socket;
+		BufferedReader in;
+		PrintWriter out;
+		
+		Client() throws IOException {
+			socket = new Socket("localhost", server.getPort());
+			in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "US-ASCII"));
+			out = new PrintWriter(socket.getOutputStream(), true);
+		}
+		
+		String read() throws IOException {
+			return in.readLine();
+		}
+		
+		void send(String line) {
+			out.println(line);
+		}
+	}
+	
+	@Test
+	public void testGame() throws IOException {
+		Client x = new Client();
+		assertEquals("WAIT", x.read());
+		Client o = new Client();
+		
+		assertEquals("START X", x.read());
+		assertEquals("TURN", x.read());
+		assertEquals("START O", o.read());
+		
+		o.send("1");
+		assertEquals("ERROR Not your turn", o.read());
+		
+		for (int i = 0; i < 3; i++) {
+			x.send("4");
+			assertEquals("MOVE X 4", x.read());
+			assertEquals("MOVE X 4", o.read());
+			assertEquals("TURN", o.read());
+			
+			o.send("5");
+			assertEquals("MOVE O 5", x.read());
+			assertEquals("TURN", x.read());
+			assertEquals("MOVE O 5", o.read());
+		}
+		
+		x.send("8");
+		assertEquals("ERROR You cannot place a coin there", x.read());
+		
+		x.send("4");
+		assertEquals("MOVE X 4", x.read());
+		assertEquals("WIN X", x.read());
+		assertEquals(null, x.read());
+		assertEquals("MOVE X 4", o.read());
+		assertEquals("WIN X", o.read());
+		assertEquals(null, o.read());
+		assertEquals(1, server.getGames());
+	}
+	
+	@Test
+	public void testOpponentLeaves() throws IOException {
+		Client x = new Client();
+		assertEquals("WAIT", x.read());
+		Client o = new Client();
+		assertEquals("START O", o.read());
+		
+		x.send("QUIT");
+		assertEquals("LEFT", o.read());
+		assertEquals(null, o.read());
+	}
+}
@@ -0,0 +1,118 @@
+package connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import connect4.BitBoard;
+import connect4.Player;
+import connect4.SimpleBoard;
+import connect4.ai.NegamaxEngine;
+import connect4.ai.Solution;
+import connect4.ai.Solver;
+
+/**
+ * Unit test for the solver.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class SolverTest {
+
+	private Player player1 = new Player("X");
+	private Player player2 = new Player("O");
+	private Solver solver = new Solver(8);
+
+	@Test
+	public void testWinNextMove() {
+		Solution solution = solver.solve("121212");
+		assertTrue(solution.isWin());
+		assertEquals(1, solution.getDistance());
+		assertEquals(18, solution.getScore());
+	}
+
+	@Test
+	public void testDoubleThreat() {
+		// X can place a third coin between two open ends on the bottom row
+		Solution solution = solver.solve("4455");
+		assertTrue(solution.isWin());
+		assertEquals(3, solution.getDistance());
+	}
+
+	@Test
+	public void testKnownPositions() {
+		assertEquals(-1, solver.solve("2252576253462244111563365343671351441").getScore());
+		assertEquals(1, solver.solve("7422341735647741166133573473242566").getScore());
+	}
+
+	@Test
+	public void testWeakSolve() {
+		Solution strong = solver.solve("4453326617");
+		Solution weak = solver.solve("4453326617", true);
+
+		assertTrue(weak.isWeak());
+		assertEquals(Integer.signum(strong.getScore()), weak.getScore());
+		assertEquals(-1, weak.getDistance());
+	}
+
+	@Test
+	public void testBoardAndMovesAgree() {
+		String moves = "4453326617";
+		BitBoard board = new BitBoard();
+		Player cur = player1;
+		for (int i = 0; i < moves.length(); i++) {
+			board.place(cur, moves.charAt(i) - '1');
+			cur = cur == player1 ? player2 : player1;
+		}
+
+		assertEquals(solver.solve(moves).getScore(), solver.solve(board).getScore());
+	}
+
+	@Test
+	public void testAgreesWithFullSearch() {
+		Random random = new Random(5);
+		int[] columns = new int[SimpleBoard.COLS];
+
+		for (int n = 0; n < 10; n++) {
+			// A random position with 30 coins where the game is not over
+			BitBoard board = new BitBoard();
+			Player cur = player1;
+			while (board.getMoveCount() < 30) {
+				int count = board.getMoves(columns, null, cur, cur == player1 ? player2 : player1);
+				board.place(cur, columns[random.nextInt(count)]);
+				cur = cur == player1 ? player2 : player1;
+
+				if (board.check() != null) {
+					board = new BitBoard();
+					cur = player1;
+				}
+			}
+
+			Player opponent = cur == player1 ? player2 : player1;
+			NegamaxEngine engine = new NegamaxEngine(SimpleBoard.ROWS * SimpleBoard.COLS);
+			engine.search(board, cur, opponent);
+			int score = engine.getScore();
+
+			Solution solution = solver.solve(board);
+			if (score > NegamaxEngine.WIN_SCORE / 2) {
+				assertEquals(NegamaxEngine.WIN_SCORE - score, solution.getDistance());
+			} else if (score < -NegamaxEngine.WIN_SCORE / 2) {
+				assertEquals(NegamaxEngine.WIN_SCORE + score, solution.getDistance());
+			} else {
+				assertTrue(solution.isDraw());
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testGameOver() {
+		solver.solve("1212121");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testFullColumn() {
+		solver.solve("1111111");
+	}
+}
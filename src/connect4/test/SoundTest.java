@@ -0,0 +1,57 @@
+package connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Test;
+
+import connect4.ClipPlayer;
+import connect4.SilentPlayer;
+import connect4.Sound;
+
+/**
+ * Unit test for the sound players.
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class SoundTest {
+
+	@After
+	public void resetPlayer() {
+		Sound.setPlayer(null);
+	}
+	
+	@Test
+	public void testSilent() {
+		SilentPlayer silent = new SilentPlayer();
+		Sound.setPlayer(silent);
+		
+		Sound.play("sound/click.wav");
+		Sound.play("sound/winner.wav");
+		
+		assertEquals(2, silent.getPlays());
+		assertEquals("sound/winner.wav", silent.getLast());
+	}
+	
+	@Test
+	public void testPlayReturnsAtOnce() throws InterruptedException {
+		ClipPlayer player = new ClipPlayer(new File(Sound.DIRECTORY));
+		
+		// Far more sounds than the queue holds, the oldest are dropped
+		long start = System.nanoTime();
+		for (int i = 0; i < 1000; i++) {
+			player.play("sound/click.wav");
+		}
+		assertTrue(System.nanoTime() - start < 1000000000L);
+		
+		// The files of the directory were decoded, whether or not there is an audio device
+		Thread.sleep(500);
+		assertTrue(player.isLoaded("sound/winner.wav"));
+		assertFalse(player.isLoaded("sound/missing.wav"));
+		player.close();
+	}
+}
@@ -0,0 +1,54 @@
+package connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import connect4.SimpleBoard;
+import connect4.ai.Tournament;
+import connect4.ai.TournamentResult;
+
+/**
+ * Unit test for the self-play tournament.
+ *
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class TournamentTest {
+
+	@Test
+	public void testTotals() {
+		TournamentResult result = new Tournament("random", "random", 1, 2).play(100, 2);
+
+		assertEquals(100, result.getGames());
+		assertEquals(100, result.getWins() + result.getDraws() + result.getLosses());
+		assertTrue(result.getAverageLength() >= 7);
+
+		long openings = 0;
+		for (int col = 0; col < SimpleBoard.COLS; col++) {
+			for (int outcome = 0; outcome < 3; outcome++) {
+				openings += result.getOpeningResult(col, outcome);
+			}
+		}
+		assertEquals(100, openings);
+	}
+
+	@Test
+	public void testSameResultOnAnyNumberOfThreads() {
+		String one = new Tournament("random", "computer:2", 7, 2).play(200, 1).toString();
+		String four = new Tournament("random", "computer:2", 7, 2).play(200, 4).toString();
+
+		assertEquals(one, four);
+	}
+
+	@Test
+	public void testEngineBeatsRandom() {
+		TournamentResult result = new Tournament("computer:4", "random", 3, 2).play(50, 2);
+		assertTrue(result.getWins() > 40);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownPlayer() {
+		new Tournament("random", "nobody", 0, 2);
+	}
+}
@@ -0,0 +1,83 @@
+package connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import connect4.ai.TranspositionTable;
+
+/**
+ * Unit test for the transposition table
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class TranspositionTableTest {
+
+	private TranspositionTable table;
+	
+	@Before
+	public void setupTable() {
+		table = new TranspositionTable(1);
+	}
+	
+	@Test
+	public void testStoreAndProbe() {
+		long key = 0x123456789abcdefL;
+		table.store(key, 12, TranspositionTable.LOWER, 4, -987);
+		
+		long entry = table.probe(key);
+		assertEquals(12, TranspositionTable.getDepth(entry));
+		assertEquals(TranspositionTable.LOWER, TranspositionTable.getBound(entry));
+		assertEquals(4, TranspositionTable.getMove(entry));
+		assertEquals(-987, TranspositionTable.getScore(entry));
+		assertEquals(1, table.getHits());
+	}
+	
+	@Test
+	public void testOtherKeyInBucket() {
+		long key = 0x1111111100000005L;
+		long other = 0x2222222200000005L;
+		
+		table.store(key, 5, TranspositionTable.EXACT, 3, 10);
+		
+		assertEquals(0L, table.probe(other));
+		assertEquals(1, table.getCollisions());
+	}
+	
+	@Test
+	public void testReplacement() {
+		long deep = 0x1111111100000007L;
+		long shallow = 0x2222222200000007L;
+		long newer = 0x3333333300000007L;
+		
+		// The shallow result goes to the second entry and keeps the deep one
+		table.store(deep, 10, TranspositionTable.EXACT, 3, 1);
+		table.store(shallow, 2, TranspositionTable.EXACT, 3, 2);
+		assertEquals(10, TranspositionTable.getDepth(table.probe(deep)));
+		assertEquals(2, TranspositionTable.getDepth(table.probe(shallow)));
+		
+		// The second entry is always replaced
+		table.store(newer, 1, TranspositionTable.EXACT, 3, 3);
+		assertEquals(0L, table.probe(shallow));
+		
+		// Results from an older search give way to new ones
+		table.newSearch();
+		table.store(shallow, 1, TranspositionTable.EXACT, 3, 2);
+		assertEquals(0L, table.probe(deep));
+	}
+	
+	@Test
+	public void testFillRate() {
+		assertEquals(0.0, table.getFillRate(), 0.0);
+		
+		for (long i = 0; i < 100000; i++) {
+			table.store(i * 0x9e3779b97f4a7c15L, 1, TranspositionTable.EXACT, 0, 0);
+		}
+		assertTrue(table.getFillRate() > 0.4);
+		
+		table.clear();
+		assertEquals(0.0, table.getFillRate(), 0.0);
+	}
+}
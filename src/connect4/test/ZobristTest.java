@@ -0,0 +1,90 @@
+package connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import connect4.BitBoard;
+import connect4.Board;
+import connect4.Player;
+import connect4.Position;
+import connect4.SimpleBoard;
+import connect4.Zobrist;
+
+/**
+ * Unit test for the position keys of the boards.
+ * 
+ * @author Daniel, Pierre, Mazen og Jacob
+ */
+public class ZobristTest {
+
+	private Player player1 = new Player("X");
+	private Player player2 = new Player("O");
+	
+	@Test
+	public void testEmptyBoard() {
+		assertEquals(0L, new SimpleBoard().getKey());
+		assertEquals(0L, new BitBoard().getKey());
+	}
+	
+	@Test
+	public void testMoveOrderDoesNotMatter() {
+		Board a = new SimpleBoard();
+		a.place(player1, 3);
+		a.place(player2, 4);
+		a.place(player1, 2);
+		
+		Board b = new SimpleBoard();
+		b.place(player1, 2);
+		b.place(player2, 4);
+		b.place(player1, 3);
+		
+		assertEquals(a.getKey(), b.getKey());
+	}
+	
+	@Test
+	public void testUndoRestoresKey() {
+		Board board = new BitBoard();
+		board.place(player1, 3);
+		long key = board.getKey();
+		
+		board.place(player2, 3);
+		assertFalse(key == board.getKey());
+		
+		board.undo();
+		assertEquals(key, board.getKey());
+		
+		board.undo();
+		assertEquals(0L, board.getKey());
+	}
+	
+	@Test
+	public void testBoardsAgree() {
+		Board simple = new SimpleBoard();
+		Board bits = new BitBoard();
+		int[] moves = { 3, 3, 4, 2, 6, 0, 0, 1 };
+		
+		Player cur = player1;
+		for (int col : moves) {
+			simple.place(cur, col);
+			bits.place(cur, col);
+			cur = cur == player1 ? player2 : player1;
+			
+			assertEquals(simple.getKey(), bits.getKey());
+		}
+	}
+	
+	@Test
+	public void testKeysAreStable() {
+		// Keys are stored in files, so they must never change between runs
+		assertEquals(0xf7da4dbf298ca3d5L, Zobrist.getKey(0, 0, 0));
+		assertTrue(Zobrist.getKey(0, 0, 0) != Zobrist.getKey(1, 0, 0));
+	}
+	
+	@Test
+	public void testPositionHashCode() {
+		assertEquals(new Position(2, 5).hashCode(), new Position(2, 5).hashCode());
+	}
+}